@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates a synthetic Solidity and Vyper corpus for the audit benchmarks.
+ *
+ * <p>Generation is seeded, so the same shape and size always produce the same files and results
+ * stay comparable between commits.
+ */
+public final class AuditCorpus {
+
+    private static final long SEED = 0x5eedL;
+
+    /** The kind of code base to generate. */
+    public enum Shape {
+        /** Many small, independent contracts of both languages. */
+        MANY_CONTRACTS,
+        /** Contracts that inherit from each other in long chains. */
+        DEEP_INHERITANCE,
+        /** A handful of very large files. */
+        HUGE_FILES
+    }
+
+    private AuditCorpus() {}
+
+    /**
+     * Writes a corpus to a directory.
+     *
+     * @param directory target directory, created if missing
+     * @param shape kind of code base
+     * @param size scale of the corpus, roughly the number of contracts
+     * @return the number of files written
+     */
+    public static int generate(final Path directory, final Shape shape, final int size)
+            throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(SEED);
+        switch (shape) {
+            case DEEP_INHERITANCE:
+                return writeInheritanceChains(directory, size, random);
+            case HUGE_FILES:
+                return writeHugeFiles(directory, size, random);
+            default:
+                return writeManyContracts(directory, size, random);
+        }
+    }
+
+    private static int writeManyContracts(final Path directory, final int size, final Random random)
+            throws IOException {
+        for (int i = 0; i < size; i++) {
+            Path module = directory.resolve("module" + (i % 16));
+            Files.createDirectories(module);
+            if (i % 4 == 3) {
+                write(module.resolve("Vault" + i + ".vy"), vyperContract(i, random));
+            } else {
+                StringBuilder source = new StringBuilder(pragma());
+                appendContract(source, "Token" + i, null, 4 + random.nextInt(8), random);
+                write(module.resolve("Token" + i + ".sol"), source);
+            }
+        }
+        return size;
+    }
+
+    private static int writeInheritanceChains(
+            final Path directory, final int size, final Random random) throws IOException {
+        int depth = 16;
+        int files = 0;
+        for (int chain = 0; chain * depth < size; chain++) {
+            for (int level = 0; level < depth; level++) {
+                String name = "Chain" + chain + "Level" + level;
+                String parent = level == 0 ? null : "Chain" + chain + "Level" + (level - 1);
+                StringBuilder source = new StringBuilder(pragma());
+                if (parent != null) {
+                    source.append("import \"./").append(parent).append(".sol\";\n\n");
+                }
+                appendContract(source, name, parent, 3 + random.nextInt(4), random);
+                write(directory.resolve(name + ".sol"), source);
+                files++;
+            }
+        }
+        return files;
+    }
+
+    private static int writeHugeFiles(final Path directory, final int size, final Random random)
+            throws IOException {
+        int files = Math.max(1, size / 100);
+        for (int file = 0; file < files; file++) {
+            StringBuilder source = new StringBuilder(pragma());
+            for (int contract = 0; contract < 100; contract++) {
+                appendContract(
+                        source,
+                        "Huge" + file + "Part" + contract,
+                        null,
+                        10 + random.nextInt(10),
+                        random);
+            }
+            write(directory.resolve("Huge" + file + ".sol"), source);
+        }
+        return files;
+    }
+
+    private static String pragma() {
+        return "pragma solidity ^0.5.0;\n\n";
+    }
+
+    private static void appendContract(
+            final StringBuilder source,
+            final String name,
+            final String parent,
+            final int functions,
+            final Random random) {
+        source.append("contract ").append(name);
+        if (parent != null) {
+            source.append(" is ").append(parent);
+        }
+        source.append(" {\n");
+        source.append("    address public owner = 0x5aAeb6053F3E94C9b9A09f33669435E7Ef1BeAed;\n");
+        source.append("    mapping(address => uint) balances").append(name).append(";\n");
+        source.append("    uint[] values").append(name).append(";\n\n");
+        for (int i = 0; i < functions; i++) {
+            String function = "f" + name + i;
+            switch (random.nextInt(5)) {
+                case 0:
+                    source.append("    function ")
+                            .append(function)
+                            .append("() public {\n")
+                            .append("        require(tx.origin == owner);\n")
+                            .append("        msg.sender.transfer(balances")
+                            .append(name)
+                            .append("[msg.sender]);\n")
+                            .append("    }\n\n");
+                    break;
+                case 1:
+                    source.append("    function ")
+                            .append(function)
+                            .append("() public {\n")
+                            .append("        for (uint i = 0; i < values")
+                            .append(name)
+                            .append(".length; i++) {\n")
+                            .append("            values")
+                            .append(name)
+                            .append("[i] += 1;\n")
+                            .append("        }\n")
+                            .append("    }\n\n");
+                    break;
+                case 2:
+                    source.append("    function ")
+                            .append(function)
+                            .append("(address target) public {\n")
+                            .append("        target.call.value(1 ether)(\"\");\n")
+                            .append("    }\n\n");
+                    break;
+                case 3:
+                    source.append("    function ")
+                            .append(function)
+                            .append("() public view returns (uint) {\n")
+                            .append("        return now % 7;\n")
+                            .append("    }\n\n");
+                    break;
+                default:
+                    source.append("    function ")
+                            .append(function)
+                            .append("(uint amount) public {\n")
+                            .append("        balances")
+                            .append(name)
+                            .append("[msg.sender] = balances")
+                            .append(name)
+                            .append("[msg.sender] - amount;\n")
+                            .append("    }\n\n");
+            }
+        }
+        source.append("}\n\n");
+    }
+
+    private static StringBuilder vyperContract(final int index, final Random random) {
+        StringBuilder source = new StringBuilder();
+        source.append("owner: public(address)\n")
+                .append("balances: map(address, uint256)\n\n")
+                .append("@public\n")
+                .append("def __init__():\n")
+                .append("    self.owner = msg.sender\n\n");
+        int functions = 3 + random.nextInt(5);
+        for (int i = 0; i < functions; i++) {
+            source.append("@public\n")
+                    .append("def withdraw")
+                    .append(index)
+                    .append('_')
+                    .append(i)
+                    .append("():\n")
+                    .append("    assert tx.origin == self.owner\n")
+                    .append("    send(msg.sender, self.balances[msg.sender])\n\n");
+        }
+        return source;
+    }
+
+    private static void write(final Path file, final CharSequence contents) throws IOException {
+        Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the analysis path of {@code epirus audit}: walking the corpus, parsing every contract
+ * and evaluating the rules. The cache is disabled so every invocation does the full work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ContractAnalysisBenchmark {
+
+    @Param({"MANY_CONTRACTS", "DEEP_INHERITANCE", "HUGE_FILES"})
+    public AuditCorpus.Shape shape;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    /** Number of analysis threads, 0 for one per core. */
+    @Param({"1", "0"})
+    public int threads;
+
+    @Param({"XPATH", "SINGLE_PASS"})
+    public RuleEngine ruleEngine;
+
+    private Path corpus;
+
+    @Setup(Level.Trial)
+    public void createCorpus() throws IOException {
+        corpus = Files.createTempDirectory("audit-corpus");
+        AuditCorpus.generate(corpus, shape, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus() throws IOException {
+        try (Stream<Path> files = Files.walk(corpus)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /** Throughput counters reported next to the invocation rate. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long files;
+        public long findings;
+    }
+
+    @Benchmark
+    public void analyze(final Counters counters) throws Exception {
+        int parallelism = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        new ContractAnalysis(corpus, parallelism, null, ruleEngine)
+                .analyze(
+                        report -> {
+                            counters.files++;
+                            counters.findings += report.getFindings().size();
+                        });
+    }
+}
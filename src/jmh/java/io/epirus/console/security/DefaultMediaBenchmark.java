@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures how fast the audit reporters format findings, reported as findings per second. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DefaultMediaBenchmark {
+
+    private static final int FILES = 100;
+    private static final int FINDINGS_PER_FILE = 50;
+
+    @Param({"TEXT", "JSONL", "SARIF"})
+    public AuditFormat format;
+
+    private final List<FileReport> reports = new ArrayList<>();
+    private final PrintStream out =
+            new PrintStream(
+                    new OutputStream() {
+                        @Override
+                        public void write(int b) {}
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {}
+                    });
+
+    @Setup
+    public void createReports() {
+        Random random = new Random(0x5eedL);
+        for (int file = 0; file < FILES; file++) {
+            List<AuditFinding> findings = new ArrayList<>(FINDINGS_PER_FILE);
+            for (int i = 0; i < FINDINGS_PER_FILE; i++) {
+                findings.add(
+                        new AuditFinding(
+                                1 + random.nextInt(2000),
+                                random.nextInt(80),
+                                1 + random.nextInt(3),
+                                "SOLIDITY_RULE_" + random.nextInt(40),
+                                Integer.toHexString(random.nextInt(0xffff))));
+            }
+            reports.add(
+                    new FileReport(Paths.get("contracts", "Contract" + file + ".sol"), findings));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES * FINDINGS_PER_FILE)
+    public AuditMedia report() {
+        AuditMedia media = format.createMedia(out, 2);
+        media.start();
+        reports.forEach(media);
+        media.finish();
+        return media;
+    }
+}
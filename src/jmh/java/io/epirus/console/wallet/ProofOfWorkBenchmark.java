@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import org.web3j.utils.Numeric;
+
+import static org.web3j.crypto.Hash.sha256;
+
+/**
+ * Hashes per second of the faucet proof of work search on a single thread, comparing the previous
+ * string based check with {@link ProofOfWorkSolver.Search}. The difficulty is unreachable so every
+ * candidate of the range is hashed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+public class ProofOfWorkBenchmark {
+
+    private static final int CANDIDATES = 10_000;
+    private static final int DIFFICULTY = 64;
+
+    @Param({"0x5a1d8c0e7b", "a-longer-seed-like-the-ones-returned-by-the-faucet-service"})
+    public String seed;
+
+    private long offset;
+    private ProofOfWorkSolver.Search search;
+    private final AtomicLong result = new AtomicLong(-1);
+
+    @Setup
+    public void setup() {
+        search = new ProofOfWorkSolver.Search(seed);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public boolean stringCheck() {
+        boolean found = false;
+        for (long i = offset; i < offset + CANDIDATES; i++) {
+            String potentialHash =
+                    Numeric.toHexString(sha256((i + seed).getBytes(StandardCharsets.UTF_8)))
+                            .substring(2);
+            found |= potentialHash.startsWith(new String(new char[DIFFICULTY]).replace("\0", "0"));
+        }
+        offset += CANDIDATES;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public long solverSearch() {
+        long nonce = search.scan(offset, CANDIDATES, DIFFICULTY, result);
+        offset += CANDIDATES;
+        return nonce;
+    }
+
+    /** Whole solver, all cores, on a difficulty solved in a few million hashes on average. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long solve() throws InterruptedException {
+        return new ProofOfWorkSolver().solve(seed + offset++, 5).getNonce();
+    }
+}
@@ -28,6 +28,7 @@ import io.epirus.console.project.NewProjectCommand;
 import io.epirus.console.project.testing.ProjectTestCommand;
 import io.epirus.console.run.RunCommand;
 import io.epirus.console.security.ContractAuditCommand;
+import io.epirus.console.tx.TransactionCommand;
 import io.epirus.console.wallet.WalletCommand;
 import io.epirus.console.web.services.Telemetry;
 import io.epirus.console.web.services.Updater;
@@ -57,6 +58,7 @@ import static org.web3j.codegen.Console.exitSuccess;
             NewProjectCommand.class,
             OpenApiCommand.class,
             RunCommand.class,
+            TransactionCommand.class,
             ProjectTestCommand.class,
             WalletCommand.class
         },
@@ -105,7 +107,13 @@ public class EpirusCommand implements Runnable {
         commandLine.setCaseInsensitiveEnumValuesAllowed(true);
         commandLine.setParameterExceptionHandler(this::handleParseException);
         commandLine.setDefaultValueProvider(new EnvironmentVariableDefaultProvider(environment));
+        commandLine.setExecutionStrategy(this::initialiseAndExecute);
 
+        return commandLine.execute(args);
+    }
+
+    /** Initialises the CLI once the arguments are parsed, so commands can redirect its output. */
+    private int initialiseAndExecute(final CommandLine.ParseResult parseResult) {
         System.out.println(LOGO);
         try {
             ConfigManager.setProduction();
@@ -115,7 +123,7 @@ public class EpirusCommand implements Runnable {
             Console.exitError("Failed to initialise the CLI");
         }
 
-        return commandLine.execute(args);
+        return new CommandLine.RunLast().execute(parseResult);
     }
 
     private int handleParseException(final CommandLine.ParameterException ex, final String[] args) {
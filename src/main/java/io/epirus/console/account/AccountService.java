@@ -13,21 +13,28 @@
 package io.epirus.console.account;
 
 import java.io.Closeable;
+import java.io.Console;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.diogonunes.jcdp.color.api.Ansi;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import io.epirus.web3j.Epirus;
+import io.epirus.console.utils.PollingScheduler;
+import io.epirus.console.utils.PollingScheduler.Schedule;
+import io.epirus.console.wallet.BalanceWatcher;
 import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 
-import org.web3j.crypto.Credentials;
 import org.web3j.protocol.Network;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
@@ -35,6 +42,7 @@ import org.web3j.protocol.core.methods.response.EthGetBalance;
 
 import static io.epirus.console.config.ConfigManager.config;
 import static io.epirus.console.utils.PrinterUtilities.printErrorAndExit;
+import static io.epirus.console.utils.PrinterUtilities.printInformationPair;
 import static io.epirus.console.utils.PrinterUtilities.printInformationPairWithStatus;
 import static org.web3j.codegen.Console.exitError;
 
@@ -43,6 +51,11 @@ public class AccountService implements Closeable {
     public static final String DEFAULT_APP_URL =
             System.getenv().getOrDefault("EPIRUS_APP_URL", "https://portal.epirus.io");
 
+    private static final Duration ACTIVATION_CHECK_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration INPUT_CHECK_INTERVAL = Duration.ofMillis(100);
+    private static final Duration AVERAGE_BLOCK_TIME = Duration.ofSeconds(15);
+    private static final Duration HEAD_CHECK_INTERVAL = Duration.ofSeconds(1);
+
     private final String cloudURL;
     private final OkHttpClient client = new OkHttpClient();
 
@@ -109,6 +122,11 @@ public class AccountService implements Closeable {
         throw new RuntimeException();
     }
 
+    /**
+     * Waits for the account to be activated, checking more often at first.
+     *
+     * @param tries number of checks the wait is equivalent to, at most 10 seconds apart
+     */
     public boolean checkIfAccountIsConfirmed(int tries) throws IOException, InterruptedException {
         Request request =
                 new Request.Builder()
@@ -117,16 +135,70 @@ public class AccountService implements Closeable {
                                         "%s/api/users/status/%s", cloudURL, config.getLoginToken()))
                         .get()
                         .build();
-        while (tries-- > 0) {
-            if (userConfirmedAccount(request)) {
-                return true;
-            } else {
-                printInformationPairWithStatus(
-                        "Account status", 20, "PENDING ", Ansi.FColor.YELLOW);
-            }
-            Thread.sleep(10000);
+        PollingScheduler.Poll<Boolean> poll =
+                PollingScheduler.getInstance()
+                        .poll(
+                                "account activation",
+                                () -> {
+                                    if (userConfirmedAccount(request)) {
+                                        return true;
+                                    }
+                                    printInformationPairWithStatus(
+                                            "Account status", 20, "PENDING ", Ansi.FColor.YELLOW);
+                                    return null;
+                                },
+                                Schedule.backoff(Duration.ofSeconds(2), ACTIVATION_CHECK_INTERVAL)
+                                        .withJitter(0.1)
+                                        .withDeadline(
+                                                ACTIVATION_CHECK_INTERVAL.multipliedBy(
+                                                        Math.max(0, tries - 1))));
+        if (tries > 1) {
+            wakeUpOnEnter(poll);
+        }
+        try {
+            return poll.await();
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause()
+                    : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Lets the user trigger the next check right away, once they have activated the account. Input
+     * is only read while the poll is pending, so nothing typed afterwards is swallowed.
+     */
+    private static void wakeUpOnEnter(PollingScheduler.Poll<?> poll) {
+        Console console = System.console();
+        if (console == null) {
+            return;
         }
-        return false;
+        printInformationPair(
+                "Account status",
+                20,
+                "Press Enter to check again once you have activated your account",
+                Ansi.FColor.YELLOW);
+        Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                while (!poll.result().isDone()) {
+                                    if (console.reader().ready()) {
+                                        console.readLine();
+                                        poll.wakeUp();
+                                    } else {
+                                        Thread.sleep(INPUT_CHECK_INTERVAL.toMillis());
+                                    }
+                                }
+                            } catch (IOException | InterruptedException e) {
+                                // Only the early checks are lost, the poll carries on
+                            }
+                        },
+                        "epirus-activation-input");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private boolean userConfirmedAccount(Request request) throws IOException {
@@ -145,55 +217,70 @@ public class AccountService implements Closeable {
         return responseJsonObj.get("active").getAsBoolean();
     }
 
-    public BigInteger getAccountBalance(Credentials credentials, Web3j web3j) {
-        int count = 0;
-        int maxTries = 10;
-        while (true) {
-            try {
-                EthGetBalance accountBalance =
-                        web3j.ethGetBalance(
-                                        credentials.getAddress(), DefaultBlockParameterName.LATEST)
-                                .send();
-                if (accountBalance.getError() == null) {
-                    return accountBalance.getBalance();
-                }
-
-            } catch (Exception e) {
-                if (++count == maxTries) {
-                    printErrorAndExit(e.getMessage());
-                }
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+    public BigInteger getAccountBalance(String address, Web3j web3j) {
+        try {
+            return PollingScheduler.getInstance()
+                    .poll(
+                            "account balance",
+                            () -> {
+                                EthGetBalance accountBalance =
+                                        web3j.ethGetBalance(
+                                                        address, DefaultBlockParameterName.LATEST)
+                                                .send();
+                                if (accountBalance.hasError()) {
+                                    throw new IOException(accountBalance.getError().getMessage());
+                                }
+                                return accountBalance.getBalance();
+                            },
+                            Schedule.backoff(Duration.ofSeconds(1), Duration.ofSeconds(8))
+                                    .withJitter(0.2)
+                                    .withMaxErrors(9))
+                    .await();
+        } catch (ExecutionException e) {
+            printErrorAndExit(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            printErrorAndExit("Interrupted while checking the account balance.");
+        } catch (TimeoutException e) {
+            printErrorAndExit(e.getMessage());
         }
+        throw new RuntimeException();
     }
 
+    /**
+     * Waits for the account to receive funds, for the given number of new blocks. The balance is
+     * only checked when a new block arrives. Should the node stop announcing blocks, the wait ends
+     * after twice the time the blocks take on average.
+     *
+     * @return the balance, which is zero if no funds arrived in time
+     */
     public BigInteger pollForAccountBalance(
-            Credentials credentials, Network network, Web3j web3j, int numberOfBlocksToCheck)
+            String address, Network network, Web3j web3j, int numberOfBlocksToCheck)
             throws IOException {
-        BigInteger accountBalance = null;
-        BigInteger startBlock = web3j.ethBlockNumber().send().getBlockNumber();
-        BigInteger stopBlock = startBlock.add(BigInteger.valueOf(numberOfBlocksToCheck));
-        while (web3j.ethBlockNumber().send().getBlockNumber().compareTo(stopBlock) < 0) {
-            try {
-                accountBalance =
-                        Epirus.buildWeb3j(Network.valueOf(network.getNetworkName().toUpperCase()))
-                                .ethGetBalance(
-                                        credentials.getAddress(), DefaultBlockParameterName.LATEST)
-                                .send()
-                                .getBalance();
-                if (accountBalance.compareTo(BigInteger.ZERO) > 0) {
-                    return accountBalance;
+        long deadline =
+                System.nanoTime()
+                        + AVERAGE_BLOCK_TIME.multipliedBy(2L * numberOfBlocksToCheck).toNanos();
+        try (BalanceWatcher balanceWatcher = new BalanceWatcher(web3j)) {
+            CompletableFuture<BigInteger> funded =
+                    balanceWatcher.watch(address, balance -> balance.signum() > 0);
+            while (balanceWatcher.getHeads() < numberOfBlocksToCheck
+                    && System.nanoTime() < deadline) {
+                try {
+                    return funded.get(HEAD_CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Not funded yet, check whether the blocks have arrived
                 }
-                Thread.sleep(5000);
-            } catch (Exception e) {
-                printErrorAndExit("Could not check the account balance." + e.getMessage());
             }
+            // The balance of the last block may still be being queried
+            return funded.get(HEAD_CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return BigInteger.ZERO;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not check the account balance.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the account balance", e);
         }
-        return accountBalance;
     }
 
     public String getLoginToken() {
@@ -14,6 +14,7 @@ package io.epirus.console.project.java;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -21,6 +22,7 @@ import io.epirus.console.EpirusVersionProvider;
 import io.epirus.console.openapi.utils.PrettyPrinter;
 import io.epirus.console.openapi.utils.SimpleFileLogger;
 import io.epirus.console.project.InteractiveOptions;
+import io.epirus.console.project.utils.UnitTestManifest;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
@@ -66,9 +68,13 @@ public class JavaTestCLIRunner implements Runnable {
             buildInteractively();
         }
         try {
-            generateJava();
+            UnitTestManifest manifest = generateJava();
             System.out.println(
-                    "Unit tests were generated successfully at location: " + unitTestOutputDir);
+                    "Unit tests were generated successfully at location: "
+                            + unitTestOutputDir
+                            + " ("
+                            + manifest.summary()
+                            + ")");
         } catch (IOException e) {
             e.printStackTrace(SimpleFileLogger.INSTANCE.getFilePrintStream());
             PrettyPrinter.INSTANCE.onFailed();
@@ -86,12 +92,25 @@ public class JavaTestCLIRunner implements Runnable {
                 .ifPresent(outputPath -> unitTestOutputDir = outputPath);
     }
 
+    /**
+     * Generates tests for the wrappers which are new or changed since the last run. Tests which
+     * were edited after being generated are left untouched.
+     *
+     * @return the updated test manifest
+     */
     @VisibleForTesting
-    public void generateJava() throws IOException {
+    public UnitTestManifest generateJava() throws IOException {
         List<Class> compiledClasses = new ClassProvider(new File(javaWrapperDir)).getClasses();
+        UnitTestManifest manifest = UnitTestManifest.load(unitTestOutputDir);
         compiledClasses.forEach(
                 compiledClass -> {
                     try {
+                        Path testFile =
+                                UnitTestManifest.testFile(
+                                        unitTestOutputDir, compiledClass, ".java");
+                        if (!manifest.requiresGeneration(compiledClass, testFile)) {
+                            return;
+                        }
                         new JavaClassGenerator(
                                         compiledClass,
                                         compiledClass
@@ -103,11 +122,14 @@ public class JavaTestCLIRunner implements Runnable {
                                                                 .lastIndexOf(".")),
                                         unitTestOutputDir)
                                 .writeClass();
+                        manifest.record(compiledClass, testFile);
                     } catch (Exception e) {
                         e.printStackTrace(SimpleFileLogger.INSTANCE.getFilePrintStream());
                         PrettyPrinter.INSTANCE.onFailed();
                         System.exit(1);
                     }
                 });
+        manifest.save();
+        return manifest;
     }
 }
@@ -22,10 +22,13 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.diogonunes.jcdp.color.api.Ansi;
 import io.epirus.console.openapi.utils.PrettyPrinter;
 import io.epirus.console.openapi.utils.SimpleFileLogger;
+import io.epirus.console.wallet.TransactionSigner;
+import io.epirus.console.wallet.agent.AgentTransactionSigner;
 import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -78,14 +81,9 @@ public class ProjectUtils {
     }
 
     public static Optional<Path> loadProjectWalletFile(Path path) {
-        String pathToProjectResources =
-                String.join(File.separator, path.toString(), "keystore", "TEST_WALLET.json");
-        try {
-            return Optional.of(
-                    Files.list(Paths.get(pathToProjectResources))
-                            .filter(f -> f.getFileName().toString().endsWith("json"))
-                            .collect(Collectors.toList())
-                            .get(0));
+        Path keystore = path.resolve("keystore");
+        try (Stream<Path> files = Files.list(keystore)) {
+            return files.filter(f -> f.getFileName().toString().endsWith("json")).findFirst();
         } catch (IOException e) {
             Console.exitError(
                     "Could not load wallet file. Make sure you are in the right directory.");
@@ -131,6 +129,17 @@ public class ProjectUtils {
         return null;
     }
 
+    /**
+     * Signer for a wallet file, through the credential agent when the wallet was added to it, so
+     * that the wallet is only decrypted when no agent holds it.
+     */
+    public static TransactionSigner createSigner(Path walletPath, String walletPassword) {
+        Optional<TransactionSigner> agentSigner =
+                AgentTransactionSigner.forWallet(walletPath.toFile());
+        return agentSigner.orElseGet(
+                () -> TransactionSigner.of(createCredentials(walletPath, walletPassword)));
+    }
+
     public static void uploadSolidityMetadata(Network network, Path workingDirectory) {
         File pathToMetadata =
                 new File(
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.project.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+/**
+ * Keeps track of the unit tests generated for each contract wrapper, so that only tests for new or
+ * changed wrappers are regenerated and tests edited by the user are left untouched.
+ *
+ * <p>The manifest is stored in the test output directory and records, for every wrapper, a hash of
+ * its public method signatures and a hash of the test file as it was generated.
+ */
+public class UnitTestManifest {
+
+    static final String MANIFEST_FILE_NAME = ".epirus-tests.json";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path manifestPath;
+    private final Map<String, WrapperEntry> wrappers;
+
+    private int generated;
+    private int upToDate;
+    private int modified;
+
+    private UnitTestManifest(Path manifestPath, Map<String, WrapperEntry> wrappers) {
+        this.manifestPath = manifestPath;
+        this.wrappers = wrappers;
+    }
+
+    public static UnitTestManifest load(String unitTestOutputDir) throws IOException {
+        Path manifestPath = Paths.get(unitTestOutputDir, MANIFEST_FILE_NAME);
+        Map<String, WrapperEntry> wrappers = new TreeMap<>();
+        if (manifestPath.toFile().exists()) {
+            Contents contents =
+                    GSON.fromJson(
+                            new String(Files.readAllBytes(manifestPath), StandardCharsets.UTF_8),
+                            Contents.class);
+            if (contents != null && contents.wrappers != null) {
+                wrappers.putAll(contents.wrappers);
+            }
+        }
+        return new UnitTestManifest(manifestPath, wrappers);
+    }
+
+    /**
+     * Resolves the location of the test generated for a wrapper class.
+     *
+     * @param unitTestOutputDir root directory the tests are written to
+     * @param wrapper compiled contract wrapper
+     * @param extension source file extension, including the dot
+     * @return path of the generated test file
+     */
+    public static Path testFile(String unitTestOutputDir, Class<?> wrapper, String extension) {
+        String packagePath = wrapper.getPackage().getName().replace(".", File.separator);
+        return Paths.get(
+                unitTestOutputDir, packagePath, wrapper.getSimpleName() + "Test" + extension);
+    }
+
+    /**
+     * Hashes the public method signatures of a wrapper. The hash only changes when the contract API
+     * changes, not when the wrapper is merely recompiled.
+     *
+     * @param wrapper compiled contract wrapper
+     * @return hex encoded SHA-256 of the sorted method signatures
+     */
+    public static String fingerprint(Class<?> wrapper) {
+        String signatures =
+                Arrays.stream(wrapper.getDeclaredMethods())
+                        .filter(method -> Modifier.isPublic(method.getModifiers()))
+                        .map(UnitTestManifest::signature)
+                        .sorted()
+                        .collect(Collectors.joining("\n"));
+        return hash(signatures.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks whether the test for a wrapper has to be (re)generated. A test is generated when it
+     * does not exist yet, or when the wrapper changed and the test still has the content it was
+     * generated with. Tests which exist but are unknown to the manifest, or which were edited since
+     * they were generated, are never overwritten.
+     *
+     * @param wrapper compiled contract wrapper
+     * @param testFile location of the test for the wrapper
+     * @return true if the test should be written
+     */
+    public boolean requiresGeneration(Class<?> wrapper, Path testFile) throws IOException {
+        if (!testFile.toFile().exists()) {
+            return true;
+        }
+        WrapperEntry entry = wrappers.get(wrapper.getCanonicalName());
+        if (entry == null || !entry.testHash.equals(hash(Files.readAllBytes(testFile)))) {
+            modified++;
+            return false;
+        }
+        if (entry.signatureHash.equals(fingerprint(wrapper))) {
+            upToDate++;
+            return false;
+        }
+        return true;
+    }
+
+    public void record(Class<?> wrapper, Path testFile) throws IOException {
+        wrappers.put(
+                wrapper.getCanonicalName(),
+                new WrapperEntry(fingerprint(wrapper), hash(Files.readAllBytes(testFile))));
+        generated++;
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(manifestPath.getParent());
+        Files.write(
+                manifestPath, GSON.toJson(new Contents(wrappers)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String summary() {
+        return String.format(
+                "%d generated, %d up to date, %d modified and left unchanged",
+                generated, upToDate, modified);
+    }
+
+    /** Generic signature of a method, leaving out the class declaring it. */
+    private static String signature(Method method) {
+        return Modifier.toString(method.getModifiers())
+                + " "
+                + method.getGenericReturnType().getTypeName()
+                + " "
+                + method.getName()
+                + Arrays.stream(method.getGenericParameterTypes())
+                        .map(Type::getTypeName)
+                        .collect(Collectors.joining(",", "(", ")"))
+                + Arrays.stream(method.getGenericExceptionTypes())
+                        .map(Type::getTypeName)
+                        .collect(Collectors.joining(",", " throws ", ""));
+    }
+
+    private static String hash(byte[] input) {
+        return Numeric.toHexStringNoPrefix(Hash.sha256(input));
+    }
+
+    private static class Contents {
+        private final Map<String, WrapperEntry> wrappers;
+
+        private Contents(Map<String, WrapperEntry> wrappers) {
+            this.wrappers = wrappers;
+        }
+    }
+
+    private static class WrapperEntry {
+        private final String signatureHash;
+        private final String testHash;
+
+        private WrapperEntry(String signatureHash, String testHash) {
+            this.signatureHash = signatureHash;
+            this.testHash = testHash;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.Flowable;
+
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Numeric;
+
+/**
+ * Serves the JSON-RPC results which can never change again from memory, and optionally from {@code
+ * ~/.epirus/rpc-cache}, instead of asking the node.
+ *
+ * <p>The results cached are:
+ *
+ * <ul>
+ *   <li>{@code eth_chainId} and {@code net_version};
+ *   <li>blocks, transactions and receipts, once their block is final;
+ *   <li>balances, nonces, code, storage and calls at an explicit block number, once that block is
+ *       final.
+ * </ul>
+ *
+ * <p>A block is final when it is at least {@link #DEFAULT_FINALITY_DEPTH} blocks below the latest
+ * block seen. Queries for the {@code latest}, {@code pending} or {@code earliest} block, errors and
+ * empty results are never cached. Only responses for which the underlying service provides the raw
+ * JSON are cached, so that hits are decoded exactly like responses from the node. Batches and
+ * subscriptions are passed through.
+ *
+ * <p>The on-disk cache holds at most {@link #DEFAULT_MAX_DISK_ENTRIES} entries across all the
+ * chains. The least recently used entries are deleted when it is opened, and after every tenth of
+ * that many new entries.
+ */
+public class CachingWeb3jService implements Web3jService {
+
+    public static final String CACHE_ENV_VARIABLE = "EPIRUS_RPC_CACHE";
+    public static final Path DEFAULT_CACHE_DIRECTORY =
+            Paths.get(System.getProperty("user.home"), ".epirus", "rpc-cache");
+
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+    static final int DEFAULT_MAX_DISK_ENTRIES = 100_000;
+    static final int DEFAULT_FINALITY_DEPTH = 12;
+
+    private static final long HEAD_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private final Web3jService delegate;
+    private final String network;
+    private final Path directory;
+    private final Map<String, String> memory;
+    private final int maxDiskEntries;
+    private final int trimInterval;
+    private final AtomicInteger writesSinceTrim = new AtomicInteger();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final AtomicBoolean refreshingHead = new AtomicBoolean();
+
+    private volatile long head = -1;
+    private volatile long headUpdatedNanos;
+    private volatile Path networkDirectory;
+    private volatile boolean diskUnavailable;
+
+    /**
+     * @param delegate service sending the requests which are not cached
+     * @param network identifies the chain of the node, such as its URL
+     * @param directory directory of the on-disk cache, or null to only cache in memory
+     */
+    public CachingWeb3jService(Web3jService delegate, String network, Path directory) {
+        this(delegate, network, directory, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_DISK_ENTRIES);
+    }
+
+    CachingWeb3jService(
+            Web3jService delegate,
+            String network,
+            Path directory,
+            int maxEntries,
+            int maxDiskEntries) {
+        this.delegate = delegate;
+        this.network = network;
+        this.directory = directory;
+        this.maxDiskEntries = maxDiskEntries;
+        this.trimInterval = Math.max(1, maxDiskEntries / 10);
+        this.memory =
+                Collections.synchronizedMap(
+                        new LinkedHashMap<String, String>(16, 0.75f, true) {
+                            @Override
+                            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                                return size() > maxEntries;
+                            }
+                        });
+    }
+
+    /**
+     * Wraps a service as configured by the {@value #CACHE_ENV_VARIABLE} environment variable:
+     * {@code off}, {@code memory} (the default) or {@code disk}.
+     */
+    public static Web3jService configured(Web3jService delegate, String network) {
+        String mode = System.getenv().getOrDefault(CACHE_ENV_VARIABLE, "memory").toLowerCase();
+        switch (mode) {
+            case "off":
+                return delegate;
+            case "disk":
+                return new CachingWeb3jService(delegate, network, DEFAULT_CACHE_DIRECTORY);
+            default:
+                return new CachingWeb3jService(delegate, network, null);
+        }
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        Rule rule = Rule.of(request);
+        if (rule == null) {
+            uncacheable.increment();
+            return observe(request, delegate.send(request, responseType));
+        }
+        String key = key(request);
+        T cached = lookup(key, request, responseType);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+        return store(key, rule, request, observe(request, delegate.send(request, responseType)));
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(
+            Request request, Class<T> responseType) {
+        Rule rule = Rule.of(request);
+        if (rule == null) {
+            uncacheable.increment();
+            return delegate.sendAsync(request, responseType)
+                    .thenApply(response -> observe(request, response));
+        }
+        String key = key(request);
+        T cached = lookup(key, request, responseType);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.increment();
+        return delegate.sendAsync(request, responseType)
+                .thenApply(response -> store(key, rule, request, observe(request, response)));
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        return delegate.sendBatch(batchRequest);
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return delegate.sendBatchAsync(batchRequest);
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(
+            Request request, String unsubscribeMethod, Class<T> responseType) {
+        return delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    public long getHits() {
+        return memoryHits.sum() + diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public String summary() {
+        return String.format(
+                "%s: %d memory hits, %d disk hits, %d misses, %d not cacheable",
+                network, memoryHits.sum(), diskHits.sum(), misses.sum(), uncacheable.sum());
+    }
+
+    /** Cached response to a request, null on a miss. Unreadable entries count as misses. */
+    private <T extends Response> T lookup(String key, Request request, Class<T> responseType) {
+        try {
+            String raw = memory.get(key);
+            if (raw != null) {
+                memoryHits.increment();
+            } else {
+                Path file = file(key);
+                if (file == null || !Files.isRegularFile(file)) {
+                    return null;
+                }
+                raw = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                memory.put(key, raw);
+                diskHits.increment();
+                touch(file);
+            }
+            T response = MAPPER.readValue(raw, responseType);
+            response.setId(request.getId());
+            response.setRawResponse(raw);
+            return response;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private <T extends Response> T store(String key, Rule rule, Request request, T response) {
+        String raw = response.getRawResponse();
+        if (raw == null || response.hasError() || !rule.isFinal(this, raw)) {
+            return response;
+        }
+        memory.put(key, raw);
+        try {
+            Path file = file(key);
+            if (file != null) {
+                Files.createDirectories(file.getParent());
+                Path temporary = Files.createTempFile(file.getParent(), ".rpc", ".tmp");
+                Files.write(temporary, raw.getBytes(StandardCharsets.UTF_8));
+                Files.move(
+                        temporary,
+                        file,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                if (writesSinceTrim.incrementAndGet() >= trimInterval) {
+                    trimDisk();
+                }
+            }
+        } catch (IOException e) {
+            // The disk cache is an optimisation only
+        }
+        return response;
+    }
+
+    /** Marks an entry as recently used, so that it is evicted last. */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only makes the entry more likely to be evicted
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries of the on-disk cache, of every chain, so that it
+     * stays within its maximum number of entries until the next trim.
+     */
+    private synchronized void trimDisk() {
+        writesSinceTrim.set(0);
+        Map<Path, Long> entries = new HashMap<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .forEach(file -> entries.put(file, file.toFile().lastModified()));
+        } catch (IOException | UncheckedIOException e) {
+            return;
+        }
+        int excess = entries.size() - (maxDiskEntries - trimInterval);
+        if (excess <= 0) {
+            return;
+        }
+        List<Path> oldest = new ArrayList<>(entries.keySet());
+        oldest.sort(Comparator.comparing(entries::get));
+        for (Path file : oldest.subList(0, excess)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Deleted by the next trim
+            }
+        }
+    }
+
+    /** Keeps track of the latest block from the responses going through the service. */
+    private <T extends Response> T observe(Request request, T response) {
+        if (response instanceof EthBlockNumber && !response.hasError()) {
+            updateHead(((EthBlockNumber) response).getBlockNumber().longValue());
+        }
+        return response;
+    }
+
+    private void updateHead(long blockNumber) {
+        synchronized (refreshingHead) {
+            if (blockNumber >= head) {
+                head = blockNumber;
+                headUpdatedNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Highest final block number, or -1 while unknown. An outdated head only makes fewer results
+     * cacheable, so it is refreshed in the background rather than waited for.
+     */
+    long finalizedBlock() {
+        if ((head < 0 || System.nanoTime() - headUpdatedNanos > HEAD_REFRESH_NANOS)
+                && refreshingHead.compareAndSet(false, true)) {
+            new Request<>(
+                            "eth_blockNumber",
+                            Collections.<String>emptyList(),
+                            delegate,
+                            EthBlockNumber.class)
+                    .sendAsync()
+                    .whenComplete(
+                            (response, error) -> {
+                                if (error == null && !response.hasError()) {
+                                    updateHead(response.getBlockNumber().longValue());
+                                }
+                                refreshingHead.set(false);
+                            });
+        }
+        return head < 0 ? -1 : head - DEFAULT_FINALITY_DEPTH;
+    }
+
+    private String key(Request request) {
+        try {
+            return request.getMethod() + MAPPER.writeValueAsString(request.getParams());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize the request parameters", e);
+        }
+    }
+
+    /**
+     * Location of a cache entry on disk. Entries are grouped by the genesis block of the chain, so
+     * that a development chain started again from scratch does not use the entries of the previous
+     * one.
+     */
+    private Path file(String key) throws IOException {
+        if (directory == null || diskUnavailable) {
+            return null;
+        }
+        if (networkDirectory == null) {
+            EthBlock genesis =
+                    new Request<>(
+                                    "eth_getBlockByNumber",
+                                    Arrays.asList("0x0", false),
+                                    delegate,
+                                    EthBlock.class)
+                            .send();
+            if (genesis.hasError() || genesis.getBlock() == null) {
+                // Without knowing the chain, entries could be mixed up between chains
+                diskUnavailable = true;
+                return null;
+            }
+            networkDirectory =
+                    directory.resolve(
+                            Numeric.cleanHexPrefix(Hash.sha3String(network)).substring(0, 16)
+                                    + "-"
+                                    + Numeric.cleanHexPrefix(genesis.getBlock().getHash())
+                                            .substring(0, 16));
+            trimDisk();
+        }
+        return networkDirectory.resolve(Numeric.cleanHexPrefix(Hash.sha3String(key)) + ".json");
+    }
+
+    /** When the result of a cacheable method stops changing. */
+    private abstract static class Rule {
+
+        private static final Rule ALWAYS =
+                new Rule() {
+                    @Override
+                    boolean isFinal(CachingWeb3jService service, String raw) {
+                        return true;
+                    }
+                };
+
+        /** Results of requests by hash, final once the block holding them is. */
+        private static final Rule FINAL_RESULT =
+                new Rule() {
+                    @Override
+                    boolean isFinal(CachingWeb3jService service, String raw) {
+                        try {
+                            JsonNode result = MAPPER.readTree(raw).path("result");
+                            JsonNode number =
+                                    result.has("blockNumber")
+                                            ? result.get("blockNumber")
+                                            : result.get("number");
+                            return number != null
+                                    && number.isTextual()
+                                    && Numeric.decodeQuantity(number.asText()).longValue()
+                                            <= service.finalizedBlock();
+                        } catch (IOException | RuntimeException e) {
+                            return false;
+                        }
+                    }
+                };
+
+        abstract boolean isFinal(CachingWeb3jService service, String raw);
+
+        /** Rule of a request, null if it must never be cached. */
+        static Rule of(Request<?, ?> request) {
+            List<?> params = request.getParams();
+            switch (request.getMethod()) {
+                case "eth_chainId":
+                case "net_version":
+                    return ALWAYS;
+                case "eth_getBlockByHash":
+                case "eth_getTransactionByHash":
+                case "eth_getTransactionReceipt":
+                    return FINAL_RESULT;
+                case "eth_getBlockByNumber":
+                    return atBlock(params, 0);
+                case "eth_getBalance":
+                case "eth_getCode":
+                case "eth_getTransactionCount":
+                case "eth_call":
+                    return atBlock(params, 1);
+                case "eth_getStorageAt":
+                    return atBlock(params, 2);
+                default:
+                    return null;
+            }
+        }
+
+        /** Requests at an explicit block number, final once that block is. */
+        private static Rule atBlock(List<?> params, int index) {
+            if (params == null
+                    || params.size() <= index
+                    || !(params.get(index) instanceof String)) {
+                return null;
+            }
+            String block = (String) params.get(index);
+            if (!block.startsWith("0x")) {
+                return null;
+            }
+            BigInteger number;
+            try {
+                number = Numeric.decodeQuantity(block);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            return new Rule() {
+                @Override
+                boolean isFinal(CachingWeb3jService service, String raw) {
+                    return number.longValue() <= service.finalizedBlock() && hasResult(raw);
+                }
+            };
+        }
+
+        private static boolean hasResult(String raw) {
+            try {
+                JsonNode result = MAPPER.readTree(raw).path("result");
+                return !result.isNull() && !result.isMissingNode();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.reactivex.Flowable;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.websocket.events.Notification;
+
+/**
+ * Sends the requests issued at about the same time as a single JSON-RPC batch.
+ *
+ * <p>A request waits at most {@link #DEFAULT_WINDOW_MILLIS} for others to join it, and a batch is
+ * sent right away once it holds {@link #DEFAULT_MAX_BATCH_SIZE} requests. A request left alone in
+ * its window is sent on its own. The responses are matched to the requests by id, since nodes may
+ * answer a batch in any order. If a batch fails, its requests are sent one by one. No more batches
+ * are attempted once the node has shown it does not accept them, by answering a batch with an HTTP
+ * client error other than 429, with anything but a JSON array or with a single error for the whole
+ * batch. Other failures, such as lost connections or server errors, leave batching enabled.
+ *
+ * <p>Transactions, batches sent by the callers themselves and subscriptions are passed through.
+ */
+public class CoalescingWeb3jService implements Web3jService {
+
+    static final long DEFAULT_WINDOW_MILLIS = 2;
+    static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+    /** Requests which change state are never batched, as failed batches are resent. */
+    private static final Set<String> NOT_BATCHED =
+            new HashSet<>(Arrays.asList("eth_sendRawTransaction", "eth_sendTransaction"));
+
+    private static final Pattern HTTP_STATUS = Pattern.compile("Invalid response received: (\\d+)");
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Web3jService delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0);
+
+    // Guarded by this
+    private List<Pending<?>> pending = new ArrayList<>();
+    private ScheduledFuture<?> flush;
+    private volatile boolean batchesUnsupported;
+
+    public CoalescingWeb3jService(Web3jService delegate) {
+        this(delegate, DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public CoalescingWeb3jService(
+            Web3jService delegate, long window, TimeUnit unit, int maxBatchSize) {
+        this(delegate, window, unit, maxBatchSize, createScheduler(), true);
+    }
+
+    /** Coalesces on the given scheduler, which is left running when the service is closed. */
+    CoalescingWeb3jService(Web3jService delegate, ScheduledExecutorService scheduler) {
+        this(
+                delegate,
+                DEFAULT_WINDOW_MILLIS,
+                TimeUnit.MILLISECONDS,
+                DEFAULT_MAX_BATCH_SIZE,
+                scheduler,
+                false);
+    }
+
+    private CoalescingWeb3jService(
+            Web3jService delegate,
+            long window,
+            TimeUnit unit,
+            int maxBatchSize,
+            ScheduledExecutorService scheduler,
+            boolean ownsScheduler) {
+        this.delegate = delegate;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        try {
+            return sendAsync(request, responseType).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + request.getMethod(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(
+            Request request, Class<T> responseType) {
+        requests.increment();
+        if (batchesUnsupported || NOT_BATCHED.contains(request.getMethod())) {
+            return delegate.sendAsync(request, responseType);
+        }
+        Pending<T> added = new Pending<>(request, responseType);
+        List<Pending<?>> full = null;
+        synchronized (this) {
+            pending.add(added);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (flush == null) {
+                flush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return added.result;
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        return delegate.sendBatch(batchRequest);
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return delegate.sendBatchAsync(batchRequest);
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(
+            Request request, String unsubscribeMethod, Class<T> responseType) {
+        return delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+        delegate.close();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /** Number of batches sent, not counting the requests sent on their own. */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public String summary() {
+        return String.format(
+                "%d requests, %d of them in %d batches of up to %d",
+                requests.sum(), batchedRequests.sum(), batches.sum(), largestBatch.get());
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(
+                        1,
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "epirus-rpc-batch-" + THREADS.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private void flush() {
+        List<Pending<?>> ready;
+        synchronized (this) {
+            ready = takePending();
+        }
+        send(ready);
+    }
+
+    // Guarded by this
+    private List<Pending<?>> takePending() {
+        List<Pending<?>> taken = pending;
+        pending = new ArrayList<>();
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+        return taken;
+    }
+
+    private void send(List<Pending<?>> ready) {
+        if (ready.isEmpty()) {
+            return;
+        }
+        if (ready.size() == 1 || batchesUnsupported) {
+            ready.forEach(Pending::sendAlone);
+            return;
+        }
+        batches.increment();
+        batchedRequests.add(ready.size());
+        largestBatch.accumulate(ready.size());
+
+        // Nodes may answer in any order, while the batch decodes the responses in the order of
+        // the requests, so they are decoded as plain JSON and matched by id afterwards
+        BatchRequest batch = new BatchRequest(delegate);
+        Map<Long, Pending<?>> byId = new HashMap<>();
+        for (Pending<?> request : ready) {
+            Request<?, JsonResponse> json =
+                    new Request<>(
+                            request.request.getMethod(),
+                            request.request.getParams(),
+                            delegate,
+                            JsonResponse.class);
+            json.setId(request.request.getId());
+            batch.add(json);
+            byId.put(json.getId(), request);
+        }
+        delegate.sendBatchAsync(batch)
+                .whenComplete(
+                        (response, error) -> {
+                            if (error != null || isBatchError(response, ready.size())) {
+                                if (error == null || rejectsBatches(error)) {
+                                    batchesUnsupported = true;
+                                }
+                                ready.forEach(Pending::sendAlone);
+                                return;
+                            }
+                            for (Response<?> single : response.getResponses()) {
+                                Pending<?> request = byId.remove(single.getId());
+                                if (request != null) {
+                                    request.complete((JsonResponse) single);
+                                }
+                            }
+                            byId.values()
+                                    .forEach(
+                                            request ->
+                                                    request.result.completeExceptionally(
+                                                            new IOException(
+                                                                    "No response to "
+                                                                            + request.request
+                                                                                    .getMethod()
+                                                                            + " in the batch")));
+                        });
+    }
+
+    /** Whether a failed batch shows that the node does not accept batches at all. */
+    static boolean rejectsBatches(Throwable error) {
+        Throwable cause =
+                error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+        if (cause instanceof ClassCastException
+                || cause instanceof JsonProcessingException
+                        && !(cause instanceof JsonEOFException)) {
+            // Answered with a single object, or not with JSON at all, rather than cut off
+            return true;
+        }
+        if (cause instanceof ClientConnectionException && cause.getMessage() != null) {
+            Matcher status = HTTP_STATUS.matcher(cause.getMessage());
+            if (status.lookingAt()) {
+                int code = Integer.parseInt(status.group(1));
+                // Too many requests is only temporary
+                return code >= 400 && code < 500 && code != 429;
+            }
+        }
+        return false;
+    }
+
+    /** Whether a batch was answered with a single error instead of one response per request. */
+    private static boolean isBatchError(BatchResponse response, int size) {
+        List<? extends Response<?>> responses = response.getResponses();
+        return size > 1 && responses.size() == 1 && responses.get(0).hasError();
+    }
+
+    /** Response of any request, with its result left as JSON. */
+    public static class JsonResponse extends Response<JsonNode> {}
+
+    private class Pending<T extends Response> {
+        private final Request<?, ?> request;
+        private final Class<T> responseType;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Pending(Request<?, ?> request, Class<T> responseType) {
+            this.request = request;
+            this.responseType = responseType;
+        }
+
+        private void sendAlone() {
+            delegate.sendAsync(request, responseType)
+                    .whenComplete(
+                            (response, error) -> {
+                                if (error instanceof CompletionException
+                                        && error.getCause() != null) {
+                                    result.completeExceptionally(error.getCause());
+                                } else if (error != null) {
+                                    result.completeExceptionally(error);
+                                } else {
+                                    result.complete(response);
+                                }
+                            });
+        }
+
+        /** Decodes the response as the caller expects it, keeping the JSON as raw response. */
+        private void complete(JsonResponse json) {
+            try {
+                ObjectNode envelope = MAPPER.createObjectNode();
+                envelope.put("jsonrpc", json.getJsonrpc());
+                envelope.put("id", json.getId());
+                if (json.hasError()) {
+                    envelope.set("error", MAPPER.valueToTree(json.getError()));
+                } else {
+                    envelope.set(
+                            "result",
+                            json.getResult() == null ? MAPPER.nullNode() : json.getResult());
+                }
+                String raw = MAPPER.writeValueAsString(envelope);
+                T response = MAPPER.readValue(raw, responseType);
+                response.setRawResponse(raw);
+                result.complete(response);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.http.HttpService;
+
+/**
+ * HTTP service keeping the raw JSON of every response, as required by {@link CachingWeb3jService}.
+ *
+ * <p>{@link HttpService} streams raw responses from the HTTP response, which it closes before the
+ * stream is read, so the body is read completely here instead. Failed requests are reported like
+ * {@link HttpService} does.
+ */
+class RawResponseHttpService extends HttpService {
+
+    private final OkHttpClient httpClient;
+
+    RawResponseHttpService(String url, OkHttpClient httpClient) {
+        super(url, httpClient, true);
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    protected InputStream performIO(String request) throws IOException {
+        Request httpRequest =
+                new Request.Builder()
+                        .url(getUrl())
+                        .headers(Headers.of(getHeaders()))
+                        .post(RequestBody.create(request, JSON_MEDIA_TYPE))
+                        .build();
+        try (Response response = httpClient.newCall(httpRequest).execute()) {
+            processHeaders(response.headers());
+            ResponseBody body = response.body();
+            if (!response.isSuccessful()) {
+                throw new ClientConnectionException(
+                        "Invalid response received: "
+                                + response.code()
+                                + "; "
+                                + (body == null ? "N/A" : body.string()));
+            }
+            // Supports mark and reset, which the raw responses are read with
+            return body == null ? null : new ByteArrayInputStream(body.bytes());
+        }
+    }
+}
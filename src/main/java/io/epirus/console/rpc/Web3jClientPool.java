@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.epirus.web3j.Epirus;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.web3j.protocol.Network;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.JsonRpc2_0Web3j;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.infura.InfuraHttpService;
+import org.web3j.protocol.nodesmith.NodesmithHttpService;
+
+/**
+ * Hands out one shared {@link Web3j} client per network or node URL, for the lifetime of the CLI.
+ *
+ * <p>Clients share a single HTTP connection pool and a single scheduler for their polling, cache
+ * the results which cannot change any more (see {@link CachingWeb3jService}), send concurrent
+ * requests as batches (see {@link CoalescingWeb3jService}) and start connecting to the node as soon
+ * as they are created. All the clients are shut down when the JVM exits, so pooled clients must not
+ * be shut down by their users.
+ *
+ * <p>Setting the {@value #STATS_ENV_VARIABLE} environment variable to {@code true} prints the
+ * statistics of the clients, their caches and batches when they are shut down.
+ */
+public final class Web3jClientPool {
+
+    public static final String STATS_ENV_VARIABLE = "EPIRUS_RPC_STATS";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Web3jClientPool.class);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+    private final OkHttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean shutdown;
+
+    Web3jClientPool() {
+        httpClient =
+                new OkHttpClient.Builder()
+                        .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+                        .connectTimeout(15, TimeUnit.SECONDS)
+                        .readTimeout(30, TimeUnit.SECONDS)
+                        .build();
+        ScheduledThreadPoolExecutor executor =
+                new ScheduledThreadPoolExecutor(
+                        1,
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable, "epirus-web3j-" + THREADS.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.setRemoveOnCancelPolicy(true);
+        scheduler = executor;
+    }
+
+    public static Web3jClientPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /** Client of an Epirus network. */
+    public Web3j forNetwork(Network network) {
+        String name = network.getNetworkName().toLowerCase();
+        return forBuiltClient(
+                "network:" + name, "epirus " + name, () -> Epirus.buildWeb3j(network));
+    }
+
+    /** Client of a node, by URL. */
+    public Web3j forUrl(String url) {
+        String nodeUrl = url.trim().replaceAll("/+$", "");
+        return client(nodeUrl, () -> createService(nodeUrl));
+    }
+
+    /** Client of an Epirus network if given, otherwise of the node at the given URL. */
+    public Web3j forNetworkOrUrl(String network, String url) {
+        return network == null ? forUrl(url) : forNetwork(Network.valueOf(network.toUpperCase()));
+    }
+
+    /**
+     * How often each client was reused, with its cache and batch statistics, per network or node
+     * URL.
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        clients.forEach(
+                (key, client) ->
+                        summary.append(
+                                String.format(
+                                        "%s: %d leases%s%s%n",
+                                        key,
+                                        client.leases.sum(),
+                                        client.cache == null ? "" : "; " + client.cache.summary(),
+                                        client.batching == null
+                                                ? ""
+                                                : "; " + client.batching.summary())));
+        summary.append(
+                String.format(
+                        "HTTP connections: %d open, %d idle; calls: %d running, %d queued",
+                        httpClient.connectionPool().connectionCount(),
+                        httpClient.connectionPool().idleConnectionCount(),
+                        httpClient.dispatcher().runningCallsCount(),
+                        httpClient.dispatcher().queuedCallsCount()));
+        return summary.toString();
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    /** Shuts down every client and the shared HTTP resources. */
+    public void shutdown() {
+        shutdown = true;
+        if (!clients.isEmpty()) {
+            String summary = summary();
+            LOGGER.info("Web3j clients: {}", summary);
+            if (Boolean.parseBoolean(System.getenv(STATS_ENV_VARIABLE))) {
+                System.out.printf("%nRPC clients:%n%s%n", summary);
+            }
+        }
+        clients.values().forEach(client -> client.web3j.shutdown());
+        clients.clear();
+        scheduler.shutdownNow();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Pools a client built elsewhere, such as by {@link Epirus} which only hands out finished
+     * clients. When it talks HTTP, its URL and headers, which hold the endpoint and credentials of
+     * the network, are used for an equivalent service on the shared connection pool, wrapped like
+     * the services of node URLs. Other clients are pooled as built.
+     *
+     * @param network identifies the chain for the cache, without revealing the credentials
+     */
+    Web3j forBuiltClient(String key, String network, Supplier<Web3j> factory) {
+        return client(
+                key,
+                () -> {
+                    Web3j built = factory.get();
+                    Optional<HttpService> service = httpService(built);
+                    if (!service.isPresent()) {
+                        return new PooledClient(built);
+                    }
+                    HttpService shared =
+                            new RawResponseHttpService(service.get().getUrl(), httpClient);
+                    shared.addHeaders(service.get().getHeaders());
+                    built.shutdown();
+                    return wrap(shared, network);
+                });
+    }
+
+    OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    Web3j build(Web3jService service) {
+        return Web3j.build(service, JsonRpc2_0Web3j.DEFAULT_BLOCK_TIME, scheduler);
+    }
+
+    private Web3j client(String key, Supplier<PooledClient> factory) {
+        if (shutdown) {
+            throw new IllegalStateException("The Web3j clients have been shut down");
+        }
+        PooledClient client =
+                clients.computeIfAbsent(
+                        key,
+                        k -> {
+                            PooledClient created = factory.get();
+                            // Opens the connection while the caller prepares its first request
+                            created.web3j.netVersion().sendAsync().exceptionally(e -> null);
+                            return created;
+                        });
+        client.leases.increment();
+        return client.web3j;
+    }
+
+    private PooledClient createService(String url) {
+        if (url.contains("infura.io")) {
+            return new PooledClient(build(new InfuraHttpService(url)));
+        } else if (url.contains("nodesmith.io")) {
+            return new PooledClient(build(new NodesmithHttpService(url)));
+        }
+        return wrap(new RawResponseHttpService(url, httpClient), url);
+    }
+
+    private PooledClient wrap(HttpService http, String network) {
+        // Raw responses let the cache store results exactly as returned by the node, and only the
+        // requests missing from the cache are batched
+        CoalescingWeb3jService batching = new CoalescingWeb3jService(http, scheduler);
+        Web3jService service = CachingWeb3jService.configured(batching, network);
+        return new PooledClient(
+                build(service),
+                service instanceof CachingWeb3jService ? (CachingWeb3jService) service : null,
+                batching);
+    }
+
+    /** HTTP service of a client, which web3j does not expose. */
+    private static Optional<HttpService> httpService(Web3j web3j) {
+        if (!(web3j instanceof JsonRpc2_0Web3j)) {
+            return Optional.empty();
+        }
+        try {
+            Field field = JsonRpc2_0Web3j.class.getDeclaredField("web3jService");
+            field.setAccessible(true);
+            Object service = field.get(web3j);
+            return service instanceof HttpService
+                    ? Optional.of((HttpService) service)
+                    : Optional.empty();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static class PooledClient {
+        private final Web3j web3j;
+        private final CachingWeb3jService cache;
+        private final CoalescingWeb3jService batching;
+        private final LongAdder leases = new LongAdder();
+
+        private PooledClient(Web3j web3j) {
+            this(web3j, null, null);
+        }
+
+        private PooledClient(
+                Web3j web3j, CachingWeb3jService cache, CoalescingWeb3jService batching) {
+            this.web3j = web3j;
+            this.cache = cache;
+            this.batching = batching;
+        }
+    }
+
+    private static class Holder {
+        private static final Web3jClientPool INSTANCE = new Web3jClientPool();
+
+        static {
+            Runtime.getRuntime()
+                    .addShutdownHook(new Thread(INSTANCE::shutdown, "epirus-web3j-shutdown"));
+        }
+    }
+}
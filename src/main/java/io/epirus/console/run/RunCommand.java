@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import com.diogonunes.jcdp.color.api.Ansi;
 import com.google.common.annotations.VisibleForTesting;
@@ -26,18 +27,18 @@ import io.epirus.console.account.AccountUtils;
 import io.epirus.console.account.subcommands.LoginCommand;
 import io.epirus.console.project.InteractiveOptions;
 import io.epirus.console.project.utils.ProjectUtils;
+import io.epirus.console.rpc.Web3jClientPool;
+import io.epirus.console.utils.PollingScheduler;
 import io.epirus.console.wallet.Faucet;
+import io.epirus.console.wallet.TransactionSigner;
 import io.epirus.console.wallet.subcommands.WalletFundCommand;
 import io.epirus.console.wrapper.CredentialsOptions;
-import io.epirus.web3j.Epirus;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Parameters;
 
 import org.web3j.codegen.Console;
 import org.web3j.crypto.CipherException;
-import org.web3j.crypto.Credentials;
-import org.web3j.crypto.WalletUtils;
 import org.web3j.protocol.Network;
 import org.web3j.protocol.Web3j;
 import org.web3j.utils.Convert;
@@ -77,7 +78,7 @@ public class RunCommand implements Runnable {
     private Path workingDirectory;
     private Network network;
     private AccountService accountService;
-    private Credentials credentials;
+    private TransactionSigner signer;
     private Web3j web3j;
 
     @VisibleForTesting
@@ -90,7 +91,7 @@ public class RunCommand implements Runnable {
         this.workingDirectory = workingDirectory;
         this.network = network;
         this.credentialsOptions = new CredentialsOptions(Paths.get(walletPath), "", null, null);
-        this.credentials = ProjectUtils.createCredentials(Paths.get(walletPath), "");
+        this.signer = ProjectUtils.createSigner(Paths.get(walletPath), "");
         this.accountService = accountService;
         this.web3j = web3j;
     }
@@ -98,12 +99,12 @@ public class RunCommand implements Runnable {
     private RunCommand(
             Network network,
             AccountService accountService,
-            Credentials credentials,
+            TransactionSigner signer,
             Web3j web3j,
             CredentialsOptions credentialsOptions) {
         this.workingDirectory = Paths.get(System.getProperty("user.dir"));
         this.network = network;
-        this.credentials = credentials;
+        this.signer = signer;
         this.accountService = accountService;
         this.web3j = web3j;
         this.credentialsOptions = credentialsOptions;
@@ -121,13 +122,15 @@ public class RunCommand implements Runnable {
         }
 
         try {
-            this.credentials = createCredentials();
+            this.signer = credentialsOptions.createSigner();
         } catch (IOException | CipherException e) {
             throw new RuntimeException(e);
         }
 
         try {
-            web3j = Epirus.buildWeb3j(Network.valueOf(deployNetwork.toUpperCase()));
+            web3j =
+                    Web3jClientPool.getInstance()
+                            .forNetwork(Network.valueOf(deployNetwork.toUpperCase()));
         } catch (Exception e) {
             printErrorAndExit(e.getMessage());
         }
@@ -135,7 +138,7 @@ public class RunCommand implements Runnable {
             new RunCommand(
                             Network.valueOf(deployNetwork.toUpperCase()),
                             new AccountService(),
-                            credentials,
+                            signer,
                             web3j,
                             credentialsOptions)
                     .deploy();
@@ -145,32 +148,15 @@ public class RunCommand implements Runnable {
         }
     }
 
-    private Credentials createCredentials() throws IOException, CipherException {
-        if (credentialsOptions.getWalletPath() != null) {
-            if (!credentialsOptions.getWalletPassword().isEmpty()) {
-                return ProjectUtils.createCredentials(
-                        credentialsOptions.getWalletPath(), credentialsOptions.getWalletPassword());
-            }
-            return ProjectUtils.createCredentials(credentialsOptions.getWalletPath(), "");
-        } else if (!credentialsOptions.getRawKey().isEmpty()) {
-            return Credentials.create(credentialsOptions.getRawKey());
-        } else if (!credentialsOptions.getJson().isEmpty()) {
-            if (!credentialsOptions.getWalletPassword().isEmpty()) {
-                return WalletUtils.loadJsonCredentials(
-                        credentialsOptions.getWalletPassword(), credentialsOptions.getJson());
-            }
-            return WalletUtils.loadJsonCredentials("", credentialsOptions.getJson());
-        } else {
-            return WalletUtils.loadCredentials(
-                    config.getDefaultWalletPassword(), config.getDefaultWalletPath());
-        }
-    }
-
     public void deploy() throws Exception {
         InteractiveOptions options = new InteractiveOptions();
         coloredPrinter.println("Preparing to run your Web3App");
         System.out.print(System.lineSeparator());
         AccountUtils.accountInit(accountService);
+        // The balance is fetched while the account activation is awaited
+        CompletableFuture<BigInteger> accountBalance =
+                CompletableFuture.supplyAsync(
+                        () -> accountService.getAccountBalance(signer.getAddress(), web3j));
         if (accountService.checkIfAccountIsConfirmed(20)) {
             printInformationPairWithStatus("Account status", 20, "ACTIVE ", Ansi.FColor.GREEN);
             System.out.print(System.lineSeparator());
@@ -178,7 +164,14 @@ public class RunCommand implements Runnable {
             printErrorAndExit(
                     "Please check your email and activate your account in order to take advantage our features. Once your account is activated you can re-run the command.");
         }
-        fundWallet();
+        fundWallet(accountBalance.join());
+        if (!PollingScheduler.getInstance().totalWaited().isZero()) {
+            printInformationPair(
+                    "Time waiting",
+                    20,
+                    PollingScheduler.getInstance().summary(),
+                    Ansi.FColor.GREEN);
+        }
         uploadSolidityMetadata(network, workingDirectory);
         System.out.print(System.lineSeparator());
         coloredPrinter.println("Running your Web3App");
@@ -186,8 +179,7 @@ public class RunCommand implements Runnable {
         runGradle(workingDirectory);
     }
 
-    private void fundWallet() {
-        BigInteger accountBalance = accountService.getAccountBalance(credentials, web3j);
+    private void fundWallet(BigInteger accountBalance) {
         printInformationPair(
                 "Wallet balance",
                 20,
@@ -197,7 +189,7 @@ public class RunCommand implements Runnable {
             if (accountBalance.equals(BigInteger.ZERO)) {
                 String result =
                         WalletFundCommand.fundWallet(
-                                credentials.getAddress(),
+                                signer.getAddress(),
                                 Faucet.valueOf(network.getNetworkName().toUpperCase()),
                                 this.accountService.getLoginToken());
                 printInformationPair("Funding wallet with", 20, "0.2 ETH", Ansi.FColor.GREEN);
@@ -219,7 +211,7 @@ public class RunCommand implements Runnable {
             System.out.printf("Waiting for transaction %s to be mined...\n", txHash);
 
             BigInteger accountBalance =
-                    accountService.pollForAccountBalance(credentials, network, web3j, 5);
+                    accountService.pollForAccountBalance(signer.getAddress(), network, web3j, 5);
 
         } catch (Exception e) {
             printErrorAndExit(e.getMessage());
@@ -258,7 +250,7 @@ public class RunCommand implements Runnable {
                     20,
                     String.format(
                             "https://%s.epirus.io/accounts/%s",
-                            network.getNetworkName(), credentials.getAddress()),
+                            network.getNetworkName(), signer.getAddress()),
                     Ansi.FColor.BLUE);
         }
     }
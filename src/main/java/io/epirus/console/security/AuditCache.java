@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import ru.smartdec.smartcheck.RulesXml;
+import ru.smartdec.smartcheck.app.SourceLanguage;
+
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+/**
+ * On-disk cache of audit findings, so that unchanged contracts are not parsed and checked again.
+ *
+ * <p>Entries are keyed by the SHA-256 of the contract contents, its language and the contents of
+ * the rules used to check it, including the gas rules, so changing either the contract or the rules
+ * invalidates them. When the cache grows beyond its maximum size the least recently used entries
+ * are removed.
+ */
+public class AuditCache {
+
+    public static final Path DEFAULT_AUDIT_CACHE_PATH =
+            Paths.get(System.getProperty("user.home"), ".epirus", "audit-cache");
+
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    private static final String FORMAT_VERSION = "1";
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final Type FINDINGS_TYPE = new TypeToken<List<AuditFinding>>() {}.getType();
+
+    private final Path directory;
+    private final long maxSize;
+    private final Gson gson = new Gson();
+    private final Map<String, String> rulesVersions = new ConcurrentHashMap<>();
+
+    public AuditCache(final Path directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static AuditCache getDefault() {
+        return new AuditCache(DEFAULT_AUDIT_CACHE_PATH, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Computes the cache key of a contract.
+     *
+     * @param contents contents of the contract
+     * @param sourceLanguage language the contract is written in
+     * @return hex encoded key
+     */
+    public String key(final byte[] contents, final SourceLanguage sourceLanguage) {
+        String rulesFileName = sourceLanguage.rulesFileName();
+        String header =
+                FORMAT_VERSION
+                        + "\n"
+                        + rulesFileName
+                        + "\n"
+                        + rulesVersions.computeIfAbsent(
+                                rulesFileName, name -> rulesVersion(sourceLanguage))
+                        + "\n";
+        byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+        byte[] input = new byte[headerBytes.length + contents.length];
+        System.arraycopy(headerBytes, 0, input, 0, headerBytes.length);
+        System.arraycopy(contents, 0, input, headerBytes.length, contents.length);
+        return Numeric.toHexStringNoPrefix(Hash.sha256(input));
+    }
+
+    public Optional<List<AuditFinding>> get(final String key) {
+        Path entry = entry(key);
+        try {
+            List<AuditFinding> findings =
+                    gson.fromJson(
+                            new String(Files.readAllBytes(entry), StandardCharsets.UTF_8),
+                            FINDINGS_TYPE);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.ofNullable(findings);
+        } catch (IOException | RuntimeException e) {
+            // Missing or unreadable entries are treated as misses
+            return Optional.empty();
+        }
+    }
+
+    public void put(final String key, final List<AuditFinding> findings) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(
+                    temporary,
+                    gson.toJson(findings, FINDINGS_TYPE).getBytes(StandardCharsets.UTF_8));
+            Files.move(
+                    temporary,
+                    entry(key),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignored) {
+            // A failed write only costs a re-analysis next time
+        }
+    }
+
+    /** Removes the least recently used entries until the cache fits into its maximum size. */
+    public void evict() throws IOException {
+        if (!directory.toFile().exists()) {
+            return;
+        }
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries =
+                    files.filter(file -> file.getFileName().toString().endsWith(ENTRY_EXTENSION))
+                            .collect(Collectors.toCollection(ArrayList::new));
+        }
+        long size = 0;
+        for (Path entry : entries) {
+            size += Files.size(entry);
+        }
+        entries.sort(Comparator.comparing(AuditCache::lastModified));
+        for (Path entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            size -= Files.size(entry);
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    private Path entry(final String key) {
+        return directory.resolve(key + ENTRY_EXTENSION);
+    }
+
+    private static long lastModified(final Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private static String rulesVersion(final SourceLanguage sourceLanguage) {
+        try (InputStream inputStream =
+                RulesXml.class.getResourceAsStream(sourceLanguage.rulesFileName())) {
+            if (inputStream == null) {
+                return "";
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(Streams.readFully(inputStream));
+            outputStream.write(GasRules.read(sourceLanguage));
+            return Numeric.toHexStringNoPrefix(Hash.sha256(outputStream.toByteArray()));
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+/** A single rule match reported by the contract audit. */
+public final class AuditFinding {
+
+    private final int line;
+    private final int column;
+    private final int severity;
+    private final String ruleId;
+    private final String patternId;
+
+    public AuditFinding(int line, int column, int severity, String ruleId, String patternId) {
+        this.line = line;
+        this.column = column;
+        this.severity = severity;
+        this.ruleId = ruleId;
+        this.patternId = patternId;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getSeverity() {
+        return severity;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public String getPatternId() {
+        return patternId;
+    }
+
+    public String getRuleName() {
+        return RuleDescriptions.getInstance().name(ruleId);
+    }
+
+    /** Estimated gas cost of the finding, empty unless it comes from the gas rules. */
+    public String getGasImpact() {
+        return RuleDescriptions.getInstance().gasImpact(ruleId);
+    }
+
+    public String getLocation() {
+        return line + ":" + column;
+    }
+
+    public String getQualifiedId() {
+        return ruleId + "_" + patternId;
+    }
+}
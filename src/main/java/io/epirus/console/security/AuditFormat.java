@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.PrintStream;
+
+/** Output formats supported by the contract audit. */
+public enum AuditFormat {
+    TEXT,
+    JSONL,
+    SARIF;
+
+    AuditMedia createMedia(final PrintStream out, final int failOnSeverity) {
+        switch (this) {
+            case JSONL:
+                return new JsonLinesMedia(out, failOnSeverity);
+            case SARIF:
+                return new SarifMedia(out, failOnSeverity);
+            default:
+                return new DefaultMedia(out, failOnSeverity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
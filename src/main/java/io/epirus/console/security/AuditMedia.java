@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+/**
+ * Writes audit reports to an output stream as soon as each file has been analysed, and keeps track
+ * of the findings at or above the severity that should fail the audit.
+ */
+public abstract class AuditMedia implements Consumer<FileReport> {
+
+    protected final PrintStream out;
+    private final int failOnSeverity;
+    private int findings;
+    private int failures;
+
+    protected AuditMedia(final PrintStream out, final int failOnSeverity) {
+        this.out = out;
+        this.failOnSeverity = failOnSeverity;
+    }
+
+    /** Called once before the first report. */
+    public void start() {}
+
+    @Override
+    public final void accept(final FileReport report) {
+        for (AuditFinding finding : report.getFindings()) {
+            findings++;
+            if (finding.getSeverity() >= failOnSeverity) {
+                failures++;
+            }
+        }
+        print(report);
+        out.flush();
+    }
+
+    /** Called once after the last report. */
+    public void finish() {
+        out.flush();
+    }
+
+    public int getFindings() {
+        return findings;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    protected abstract void print(FileReport report);
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Serves audit requests over stdio using JSON-RPC 2.0 with Language Server Protocol framing.
+ *
+ * <p>The rules and parsers are loaded once when the server starts, so editors can audit a file on
+ * every save. Supported messages are {@code initialize}, {@code shutdown}, {@code exit}, the {@code
+ * textDocument/didOpen}, {@code didChange}, {@code didSave} and {@code didClose} notifications,
+ * which are answered with {@code textDocument/publishDiagnostics}, and the {@code epirus/audit}
+ * request, which takes a {@code uri} and optional {@code text} and returns the diagnostics
+ * directly.
+ */
+public class AuditServer {
+
+    private static final String CONTENT_LENGTH = "Content-Length:";
+    private static final String DIAGNOSTIC_SOURCE = "epirus-audit";
+    private static final int PARSE_ERROR = -32700;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+    private static final Set<String> METHODS =
+            new HashSet<>(
+                    Arrays.asList(
+                            "initialize",
+                            "initialized",
+                            "shutdown",
+                            "exit",
+                            "textDocument/didOpen",
+                            "textDocument/didChange",
+                            "textDocument/didSave",
+                            "textDocument/didClose",
+                            "epirus/audit"));
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Path workspace;
+    private final ContractAnalysis analysis;
+    private final Map<String, String> documents = new HashMap<>();
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private boolean running = true;
+
+    public AuditServer(final InputStream in, final OutputStream out) throws IOException {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+        this.workspace = Files.createTempDirectory("epirus-audit");
+        this.workspace.toFile().deleteOnExit();
+        this.analysis = new ContractAnalysis(workspace, 1);
+    }
+
+    public void run() throws Exception {
+        warmUp();
+        String content;
+        while (running && (content = read()) != null) {
+            JsonElement message;
+            try {
+                message = JsonParser.parseString(content);
+            } catch (JsonParseException e) {
+                message = JsonNull.INSTANCE;
+            }
+            if (!message.isJsonObject()) {
+                // A broken message must not end the session, so it is only reported
+                write(error(JsonNull.INSTANCE, PARSE_ERROR, "Parse error"));
+            } else {
+                handle(message.getAsJsonObject());
+            }
+        }
+    }
+
+    /** Compiles the rules of every language by auditing a trivial contract. */
+    private void warmUp() throws Exception {
+        warmUp("WarmUp.sol", "pragma solidity ^0.5.0;\n");
+        warmUp("WarmUp.vy", "# warm up\n");
+    }
+
+    private void warmUp(final String fileName, final String contents) throws Exception {
+        Path contract = workspace.resolve(fileName);
+        Files.write(contract, contents.getBytes(StandardCharsets.UTF_8));
+        try {
+            if (ContractAnalysis.sourceLanguage(contract).isPresent()) {
+                analysis.analyze(contract);
+            }
+        } finally {
+            Files.delete(contract);
+        }
+    }
+
+    private void handle(final JsonObject message) throws IOException {
+        String method =
+                message.has("method") && message.get("method").isJsonPrimitive()
+                        ? message.get("method").getAsString()
+                        : "";
+        JsonElement id = message.get("id");
+        JsonObject params =
+                message.has("params") && message.get("params").isJsonObject()
+                        ? message.getAsJsonObject("params")
+                        : new JsonObject();
+        if (!METHODS.contains(method)) {
+            if (id != null) {
+                write(error(id, METHOD_NOT_FOUND, "Method not found: " + method));
+            }
+            return;
+        }
+        try {
+            JsonElement result = dispatch(method, params);
+            if (id != null) {
+                JsonObject response = response(id);
+                response.add("result", result == null ? JsonNull.INSTANCE : result);
+                write(response);
+            }
+        } catch (Exception e) {
+            if (id != null) {
+                write(error(id, INTERNAL_ERROR, String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    private JsonElement dispatch(final String method, final JsonObject params) throws Exception {
+        switch (method) {
+            case "initialize":
+                return capabilities();
+            case "initialized":
+            case "shutdown":
+                return null;
+            case "exit":
+                running = false;
+                return null;
+            case "textDocument/didOpen":
+                {
+                    JsonObject document = params.getAsJsonObject("textDocument");
+                    String uri = document.get("uri").getAsString();
+                    documents.put(uri, document.get("text").getAsString());
+                    publish(uri, audit(uri, documents.get(uri)));
+                    return null;
+                }
+            case "textDocument/didChange":
+                {
+                    String uri = params.getAsJsonObject("textDocument").get("uri").getAsString();
+                    JsonArray changes = params.getAsJsonArray("contentChanges");
+                    documents.put(
+                            uri,
+                            changes.get(changes.size() - 1)
+                                    .getAsJsonObject()
+                                    .get("text")
+                                    .getAsString());
+                    return null;
+                }
+            case "textDocument/didSave":
+                {
+                    String uri = params.getAsJsonObject("textDocument").get("uri").getAsString();
+                    if (params.has("text")) {
+                        documents.put(uri, params.get("text").getAsString());
+                    }
+                    publish(uri, audit(uri, documents.get(uri)));
+                    return null;
+                }
+            case "textDocument/didClose":
+                {
+                    String uri = params.getAsJsonObject("textDocument").get("uri").getAsString();
+                    documents.remove(uri);
+                    publish(uri, new JsonArray());
+                    return null;
+                }
+            case "epirus/audit":
+                return audit(
+                        params.get("uri").getAsString(),
+                        params.has("text") ? params.get("text").getAsString() : null);
+            default:
+                throw new IllegalStateException("No handler for " + method);
+        }
+    }
+
+    /**
+     * Audits a document, either the given buffer contents or the file on disk.
+     *
+     * @param uri file URI of the document
+     * @param text current contents of the document, or null to read it from disk
+     * @return LSP diagnostics for the document
+     */
+    JsonArray audit(final String uri, final String text) throws Exception {
+        Path file = Paths.get(URI.create(uri));
+        JsonArray diagnostics = new JsonArray();
+        if (!ContractAnalysis.sourceLanguage(file).isPresent()) {
+            return diagnostics;
+        }
+        Path contract = file;
+        if (text != null) {
+            contract = Files.createTempDirectory(workspace, "buffer").resolve(file.getFileName());
+            Files.write(contract, text.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            for (AuditFinding finding : analysis.analyze(contract).getFindings()) {
+                diagnostics.add(diagnostic(finding));
+            }
+        } finally {
+            if (text != null) {
+                Files.deleteIfExists(contract);
+                Files.deleteIfExists(contract.getParent());
+            }
+        }
+        return diagnostics;
+    }
+
+    private void publish(final String uri, final JsonArray diagnostics) throws IOException {
+        JsonObject params = new JsonObject();
+        params.addProperty("uri", uri);
+        params.add("diagnostics", diagnostics);
+        JsonObject notification = new JsonObject();
+        notification.addProperty("jsonrpc", "2.0");
+        notification.addProperty("method", "textDocument/publishDiagnostics");
+        notification.add("params", params);
+        write(notification);
+    }
+
+    private static JsonObject capabilities() {
+        JsonObject save = new JsonObject();
+        save.addProperty("includeText", true);
+        JsonObject textDocumentSync = new JsonObject();
+        textDocumentSync.addProperty("openClose", true);
+        textDocumentSync.addProperty("change", 1);
+        textDocumentSync.add("save", save);
+        JsonObject capabilities = new JsonObject();
+        capabilities.add("textDocumentSync", textDocumentSync);
+        JsonObject serverInfo = new JsonObject();
+        serverInfo.addProperty("name", DIAGNOSTIC_SOURCE);
+        JsonObject result = new JsonObject();
+        result.add("capabilities", capabilities);
+        result.add("serverInfo", serverInfo);
+        return result;
+    }
+
+    private static JsonObject diagnostic(final AuditFinding finding) {
+        JsonObject position = new JsonObject();
+        position.addProperty("line", Math.max(0, finding.getLine() - 1));
+        position.addProperty("character", finding.getColumn());
+        JsonObject range = new JsonObject();
+        range.add("start", position);
+        range.add("end", position);
+        JsonObject diagnostic = new JsonObject();
+        diagnostic.add("range", range);
+        diagnostic.addProperty("severity", diagnosticSeverity(finding.getSeverity()));
+        diagnostic.addProperty("code", finding.getQualifiedId());
+        diagnostic.addProperty("source", DIAGNOSTIC_SOURCE);
+        String message =
+                finding.getRuleName().isEmpty() ? finding.getRuleId() : finding.getRuleName();
+        if (!finding.getGasImpact().isEmpty()) {
+            message += " (gas: " + finding.getGasImpact() + ")";
+        }
+        diagnostic.addProperty("message", message);
+        return diagnostic;
+    }
+
+    /** Maps smartcheck severities to LSP error, warning and information levels. */
+    private static int diagnosticSeverity(final int severity) {
+        if (severity >= 3) {
+            return 1;
+        } else if (severity == 2) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static JsonObject response(final JsonElement id) {
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.add("id", id);
+        return response;
+    }
+
+    private static JsonObject error(final JsonElement id, final int code, final String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject response = response(id);
+        response.add("error", error);
+        return response;
+    }
+
+    /**
+     * Reads the content of the next message.
+     *
+     * @return the content, empty if the message has no valid length, or null at the end of the
+     *     input
+     */
+    private String read() throws IOException {
+        int contentLength = -1;
+        String header;
+        while ((header = readHeader()) != null && !header.isEmpty()) {
+            if (header.regionMatches(true, 0, CONTENT_LENGTH, 0, CONTENT_LENGTH.length())) {
+                try {
+                    contentLength =
+                            Integer.parseInt(header.substring(CONTENT_LENGTH.length()).trim());
+                } catch (NumberFormatException e) {
+                    contentLength = -1;
+                }
+            }
+        }
+        if (header == null) {
+            return null;
+        } else if (contentLength < 0) {
+            return "";
+        }
+        byte[] content = new byte[contentLength];
+        int offset = 0;
+        while (offset < contentLength) {
+            int read = in.read(content, offset, contentLength - offset);
+            if (read < 0) {
+                return null;
+            }
+            offset += read;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private String readHeader() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        return c == -1 && line.size() == 0 ? null : line.toString("US-ASCII");
+    }
+
+    private void write(final JsonObject message) throws IOException {
+        byte[] content = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+        out.write(
+                (CONTENT_LENGTH + " " + content.length + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the contracts affected by a change, so that an audit only covers those instead of the
+ * whole source tree.
+ *
+ * <p>Changed files come either from git, relative to a given ref, or from a list of paths. The
+ * contracts importing a changed file, directly or transitively, are affected as well and are found
+ * through the import statements of the contracts below the audited path.
+ */
+public final class ChangedContracts {
+
+    private static final Pattern COMMENTS =
+            Pattern.compile("//[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern SOLIDITY_IMPORT =
+            Pattern.compile("\\bimport\\s+(?:[^;'\"]*?\\bfrom\\s+)?[\"']([^\"']+)[\"']");
+    private static final Pattern VYPER_FROM_IMPORT =
+            Pattern.compile(
+                    "^\\s*from\\s+([A-Za-z_][\\w.]*)\\s+import\\s+(\\w+)", Pattern.MULTILINE);
+    private static final Pattern VYPER_IMPORT =
+            Pattern.compile("^\\s*import\\s+([A-Za-z_][\\w.]*)", Pattern.MULTILINE);
+
+    private ChangedContracts() {}
+
+    /**
+     * Lists the files changed in the working tree since a git ref, including untracked files.
+     *
+     * @param source path inside the git repository
+     * @param ref commit, branch or tag to compare against
+     * @return absolute paths of the changed files, including deleted ones
+     */
+    public static List<Path> since(final Path source, final String ref) throws IOException {
+        Path directory = Files.isDirectory(source) ? source : source.toAbsolutePath().getParent();
+        Path root = Paths.get(git(directory, "rev-parse", "--show-toplevel").trim());
+        Set<String> changed = new LinkedHashSet<>();
+        changed.addAll(lines(git(root, "diff", "--name-only", ref, "--")));
+        changed.addAll(lines(git(root, "ls-files", "--others", "--exclude-standard")));
+        return changed.stream()
+                .map(file -> root.resolve(file).toAbsolutePath().normalize())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the changed files from a list with one path per line, relative to the working
+     * directory.
+     *
+     * @param list file containing the paths
+     * @return absolute paths of the listed files
+     */
+    public static List<Path> fromList(final Path list) throws IOException {
+        return lines(new String(Files.readAllBytes(list), StandardCharsets.UTF_8)).stream()
+                .map(file -> Paths.get(file).toAbsolutePath().normalize())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Selects the contracts below a path affected by a set of changed files: the changed contracts
+     * themselves and every contract which imports one of them, directly or transitively.
+     *
+     * @param source file or directory being audited
+     * @param changed changed files, which may include deleted files and non-contract files
+     * @return affected contracts in sorted order, as found below {@code source}
+     */
+    public static List<Path> affected(final Path source, final Collection<Path> changed)
+            throws IOException {
+        Map<Path, Path> contracts = new HashMap<>();
+        for (Path contract : ContractAnalysis.findContracts(source)) {
+            contracts.put(contract.toAbsolutePath().normalize(), contract);
+        }
+
+        Map<Path, List<Path>> importers = new HashMap<>();
+        for (Path contract : contracts.keySet()) {
+            for (Path imported : imports(contract, source.toAbsolutePath().normalize())) {
+                importers.computeIfAbsent(imported, key -> new ArrayList<>()).add(contract);
+            }
+        }
+
+        Set<Path> affected = new HashSet<>();
+        Deque<Path> pending = new ArrayDeque<>();
+        for (Path file : changed) {
+            pending.add(file.toAbsolutePath().normalize());
+        }
+        while (!pending.isEmpty()) {
+            Path file = pending.poll();
+            if (affected.add(file)) {
+                pending.addAll(importers.getOrDefault(file, new ArrayList<>()));
+            }
+        }
+        return affected.stream()
+                .filter(contracts::containsKey)
+                .map(contracts::get)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parses the import statements of a contract.
+     *
+     * @param contract absolute path of a Solidity or Vyper contract
+     * @param root root of the audited tree, used to resolve non-relative imports
+     * @return absolute paths of the imported files which could be resolved
+     */
+    static List<Path> imports(final Path contract, final Path root) throws IOException {
+        String code = new String(Files.readAllBytes(contract), StandardCharsets.UTF_8);
+        Path directory = contract.getParent();
+        List<Path> candidates = new ArrayList<>();
+        if (contract.getFileName().toString().endsWith(".vy")) {
+            Matcher fromImport = VYPER_FROM_IMPORT.matcher(code);
+            while (fromImport.find()) {
+                String module = fromImport.group(1).replace('.', '/');
+                candidates.add(Paths.get(module, fromImport.group(2) + ".vy"));
+                candidates.add(Paths.get(module + ".vy"));
+            }
+            Matcher plainImport = VYPER_IMPORT.matcher(code);
+            while (plainImport.find()) {
+                candidates.add(Paths.get(plainImport.group(1).replace('.', '/') + ".vy"));
+            }
+        } else {
+            Matcher matcher = SOLIDITY_IMPORT.matcher(COMMENTS.matcher(code).replaceAll(""));
+            while (matcher.find()) {
+                candidates.add(Paths.get(matcher.group(1)));
+            }
+        }
+
+        // Imports which cannot be found, for example deleted files, still link their importers
+        List<Path> imports = new ArrayList<>();
+        for (Path candidate : candidates) {
+            boolean relative = candidate.startsWith(".") || candidate.startsWith("..");
+            Path resolved = directory.resolve(candidate).normalize();
+            if (!relative && !Files.isRegularFile(resolved)) {
+                resolved = root.resolve(candidate).normalize();
+            }
+            imports.add(resolved);
+        }
+        return imports;
+    }
+
+    private static String git(final Path directory, final String... arguments) throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList("git", "-C", directory.toString()));
+        command.addAll(Arrays.asList(arguments));
+        Process process =
+                new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String output;
+        try (InputStream inputStream = process.getInputStream()) {
+            output = new String(Streams.readFully(inputStream), StandardCharsets.UTF_8);
+        }
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Command failed: " + String.join(" ", command));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git", e);
+        }
+        return output;
+    }
+
+    private static List<String> lines(final String text) {
+        return Arrays.stream(text.split("\\r?\\n"))
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.parsers.ParserConfigurationException;
+
+import ru.smartdec.smartcheck.app.SourceLanguage;
+import ru.smartdec.smartcheck.app.SourceLanguages;
+
+/**
+ * Audits all Solidity and Vyper contracts below a path.
+ *
+ * <p>The source tree is walked once and every contract is analysed as a separate task on a
+ * work-stealing pool. Each worker thread keeps its own {@link FileAnalyzer} per language, while
+ * reports are handed to the consumer in path order regardless of which file finishes first. Only a
+ * few tasks per thread are in flight at any time, so memory stays bounded on large trees and the
+ * first reports are available as soon as their files are done.
+ *
+ * <p>When an {@link AuditCache} is given, contracts whose contents and rules did not change since
+ * they were last audited replay their cached findings instead of being parsed again.
+ */
+public class ContractAnalysis {
+
+    /** Bounds how many finished reports can queue up behind a slow file. */
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static final List<SourceLanguage> SOURCE_LANGUAGES =
+            Arrays.asList(new SourceLanguages.Solidity(), new SourceLanguages.Vyper());
+
+    private final Path source;
+    private final int parallelism;
+    private final AuditCache cache;
+    private final ThreadLocal<Map<SourceLanguage, FileAnalyzer>> analyzers;
+
+    public ContractAnalysis(final Path source, final int parallelism) {
+        this(source, parallelism, null);
+    }
+
+    /**
+     * @param source file or directory to audit
+     * @param parallelism number of contracts analysed concurrently
+     * @param cache cache of previous results, or null to always analyse every contract
+     */
+    public ContractAnalysis(final Path source, final int parallelism, final AuditCache cache) {
+        this(source, parallelism, cache, RuleEngine.XPATH);
+    }
+
+    /**
+     * @param source file or directory to audit
+     * @param parallelism number of contracts analysed concurrently
+     * @param cache cache of previous results, or null to always analyse every contract
+     * @param ruleEngine how the rule patterns are evaluated
+     */
+    public ContractAnalysis(
+            final Path source,
+            final int parallelism,
+            final AuditCache cache,
+            final RuleEngine ruleEngine) {
+        this.source = source;
+        this.parallelism = parallelism;
+        this.cache = cache;
+        this.analyzers = ThreadLocal.withInitial(() -> createAnalyzers(ruleEngine));
+    }
+
+    public void analyze(final Consumer<FileReport> consumer) throws Exception {
+        analyze(findContracts(source), consumer);
+    }
+
+    /**
+     * Audits the given contracts only, for example those affected by a change.
+     *
+     * @param contracts contracts to audit, reported in the given order
+     * @param consumer receives one report per contract
+     */
+    public void analyze(final List<Path> contracts, final Consumer<FileReport> consumer)
+            throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Deque<ForkJoinTask<FileReport>> pending = new ArrayDeque<>();
+            Iterator<Path> remaining = contracts.iterator();
+            while (remaining.hasNext() || !pending.isEmpty()) {
+                while (remaining.hasNext() && pending.size() < parallelism * TASKS_PER_THREAD) {
+                    Path contract = remaining.next();
+                    pending.add(pool.submit(() -> analyze(contract)));
+                }
+                consumer.accept(pending.poll().get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            pool.shutdownNow();
+        }
+        if (cache != null) {
+            cache.evict();
+        }
+    }
+
+    FileReport analyze(final Path contract) throws Exception {
+        SourceLanguage sourceLanguage =
+                sourceLanguage(contract)
+                        .orElseThrow(
+                                () -> new IllegalArgumentException("Not a contract: " + contract));
+        if (cache == null) {
+            return analyzers.get().get(sourceLanguage).analyze(contract);
+        }
+        String key = cache.key(Files.readAllBytes(contract), sourceLanguage);
+        Optional<List<AuditFinding>> findings = cache.get(key);
+        if (findings.isPresent()) {
+            return new FileReport(contract, findings.get());
+        }
+        FileReport report = analyzers.get().get(sourceLanguage).analyze(contract);
+        cache.put(key, report.getFindings());
+        return report;
+    }
+
+    /**
+     * Collects the contracts of all supported languages below a path in a single walk.
+     *
+     * @param source file or directory to search
+     * @return contract paths in sorted order
+     */
+    static List<Path> findContracts(final Path source) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> sourceLanguage(path).isPresent())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static Optional<SourceLanguage> sourceLanguage(final Path path) {
+        String fileName = path.getFileName().toString();
+        return SOURCE_LANGUAGES.stream()
+                .filter(language -> fileName.endsWith(language.fileExtension()))
+                .findFirst();
+    }
+
+    private static Map<SourceLanguage, FileAnalyzer> createAnalyzers(final RuleEngine ruleEngine) {
+        Map<SourceLanguage, FileAnalyzer> analyzers = new LinkedHashMap<>();
+        try {
+            for (SourceLanguage sourceLanguage : SOURCE_LANGUAGES) {
+                analyzers.put(sourceLanguage, new FileAnalyzer(sourceLanguage, ruleEngine));
+            }
+        } catch (ParserConfigurationException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return analyzers;
+    }
+}
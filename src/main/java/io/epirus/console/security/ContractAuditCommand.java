@@ -12,38 +12,20 @@
  */
 package io.epirus.console.security;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.file.FileSystemAlreadyExistsException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
+import java.io.PrintStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.function.Function;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPathFactory;
 
 import io.epirus.console.EpirusVersionProvider;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
-import ru.smartdec.smartcheck.RulesCached;
-import ru.smartdec.smartcheck.RulesXml;
-import ru.smartdec.smartcheck.app.DirectoryAnalysis;
-import ru.smartdec.smartcheck.app.DirectoryAnalysisCombined;
-import ru.smartdec.smartcheck.app.DirectoryAnalysisDefault;
-import ru.smartdec.smartcheck.app.Media;
-import ru.smartdec.smartcheck.app.ReportDefault;
-import ru.smartdec.smartcheck.app.SourceLanguage;
-import ru.smartdec.smartcheck.app.SourceLanguages;
-import ru.smartdec.smartcheck.app.TreeFactoryDefault;
-import ru.smartdec.smartcheck.app.cli.Tool;
 
 @Command(
         name = "audit",
@@ -61,40 +43,93 @@ public class ContractAuditCommand implements Runnable {
 
     @Parameters(
             index = "0",
+            arity = "0..1",
             paramLabel = "solidity-file",
             description = "A file containing Solidity code")
     String filePath;
 
+    boolean server;
+
+    @Option(
+            names = {"--threads"},
+            description = "Number of contracts to analyse in parallel.")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = {"--no-cache"},
+            description = "Analyse every contract instead of reusing previous results.")
+    boolean noCache;
+
+    @Option(
+            names = {"--since"},
+            paramLabel = "git-ref",
+            description =
+                    "Only audit contracts changed since this git ref, and the contracts importing them.")
+    String since;
+
+    @Option(
+            names = {"--files-from"},
+            paramLabel = "list",
+            description =
+                    "Only audit the contracts listed in this file, one per line, and the contracts importing them.")
+    File filesFrom;
+
+    @Option(
+            names = {"--rule-engine"},
+            description =
+                    "How rules are evaluated, one of: ${COMPLETION-CANDIDATES}. "
+                            + "SINGLE_PASS evaluates all the rules in one walk of each contract.")
+    RuleEngine ruleEngine = RuleEngine.XPATH;
+
+    @Option(
+            names = {"--format"},
+            description = "Output format, one of: ${COMPLETION-CANDIDATES}.")
+    AuditFormat format = AuditFormat.TEXT;
+
+    @Option(
+            names = {"--fail-on-severity"},
+            description = "Fail the audit if a finding has at least this severity.")
+    int failOnSeverity = 2;
+
+    @Option(
+            names = {"-o", "--output"},
+            description = "File to write the report to instead of the console.")
+    File output;
+
+    @Option(
+            names = {"--server"},
+            description =
+                    "Keep the rules loaded and answer audit requests over stdio (JSON-RPC, LSP framing).")
+    void setServer(boolean server) {
+        this.server = server;
+        if (server) {
+            // Applied while parsing, before the CLI prints anything: stdout carries the protocol,
+            // so keep all other output off it
+            System.setOut(System.err);
+        }
+    }
+
     @Override
     public void run() {
+        if (server) {
+            runServer();
+            return;
+        } else if (filePath == null && since == null && filesFrom == null) {
+            System.err.println("Missing the path of the contracts to audit.");
+            System.exit(1);
+        }
         try {
-            Path source = Paths.get(filePath);
-            Function<SourceLanguage, RulesXml.Source> defaultRules =
-                    sourceLanguage ->
-                            () -> {
-                                String rulesFileName = sourceLanguage.rulesFileName();
-                                URI uri = RulesXml.class.getResource(rulesFileName).toURI();
-                                try {
-                                    HashMap<String, String> env = new HashMap<>();
-                                    env.put("create", "true");
-                                    FileSystems.newFileSystem(uri, env);
-                                } catch (FileSystemAlreadyExistsException ignored) {
-                                }
-                                return Paths.get(uri);
-                            };
-
-            final Integer[] totals = {0, 0};
-            DefaultMedia media = new DefaultMedia(totals);
-            new ReportDefault(
-                            new DirectoryAnalysisCombined(
-                                    makeDirectoryAnalysis(
-                                            new SourceLanguages.Solidity(), source, defaultRules),
-                                    makeDirectoryAnalysis(
-                                            new SourceLanguages.Vyper(), source, defaultRules)),
-                            media)
-                    .print();
-
-            if (media.getTotals()[1] > 0) {
+            AuditMedia media;
+            if (output == null) {
+                media = audit(System.out);
+            } else {
+                try (PrintStream out =
+                        new PrintStream(new FileOutputStream(output), false, "UTF-8")) {
+                    media = audit(out);
+                }
+            }
+
+            if (media.getFailures() > 0) {
                 System.exit(-1);
             }
         } catch (Exception e) {
@@ -103,126 +138,40 @@ public class ContractAuditCommand implements Runnable {
         }
     }
 
-    private static DirectoryAnalysis makeDirectoryAnalysis(
-            final SourceLanguage sourceLanguage,
-            final Path source,
-            final Function<SourceLanguage, RulesXml.Source> rules)
-            throws Exception {
-        return new DirectoryAnalysisDefault(
-                source,
-                p -> p.toString().endsWith(sourceLanguage.fileExtension()),
-                new TreeFactoryDefault(
-                        DocumentBuilderFactory.newInstance().newDocumentBuilder(), sourceLanguage),
-                new RulesCached(
-                        new RulesXml(
-                                rules.apply(sourceLanguage),
-                                XPathFactory.newInstance().newXPath(),
-                                Throwable::printStackTrace)));
-    }
-}
-
-class DefaultMedia implements Media {
-
-    Integer[] getTotals() {
-        return totals;
-    }
-
-    private final Integer[] totals;
-
-    DefaultMedia(final Integer[] totals) {
-        this.totals = totals;
-    }
-
-    @Override
-    public void accept(final DirectoryAnalysis.Info info) {
-        LinkedList<List<String>> report_fields = new LinkedList<>();
-        Map<String, Integer> result = new HashMap<>();
-        info.treeReport()
-                .streamUnchecked()
-                .forEach(
-                        tree ->
-                                tree.contexts()
-                                        .forEach(
-                                                context -> {
-                                                    LinkedList<String> fields = new LinkedList<>();
-                                                    String rule_name;
-                                                    try {
-                                                        URL rule_name_resource =
-                                                                Tool.class
-                                                                        .getClassLoader()
-                                                                        .getResource(
-                                                                                String.format(
-                                                                                        "rule_descriptions/%s/name_en.txt",
-                                                                                        tree.rule()
-                                                                                                .id()));
-                                                        if (rule_name_resource != null) {
-                                                            rule_name =
-                                                                    new String(
-                                                                            Files.readAllBytes(
-                                                                                    Paths.get(
-                                                                                            rule_name_resource
-                                                                                                    .toURI())));
-                                                        } else {
-                                                            rule_name = "";
-                                                        }
-                                                    } catch (IOException | URISyntaxException e) {
-                                                        rule_name = "";
-                                                    }
-                                                    fields.addLast("");
-                                                    fields.addLast(
-                                                            String.format(
-                                                                    "%d:%d",
-                                                                    context.getStart().getLine(),
-                                                                    context.getStart()
-                                                                            .getCharPositionInLine()));
-                                                    fields.addLast(
-                                                            String.format(
-                                                                    "severity:%d",
-                                                                    tree.pattern().severity()));
-                                                    if (tree.pattern().severity() > 1) {
-                                                        totals[1]++;
-                                                    }
-                                                    fields.addLast(rule_name);
-                                                    fields.addLast(
-                                                            String.format(
-                                                                    "%s_%s",
-                                                                    tree.rule().id(),
-                                                                    tree.pattern().id()));
-                                                    result.compute(
-                                                            tree.rule().id(),
-                                                            (k, v) ->
-                                                                    Optional.ofNullable(v)
-                                                                            .map(i -> i + 1)
-                                                                            .orElse(1));
-                                                    report_fields.addLast(fields);
-                                                }));
-        if (!report_fields.isEmpty()) {
-            System.out.println(info.file());
-            System.out.print(formatAsTable(report_fields));
-            totals[0] += report_fields.size();
+    private void runServer() {
+        try {
+            new AuditServer(System.in, new FileOutputStream(FileDescriptor.out)).run();
+        } catch (Exception e) {
+            System.err.println("The audit server failed with the following exception:");
+            e.printStackTrace();
+            System.exit(1);
         }
     }
 
-    private static String formatAsTable(List<List<String>> rows) {
-        if (rows.isEmpty()) return "";
-        int[] maxLengths = new int[rows.get(0).size()];
-        for (List<String> row : rows) {
-            for (int i = 0; i < row.size(); i++) {
-                maxLengths[i] = Math.max(maxLengths[i], row.get(i).length());
-            }
+    private AuditMedia audit(PrintStream out) throws Exception {
+        AuditMedia media = format.createMedia(out, failOnSeverity);
+        media.start();
+        Path source = Paths.get(filePath == null ? "." : filePath);
+        ContractAnalysis analysis =
+                new ContractAnalysis(
+                        source, threads, noCache ? null : AuditCache.getDefault(), ruleEngine);
+        if (since == null && filesFrom == null) {
+            analysis.analyze(media);
+        } else {
+            analysis.analyze(ChangedContracts.affected(source, changedFiles(source)), media);
         }
+        media.finish();
+        return media;
+    }
 
-        StringBuilder formatBuilder = new StringBuilder();
-        for (int maxLength : maxLengths) {
-            formatBuilder.append("%-").append(maxLength + 3).append("s");
+    private List<Path> changedFiles(Path source) throws IOException {
+        List<Path> changed = new ArrayList<>();
+        if (since != null) {
+            changed.addAll(ChangedContracts.since(source, since));
         }
-        String format = formatBuilder.toString();
-
-        StringBuilder result = new StringBuilder();
-        for (List<String> row : rows) {
-            String[] res = row.toArray(new String[0]);
-            result.append(String.format(format, (Object[]) res)).append("\n");
+        if (filesFrom != null) {
+            changed.addAll(ChangedContracts.fromList(filesFrom.toPath()));
         }
-        return result.toString();
+        return changed;
     }
 }
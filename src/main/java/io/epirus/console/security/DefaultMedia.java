@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/** Prints the findings of each file as a plain text table. */
+class DefaultMedia extends AuditMedia {
+
+    private static final int COLUMN_PADDING = 3;
+
+    DefaultMedia(final PrintStream out, final int failOnSeverity) {
+        super(out, failOnSeverity);
+    }
+
+    @Override
+    protected void print(final FileReport report) {
+        if (!report.getFindings().isEmpty()) {
+            out.println(report.getFile());
+            out.print(formatAsTable(report.getFindings()));
+        }
+    }
+
+    static String formatAsTable(List<AuditFinding> findings) {
+        int locationWidth = 0;
+        int severityWidth = 0;
+        int nameWidth = 0;
+        int idWidth = 0;
+        String[][] rows = new String[findings.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            AuditFinding finding = findings.get(i);
+            String[] row = {
+                finding.getLocation(),
+                "severity:" + finding.getSeverity(),
+                finding.getRuleName(),
+                finding.getQualifiedId(),
+                finding.getGasImpact().isEmpty() ? "" : "gas:" + finding.getGasImpact()
+            };
+            locationWidth = Math.max(locationWidth, row[0].length());
+            severityWidth = Math.max(severityWidth, row[1].length());
+            nameWidth = Math.max(nameWidth, row[2].length());
+            idWidth = Math.max(idWidth, row[3].length());
+            rows[i] = row;
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (String[] row : rows) {
+            pad(result, "", 0);
+            pad(result, row[0], locationWidth);
+            pad(result, row[1], severityWidth);
+            pad(result, row[2], nameWidth);
+            pad(result, row[3], idWidth);
+            result.append(row[4]);
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    private static void pad(StringBuilder builder, String value, int width) {
+        builder.append(value);
+        for (int i = value.length(); i < width + COLUMN_PADDING; i++) {
+            builder.append(' ');
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import ru.smartdec.smartcheck.RulesCached;
+import ru.smartdec.smartcheck.RulesXml;
+import ru.smartdec.smartcheck.app.DirectoryAnalysis;
+import ru.smartdec.smartcheck.app.DirectoryAnalysisDefault;
+import ru.smartdec.smartcheck.app.Media;
+import ru.smartdec.smartcheck.app.ReportDefault;
+import ru.smartdec.smartcheck.app.SourceLanguage;
+import ru.smartdec.smartcheck.app.TreeFactoryDefault;
+
+/**
+ * Parses a single contract and evaluates the smartcheck rules of its language, together with the
+ * bundled {@link GasRules}, against it.
+ *
+ * <p>The underlying {@link javax.xml.parsers.DocumentBuilder} and {@link javax.xml.xpath.XPath} are
+ * not thread-safe, so an analyzer must only be used by one thread at a time.
+ */
+final class FileAnalyzer {
+
+    private final SourceLanguage sourceLanguage;
+    private final TreeFactoryDefault treeFactory;
+    private final RulesCached rules;
+
+    FileAnalyzer(final SourceLanguage sourceLanguage, final RuleEngine ruleEngine)
+            throws ParserConfigurationException, IOException {
+        this.sourceLanguage = sourceLanguage;
+        this.treeFactory =
+                new TreeFactoryDefault(
+                        DocumentBuilderFactory.newInstance().newDocumentBuilder(), sourceLanguage);
+        this.rules =
+                new RulesCached(
+                        new RulesXml(
+                                GasRules.withDefaultRules(
+                                        sourceLanguage, defaultRules(sourceLanguage)),
+                                ruleEngine.createXPath(),
+                                Throwable::printStackTrace));
+    }
+
+    SourceLanguage getSourceLanguage() {
+        return sourceLanguage;
+    }
+
+    FileReport analyze(final Path file) throws Exception {
+        FindingCollector collector = new FindingCollector();
+        new ReportDefault(
+                        new DirectoryAnalysisDefault(file, p -> true, treeFactory, rules),
+                        collector)
+                .print();
+        return new FileReport(file, collector.findings);
+    }
+
+    static RulesXml.Source defaultRules(final SourceLanguage sourceLanguage) {
+        return () -> {
+            String rulesFileName = sourceLanguage.rulesFileName();
+            URI uri = RulesXml.class.getResource(rulesFileName).toURI();
+            try {
+                HashMap<String, String> env = new HashMap<>();
+                env.put("create", "true");
+                FileSystems.newFileSystem(uri, env);
+            } catch (FileSystemAlreadyExistsException ignored) {
+            }
+            return Paths.get(uri);
+        };
+    }
+
+    private static class FindingCollector implements Media {
+
+        private List<AuditFinding> findings = Collections.emptyList();
+
+        @Override
+        public void accept(final DirectoryAnalysis.Info info) {
+            List<AuditFinding> collected = new ArrayList<>();
+            info.treeReport()
+                    .streamUnchecked()
+                    .forEach(
+                            tree ->
+                                    tree.contexts()
+                                            .forEach(
+                                                    context ->
+                                                            collected.add(
+                                                                    new AuditFinding(
+                                                                            context.getStart()
+                                                                                    .getLine(),
+                                                                            context.getStart()
+                                                                                    .getCharPositionInLine(),
+                                                                            tree.pattern()
+                                                                                    .severity(),
+                                                                            tree.rule().id(),
+                                                                            tree.pattern().id()))));
+            findings = collected;
+        }
+    }
+}
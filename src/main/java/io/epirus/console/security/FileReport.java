@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/** The audit findings of a single contract file. */
+public final class FileReport {
+
+    private final Path file;
+    private final List<AuditFinding> findings;
+
+    public FileReport(Path file, List<AuditFinding> findings) {
+        this.file = file;
+        this.findings = findings;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public List<AuditFinding> getFindings() {
+        return findings;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import ru.smartdec.smartcheck.RulesXml;
+import ru.smartdec.smartcheck.app.SourceLanguage;
+
+/**
+ * Gas inefficiency rule pack bundled with the CLI.
+ *
+ * <p>The pack uses the smartcheck rules format and is merged into the default rules of its
+ * language, so both are evaluated by a single {@link RulesXml} on the same parse of each contract.
+ * Languages without a pack keep their default rules.
+ */
+final class GasRules {
+
+    private static final String RESOURCE_DIRECTORY = "/gas_rules/";
+    private static final String RULE_ELEMENT = "Rule";
+
+    private static final Map<String, Path> MERGED_RULES = new ConcurrentHashMap<>();
+
+    private GasRules() {}
+
+    /**
+     * Reads the gas rules of a language.
+     *
+     * @param sourceLanguage language of the contracts
+     * @return contents of the rule pack, empty if the language has none
+     */
+    static byte[] read(final SourceLanguage sourceLanguage) throws IOException {
+        try (InputStream inputStream =
+                GasRules.class.getResourceAsStream(resource(sourceLanguage))) {
+            return inputStream == null ? new byte[0] : Streams.readFully(inputStream);
+        }
+    }
+
+    /**
+     * Rules of a language including its gas rules. The merged file is written once per run.
+     *
+     * @param sourceLanguage language of the contracts
+     * @param defaultRules default smartcheck rules of the language
+     * @return source of the merged rules
+     */
+    static RulesXml.Source withDefaultRules(
+            final SourceLanguage sourceLanguage, final RulesXml.Source defaultRules)
+            throws IOException {
+        byte[] gasRules = read(sourceLanguage);
+        if (gasRules.length == 0) {
+            return defaultRules;
+        }
+        return () ->
+                MERGED_RULES.computeIfAbsent(
+                        sourceLanguage.rulesFileName(), name -> merge(name, gasRules));
+    }
+
+    private static Path merge(final String rulesFileName, final byte[] gasRules) {
+        try (InputStream inputStream = RulesXml.class.getResourceAsStream(rulesFileName)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            Document rules = factory.newDocumentBuilder().parse(inputStream);
+            Document gas = factory.newDocumentBuilder().parse(new ByteArrayInputStream(gasRules));
+
+            NodeList defaultRules = rules.getElementsByTagName(RULE_ELEMENT);
+            Node parent =
+                    defaultRules.getLength() > 0
+                            ? defaultRules.item(0).getParentNode()
+                            : rules.getDocumentElement();
+            NodeList additionalRules = gas.getElementsByTagName(RULE_ELEMENT);
+            for (int i = 0; i < additionalRules.getLength(); i++) {
+                parent.appendChild(rules.importNode(additionalRules.item(i), true));
+            }
+
+            Path merged =
+                    Files.createTempFile("epirus-", "-" + Paths.get(rulesFileName).getFileName());
+            merged.toFile().deleteOnExit();
+            TransformerFactory.newInstance()
+                    .newTransformer()
+                    .transform(new DOMSource(rules), new StreamResult(merged.toFile()));
+            return merged;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load the gas rules", e);
+        }
+    }
+
+    private static String resource(final SourceLanguage sourceLanguage) {
+        return RESOURCE_DIRECTORY + Paths.get(sourceLanguage.rulesFileName()).getFileName();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.PrintStream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/** Prints every finding as a single line JSON object, one line per finding. */
+class JsonLinesMedia extends AuditMedia {
+
+    private final Gson gson = new Gson();
+
+    JsonLinesMedia(final PrintStream out, final int failOnSeverity) {
+        super(out, failOnSeverity);
+    }
+
+    @Override
+    protected void print(final FileReport report) {
+        String file = report.getFile().toString();
+        for (AuditFinding finding : report.getFindings()) {
+            JsonObject line = new JsonObject();
+            line.addProperty("file", file);
+            line.addProperty("line", finding.getLine());
+            line.addProperty("column", finding.getColumn());
+            line.addProperty("severity", finding.getSeverity());
+            line.addProperty("rule", finding.getRuleId());
+            line.addProperty("pattern", finding.getPatternId());
+            line.addProperty("name", finding.getRuleName());
+            if (!finding.getGasImpact().isEmpty()) {
+                line.addProperty("gasImpact", finding.getGasImpact());
+            }
+            out.println(gson.toJson(line));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import ru.smartdec.smartcheck.app.cli.Tool;
+
+/**
+ * Index of the rule names, descriptions and gas estimates, keyed by rule id.
+ *
+ * <p>The descriptions are shipped as one small resource file per rule, by smartcheck and by the
+ * rule packs bundled with the CLI. They are all read in a single pass the first time the index is
+ * used, instead of resolving a resource per finding. Rules missing from the index, such as those in
+ * jars without directory entries, are resolved individually the first time they are used.
+ */
+public final class RuleDescriptions {
+
+    private static final String ROOT = "rule_descriptions";
+    private static final String NAME_FILE = "name_en.txt";
+    private static final String DESCRIPTION_FILE_PREFIX = "description_en.";
+    private static final String DESCRIPTION_FILE = DESCRIPTION_FILE_PREFIX + "html";
+    private static final String GAS_IMPACT_FILE = "gas_en.txt";
+
+    private final ClassLoader classLoader;
+    private final Map<String, String> names;
+    private final Map<String, String> descriptions;
+    private final Map<String, String> gasImpacts;
+
+    // Guarded by this
+    private final Set<String> resolved = new HashSet<>();
+
+    RuleDescriptions(
+            ClassLoader classLoader,
+            Map<String, String> names,
+            Map<String, String> descriptions,
+            Map<String, String> gasImpacts) {
+        this.classLoader = classLoader;
+        this.names = new ConcurrentHashMap<>(names);
+        this.descriptions = new ConcurrentHashMap<>(descriptions);
+        this.gasImpacts = new ConcurrentHashMap<>(gasImpacts);
+    }
+
+    public static RuleDescriptions getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public String name(String ruleId) {
+        return lookUp(ruleId, names);
+    }
+
+    public String description(String ruleId) {
+        return lookUp(ruleId, descriptions);
+    }
+
+    /** Estimated gas cost of a gas rule finding, empty for other rules. */
+    public String gasImpact(String ruleId) {
+        return lookUp(ruleId, gasImpacts);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    static RuleDescriptions load(ClassLoader classLoader) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, String> descriptions = new HashMap<>();
+        Map<String, String> gasImpacts = new HashMap<>();
+        Enumeration<URL> roots;
+        try {
+            roots = classLoader.getResources(ROOT);
+        } catch (IOException e) {
+            report(ROOT, e);
+            roots = Collections.emptyEnumeration();
+        }
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            try {
+                if (root.getProtocol().equals("jar")) {
+                    loadFromJar(
+                            (JarURLConnection) root.openConnection(),
+                            names,
+                            descriptions,
+                            gasImpacts);
+                } else {
+                    loadFromDirectory(Paths.get(root.toURI()), names, descriptions, gasImpacts);
+                }
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                report(root.toString(), e);
+            }
+        }
+        return new RuleDescriptions(classLoader, names, descriptions, gasImpacts);
+    }
+
+    private static void loadFromJar(
+            JarURLConnection connection,
+            Map<String, String> names,
+            Map<String, String> descriptions,
+            Map<String, String> gasImpacts)
+            throws IOException {
+        connection.setUseCaches(false);
+        try (JarFile jarFile = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String[] parts = entry.getName().split("/");
+                if (entry.isDirectory() || parts.length != 3 || !parts[0].equals(ROOT)) {
+                    continue;
+                }
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    index(
+                            parts[1],
+                            parts[2],
+                            Streams.readFully(inputStream),
+                            names,
+                            descriptions,
+                            gasImpacts);
+                }
+            }
+        }
+    }
+
+    private static void loadFromDirectory(
+            Path root,
+            Map<String, String> names,
+            Map<String, String> descriptions,
+            Map<String, String> gasImpacts)
+            throws IOException {
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (root.relativize(file).getNameCount() == 2 && Files.isRegularFile(file)) {
+                    index(
+                            file.getParent().getFileName().toString(),
+                            file.getFileName().toString(),
+                            Files.readAllBytes(file),
+                            names,
+                            descriptions,
+                            gasImpacts);
+                }
+            }
+        }
+    }
+
+    private String lookUp(String ruleId, Map<String, String> index) {
+        if (!names.containsKey(ruleId)) {
+            resolve(ruleId);
+        }
+        return index.getOrDefault(ruleId, "");
+    }
+
+    /** Reads the files of a rule missing from the index, once. */
+    private synchronized void resolve(String ruleId) {
+        if (!resolved.add(ruleId)) {
+            return;
+        }
+        for (String fileName : new String[] {NAME_FILE, DESCRIPTION_FILE, GAS_IMPACT_FILE}) {
+            String resource = ROOT + "/" + ruleId + "/" + fileName;
+            try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+                if (inputStream != null) {
+                    index(
+                            ruleId,
+                            fileName,
+                            Streams.readFully(inputStream),
+                            names,
+                            descriptions,
+                            gasImpacts);
+                }
+            } catch (IOException e) {
+                report(resource, e);
+            }
+        }
+    }
+
+    /** Missing descriptions only affect how findings are labelled, so the audit carries on. */
+    private static void report(String location, Exception e) {
+        System.err.println(
+                "Could not read the rule descriptions from " + location + ": " + e.getMessage());
+    }
+
+    private static void index(
+            String ruleId,
+            String fileName,
+            byte[] contents,
+            Map<String, String> names,
+            Map<String, String> descriptions,
+            Map<String, String> gasImpacts) {
+        if (fileName.equals(NAME_FILE)) {
+            names.put(ruleId, new String(contents, StandardCharsets.UTF_8).trim());
+        } else if (fileName.startsWith(DESCRIPTION_FILE_PREFIX)) {
+            descriptions.put(ruleId, new String(contents, StandardCharsets.UTF_8).trim());
+        } else if (fileName.equals(GAS_IMPACT_FILE)) {
+            gasImpacts.put(ruleId, new String(contents, StandardCharsets.UTF_8).trim());
+        }
+    }
+
+    private static class Holder {
+        private static final RuleDescriptions INSTANCE = load(Tool.class.getClassLoader());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+
+/** How the rule patterns are evaluated against the parse tree of a contract. */
+public enum RuleEngine {
+    /** Every pattern is evaluated on its own, walking the whole tree each time. */
+    XPATH {
+        @Override
+        XPath createXPath() {
+            return XPathFactory.newInstance().newXPath();
+        }
+    },
+    /** All the patterns are evaluated together in a single walk of the tree. */
+    SINGLE_PASS {
+        @Override
+        XPath createXPath() {
+            return new SingleTraversalXPath(XPathFactory.newInstance().newXPath());
+        }
+    };
+
+    abstract XPath createXPath();
+}
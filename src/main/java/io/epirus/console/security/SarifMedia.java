@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Writes a SARIF 2.1.0 log. Results are streamed as files are reported, and the rule metadata of
+ * the tool is written once all results are known.
+ */
+class SarifMedia extends AuditMedia {
+
+    private static final String SCHEMA =
+            "https://schemastore.azurewebsites.net/schemas/json/sarif-2.1.0-rtm.5.json";
+
+    private final Gson gson = new Gson();
+    private final Map<String, String> rules = new TreeMap<>();
+    private boolean firstResult = true;
+
+    SarifMedia(final PrintStream out, final int failOnSeverity) {
+        super(out, failOnSeverity);
+    }
+
+    @Override
+    public void start() {
+        out.print("{\"$schema\":\"" + SCHEMA + "\",\"version\":\"2.1.0\",\"runs\":[{\"results\":[");
+    }
+
+    @Override
+    protected void print(final FileReport report) {
+        String uri = uri(report.getFile());
+        for (AuditFinding finding : report.getFindings()) {
+            rules.put(finding.getRuleId(), finding.getRuleName());
+            if (!firstResult) {
+                out.print(',');
+            }
+            firstResult = false;
+            out.print(gson.toJson(result(uri, finding)));
+        }
+    }
+
+    @Override
+    public void finish() {
+        JsonArray ruleDescriptors = new JsonArray();
+        rules.forEach(
+                (id, name) -> {
+                    JsonObject rule = new JsonObject();
+                    rule.addProperty("id", id);
+                    if (!name.isEmpty()) {
+                        rule.add("shortDescription", text(name));
+                    }
+                    String description = RuleDescriptions.getInstance().description(id);
+                    if (!description.isEmpty()) {
+                        rule.add("fullDescription", text(description));
+                    }
+                    ruleDescriptors.add(rule);
+                });
+        JsonObject driver = new JsonObject();
+        driver.addProperty("name", "epirus-audit");
+        driver.addProperty("informationUri", "https://github.com/epirus-io/epirus-cli");
+        driver.add("rules", ruleDescriptors);
+        JsonObject tool = new JsonObject();
+        tool.add("driver", driver);
+        out.println("],\"tool\":" + gson.toJson(tool) + "}]}");
+        super.finish();
+    }
+
+    private static JsonObject result(final String uri, final AuditFinding finding) {
+        JsonObject region = new JsonObject();
+        region.addProperty("startLine", finding.getLine());
+        region.addProperty("startColumn", finding.getColumn() + 1);
+        JsonObject artifactLocation = new JsonObject();
+        artifactLocation.addProperty("uri", uri);
+        JsonObject physicalLocation = new JsonObject();
+        physicalLocation.add("artifactLocation", artifactLocation);
+        physicalLocation.add("region", region);
+        JsonObject location = new JsonObject();
+        location.add("physicalLocation", physicalLocation);
+        JsonArray locations = new JsonArray();
+        locations.add(location);
+
+        JsonObject properties = new JsonObject();
+        properties.addProperty("severity", finding.getSeverity());
+        properties.addProperty("pattern", finding.getPatternId());
+        if (!finding.getGasImpact().isEmpty()) {
+            properties.addProperty("gasImpact", finding.getGasImpact());
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("ruleId", finding.getRuleId());
+        result.addProperty("level", level(finding.getSeverity()));
+        result.add(
+                "message",
+                text(
+                        finding.getRuleName().isEmpty()
+                                ? finding.getQualifiedId()
+                                : finding.getRuleName()));
+        result.add("locations", locations);
+        result.add("properties", properties);
+        return result;
+    }
+
+    private static String level(final int severity) {
+        if (severity >= 3) {
+            return "error";
+        } else if (severity == 2) {
+            return "warning";
+        }
+        return "note";
+    }
+
+    private static JsonObject text(final String value) {
+        JsonObject message = new JsonObject();
+        message.addProperty("text", value);
+        return message;
+    }
+
+    private static String uri(final Path file) {
+        return file.isAbsolute()
+                ? file.toUri().toString()
+                : file.toString().replace(File.separatorChar, '/');
+    }
+}
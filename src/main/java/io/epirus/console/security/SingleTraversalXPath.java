@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * An {@link XPath} which evaluates all the expressions compiled through it in a single traversal of
+ * each document.
+ *
+ * <p>Rule patterns are almost always of the form {@code //element[predicate]...}. Evaluated one by
+ * one, each of them walks the whole parse tree. Instead, such expressions are indexed by their
+ * leading element name, and the first time any expression is evaluated against a document, the
+ * document is walked once and every indexed expression is evaluated relative to the elements with
+ * its name only. The results are kept for the other expressions of the same document. Expressions
+ * which cannot be rewritten safely, for example because they depend on the position of a node, are
+ * evaluated as usual.
+ *
+ * <p>Like the XPath it wraps, this class is not thread-safe.
+ */
+final class SingleTraversalXPath implements XPath {
+
+    private static final Pattern LEADING_DESCENDANT_STEP =
+            Pattern.compile("^\\s*//([A-Za-z_][\\w.\\-]*)(\\s*(?:[\\[/].*)?)$", Pattern.DOTALL);
+    private static final Pattern POSITIONAL =
+            Pattern.compile("position\\s*\\(|last\\s*\\(|\\[\\s*[0-9$]");
+
+    private final XPath delegate;
+    private final Map<String, List<IndexedExpression>> expressionsByElement = new HashMap<>();
+    private final List<IndexedExpression> expressions = new ArrayList<>();
+
+    private Document evaluatedDocument;
+    private Map<IndexedExpression, List<Node>> results = Collections.emptyMap();
+
+    SingleTraversalXPath(final XPath delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public XPathExpression compile(final String expression) throws XPathExpressionException {
+        XPathExpression compiled = delegate.compile(expression);
+        Matcher matcher = LEADING_DESCENDANT_STEP.matcher(expression);
+        if (expression.contains("|")
+                || !matcher.matches()
+                || POSITIONAL.matcher(expression).find()) {
+            return compiled;
+        }
+        String element = matcher.group(1);
+        IndexedExpression indexed =
+                new IndexedExpression(
+                        compiled, delegate.compile("self::" + element + matcher.group(2)));
+        expressionsByElement.computeIfAbsent(element, key -> new ArrayList<>()).add(indexed);
+        expressions.add(indexed);
+        return indexed;
+    }
+
+    private List<Node> nodes(final IndexedExpression expression, final Object item)
+            throws XPathExpressionException {
+        Document document =
+                item instanceof Document ? (Document) item : ((Node) item).getOwnerDocument();
+        if (document != evaluatedDocument) {
+            results = evaluateAll(document);
+            evaluatedDocument = document;
+        }
+        return results.get(expression);
+    }
+
+    /** Walks the document once and evaluates every indexed expression at the matching elements. */
+    private Map<IndexedExpression, List<Node>> evaluateAll(final Document document)
+            throws XPathExpressionException {
+        Map<IndexedExpression, Set<Node>> matches = new IdentityHashMap<>();
+        for (IndexedExpression expression : expressions) {
+            matches.put(expression, new LinkedHashSet<>());
+        }
+        List<Node> stack = new ArrayList<>();
+        stack.add(document);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                List<IndexedExpression> candidates = expressionsByElement.get(node.getNodeName());
+                if (candidates != null) {
+                    for (IndexedExpression expression : candidates) {
+                        NodeList nodes =
+                                (NodeList)
+                                        expression.relative.evaluate(node, XPathConstants.NODESET);
+                        for (int i = 0; i < nodes.getLength(); i++) {
+                            matches.get(expression).add(nodes.item(i));
+                        }
+                    }
+                }
+            }
+            for (Node child = node.getLastChild();
+                    child != null;
+                    child = child.getPreviousSibling()) {
+                stack.add(child);
+            }
+        }
+
+        Map<IndexedExpression, List<Node>> evaluated = new IdentityHashMap<>();
+        for (Map.Entry<IndexedExpression, Set<Node>> entry : matches.entrySet()) {
+            List<Node> nodes = new ArrayList<>(entry.getValue());
+            nodes.sort(SingleTraversalXPath::documentOrder);
+            evaluated.put(entry.getKey(), nodes);
+        }
+        return evaluated;
+    }
+
+    private static int documentOrder(final Node first, final Node second) {
+        if (first == second) {
+            return 0;
+        }
+        return (first.compareDocumentPosition(second) & Node.DOCUMENT_POSITION_FOLLOWING) != 0
+                ? -1
+                : 1;
+    }
+
+    @Override
+    public void reset() {
+        delegate.reset();
+    }
+
+    @Override
+    public void setXPathVariableResolver(final XPathVariableResolver resolver) {
+        delegate.setXPathVariableResolver(resolver);
+    }
+
+    @Override
+    public XPathVariableResolver getXPathVariableResolver() {
+        return delegate.getXPathVariableResolver();
+    }
+
+    @Override
+    public void setXPathFunctionResolver(final XPathFunctionResolver resolver) {
+        delegate.setXPathFunctionResolver(resolver);
+    }
+
+    @Override
+    public XPathFunctionResolver getXPathFunctionResolver() {
+        return delegate.getXPathFunctionResolver();
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext nsContext) {
+        delegate.setNamespaceContext(nsContext);
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return delegate.getNamespaceContext();
+    }
+
+    @Override
+    public Object evaluate(final String expression, final Object item, final QName returnType)
+            throws XPathExpressionException {
+        return delegate.evaluate(expression, item, returnType);
+    }
+
+    @Override
+    public String evaluate(final String expression, final Object item)
+            throws XPathExpressionException {
+        return delegate.evaluate(expression, item);
+    }
+
+    @Override
+    public Object evaluate(
+            final String expression, final InputSource source, final QName returnType)
+            throws XPathExpressionException {
+        return delegate.evaluate(expression, source, returnType);
+    }
+
+    @Override
+    public String evaluate(final String expression, final InputSource source)
+            throws XPathExpressionException {
+        return delegate.evaluate(expression, source);
+    }
+
+    /** An expression whose node-set results come from the shared traversal. */
+    private final class IndexedExpression implements XPathExpression {
+
+        private final XPathExpression absolute;
+        private final XPathExpression relative;
+
+        private IndexedExpression(final XPathExpression absolute, final XPathExpression relative) {
+            this.absolute = absolute;
+            this.relative = relative;
+        }
+
+        @Override
+        public Object evaluate(final Object item, final QName returnType)
+                throws XPathExpressionException {
+            if (!XPathConstants.NODESET.equals(returnType) || !(item instanceof Node)) {
+                return absolute.evaluate(item, returnType);
+            }
+            return new NodeListView(nodes(this, item));
+        }
+
+        @Override
+        public String evaluate(final Object item) throws XPathExpressionException {
+            return absolute.evaluate(item);
+        }
+
+        @Override
+        public Object evaluate(final InputSource source, final QName returnType)
+                throws XPathExpressionException {
+            return absolute.evaluate(source, returnType);
+        }
+
+        @Override
+        public String evaluate(final InputSource source) throws XPathExpressionException {
+            return absolute.evaluate(source);
+        }
+    }
+
+    private static final class NodeListView implements NodeList {
+
+        private final List<Node> nodes;
+
+        private NodeListView(final List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Node item(final int index) {
+            return index < nodes.size() ? nodes.get(index) : null;
+        }
+
+        @Override
+        public int getLength() {
+            return nodes.size();
+        }
+    }
+}
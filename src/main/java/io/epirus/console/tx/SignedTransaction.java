@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.epirus.console.wallet.BatchTransfer;
+
+/**
+ * A transaction signed by {@code tx sign}, as stored in the raw transaction file read by {@code tx
+ * broadcast}. The file has one JSON object per line, so that it can be streamed and appended to.
+ */
+public class SignedTransaction {
+
+    private static final Gson GSON = new Gson();
+
+    private final int line;
+    private final String from;
+    private final String to;
+    private final String value;
+    private final String nonce;
+    private final long chainId;
+    private final String hash;
+    private final String raw;
+
+    public SignedTransaction(
+            int line,
+            String from,
+            String to,
+            BigInteger value,
+            BigInteger nonce,
+            long chainId,
+            String hash,
+            String raw) {
+        this.line = line;
+        this.from = from;
+        this.to = to;
+        this.value = value.toString();
+        this.nonce = nonce.toString();
+        this.chainId = chainId;
+        this.hash = hash;
+        this.raw = raw;
+    }
+
+    public static void write(File file, List<SignedTransaction> transactions) throws IOException {
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (SignedTransaction transaction : transactions) {
+                writer.write(GSON.toJson(transaction));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static List<SignedTransaction> read(File file) throws IOException {
+        List<SignedTransaction> transactions = new ArrayList<>();
+        try (BufferedReader reader =
+                Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    SignedTransaction transaction = GSON.fromJson(line, SignedTransaction.class);
+                    if (transaction.raw == null || transaction.hash == null) {
+                        throw new JsonParseException("missing raw transaction");
+                    }
+                    transactions.add(transaction);
+                } catch (JsonParseException e) {
+                    throw new IOException(String.format("Line %d: %s", number, e.getMessage()), e);
+                }
+            }
+        }
+        return transactions;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public BigInteger getNonce() {
+        return new BigInteger(nonce);
+    }
+
+    public long getChainId() {
+        return chainId;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    /** The transaction as broadcast by {@link io.epirus.console.wallet.TransactionBroadcaster}. */
+    public BatchTransfer.SignedTransfer toSignedTransfer() {
+        return new BatchTransfer.SignedTransfer(
+                new BatchTransfer.Recipient(line, to, new BigInteger(value)),
+                getNonce(),
+                raw,
+                hash);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx;
+
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.SubCommand;
+import io.epirus.console.tx.subcommands.TransactionBroadcastCommand;
+import io.epirus.console.tx.subcommands.TransactionSignCommand;
+import picocli.CommandLine.Command;
+
+@Command(
+        name = "tx",
+        description = "Sign transactions offline and broadcast them later",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        subcommands = {TransactionSignCommand.class, TransactionBroadcastCommand.class},
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class TransactionCommand extends SubCommand {}
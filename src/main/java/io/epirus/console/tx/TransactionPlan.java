@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.epirus.console.wallet.TransactionSigner;
+
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
+
+/**
+ * Transactions to sign offline, read from a CSV or JSON plan.
+ *
+ * <p>CSV plans have one {@code to,amount[,unit[,data[,gasLimit]]]} line per transaction, with an
+ * optional header line starting with {@code to}. JSON plans are an array of objects with the same
+ * fields. Amounts default to ether. Since signing happens without a node, recipients must be hex
+ * addresses rather than ENS names.
+ */
+public class TransactionPlan {
+
+    private final List<PlannedTransaction> transactions;
+
+    private TransactionPlan(List<PlannedTransaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    public static TransactionPlan read(File planFile) throws IOException {
+        String contents = new String(Files.readAllBytes(planFile.toPath()), StandardCharsets.UTF_8);
+        List<PlannedTransaction> transactions = new ArrayList<>();
+        if (planFile.getName().endsWith(".json")) {
+            Entry[] entries;
+            try {
+                entries = new Gson().fromJson(contents, Entry[].class);
+            } catch (JsonParseException e) {
+                throw new IOException("Invalid JSON plan: " + e.getMessage());
+            }
+            for (int i = 0; entries != null && i < entries.length; i++) {
+                Entry entry = entries[i];
+                transactions.add(
+                        planned(
+                                i + 1,
+                                entry.to,
+                                entry.amount,
+                                entry.unit,
+                                entry.data,
+                                entry.gasLimit));
+            }
+        } else {
+            String[] lines = contents.split("\\r?\\n");
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.isEmpty()
+                        || line.startsWith("#")
+                        || (i == 0 && line.toLowerCase().startsWith("to"))) {
+                    continue;
+                }
+                String[] columns = line.split("\\s*,\\s*", -1);
+                if (columns.length < 2 || columns.length > 5) {
+                    throw new IOException(
+                            String.format(
+                                    "Line %d: expected to,amount[,unit[,data[,gasLimit]]]", i + 1));
+                }
+                transactions.add(
+                        planned(
+                                i + 1,
+                                columns[0],
+                                columns[1],
+                                columns.length > 2 ? columns[2] : null,
+                                columns.length > 3 ? columns[3] : null,
+                                columns.length > 4 ? columns[4] : null));
+            }
+        }
+        return new TransactionPlan(transactions);
+    }
+
+    public List<PlannedTransaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Signs every transaction of the plan, with consecutive nonces.
+     *
+     * @param signer signs for the sending account, locally or through the credential agent
+     * @param firstNonce nonce of the first transaction, usually the pending transaction count of
+     *     the sender
+     * @param chainId chain id the transactions are replay protected for
+     * @param defaultGasLimit gas limit of the transactions which do not specify one
+     */
+    public List<SignedTransaction> sign(
+            TransactionSigner signer,
+            BigInteger firstNonce,
+            long chainId,
+            BigInteger gasPrice,
+            BigInteger defaultGasLimit)
+            throws IOException {
+        List<SignedTransaction> signed = new ArrayList<>(transactions.size());
+        BigInteger nonce = firstNonce;
+        for (PlannedTransaction transaction : transactions) {
+            if (transaction.gasLimit == null && !transaction.data.isEmpty()) {
+                throw new IOException(
+                        String.format(
+                                "Line %d: a gas limit is required for transactions with data",
+                                transaction.line));
+            }
+            RawTransaction rawTransaction =
+                    RawTransaction.createTransaction(
+                            nonce,
+                            gasPrice,
+                            transaction.gasLimit == null ? defaultGasLimit : transaction.gasLimit,
+                            transaction.to,
+                            transaction.value,
+                            transaction.data);
+            String raw = Numeric.toHexString(signer.sign(rawTransaction, chainId));
+            signed.add(
+                    new SignedTransaction(
+                            transaction.line,
+                            signer.getAddress(),
+                            transaction.to,
+                            transaction.value,
+                            nonce,
+                            chainId,
+                            Hash.sha3(raw),
+                            raw));
+            nonce = nonce.add(BigInteger.ONE);
+        }
+        return signed;
+    }
+
+    private static PlannedTransaction planned(
+            int line, String to, String amount, String unit, String data, String gasLimit)
+            throws IOException {
+        if (to == null || !WalletUtils.isValidAddress(to)) {
+            throw new IOException(String.format("Line %d: invalid address %s", line, to));
+        }
+        try {
+            Convert.Unit transferUnit =
+                    unit == null || unit.isEmpty()
+                            ? Convert.Unit.ETHER
+                            : Convert.Unit.fromString(unit.toLowerCase());
+            BigInteger value =
+                    Convert.toWei(new BigDecimal(amount), transferUnit).toBigIntegerExact();
+            if (value.signum() < 0) {
+                throw new ArithmeticException("negative amount");
+            }
+            return new PlannedTransaction(
+                    line,
+                    to,
+                    value,
+                    data == null ? "" : data,
+                    gasLimit == null || gasLimit.isEmpty() ? null : new BigInteger(gasLimit));
+        } catch (ArithmeticException | IllegalArgumentException | NullPointerException e) {
+            throw new IOException(
+                    String.format("Line %d: invalid amount or gas limit %s", line, amount), e);
+        }
+    }
+
+    /** A transaction of the plan, before it is signed. */
+    public static class PlannedTransaction {
+        private final int line;
+        private final String to;
+        private final BigInteger value;
+        private final String data;
+        private final BigInteger gasLimit;
+
+        PlannedTransaction(
+                int line, String to, BigInteger value, String data, BigInteger gasLimit) {
+            this.line = line;
+            this.to = to;
+            this.value = value;
+            this.data = data;
+            this.gasLimit = gasLimit;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public BigInteger getValue() {
+            return value;
+        }
+    }
+
+    private static class Entry {
+        private String to;
+        private String amount;
+        private String unit;
+        private String data;
+        private String gasLimit;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx.subcommands;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.rpc.Web3jClientPool;
+import io.epirus.console.tx.SignedTransaction;
+import io.epirus.console.wallet.BatchTransfer;
+import io.epirus.console.wallet.TransactionBroadcaster;
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+import io.epirus.console.wallet.receipt.ReceiptOptions;
+import io.epirus.console.wallet.receipt.ReceiptWaitStrategy;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthChainId;
+import org.web3j.protocol.http.HttpService;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "broadcast",
+        description =
+                "Broadcast transactions signed by: epirus tx sign, and wait for their receipts",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class TransactionBroadcastCommand implements Runnable {
+
+    @Parameters(paramLabel = "signed-file", description = "File written by: epirus tx sign")
+    File signedFile;
+
+    @Option(
+            names = {"--network"},
+            description = "Epirus network to broadcast to [rinkeby/kovan], instead of --node-url.")
+    String network;
+
+    @Option(
+            names = {"--node-url"},
+            description = "URL of the Ethereum client to broadcast to.")
+    String nodeUrl = HttpService.DEFAULT_URL;
+
+    @Option(
+            names = {"--concurrency"},
+            description = "Maximum number of transactions submitted at the same time.")
+    int concurrency = BatchTransfer.DEFAULT_CONCURRENCY;
+
+    @Option(
+            names = {"--progress"},
+            description =
+                    "CSV file recording the outcome of every transaction. Transactions already "
+                            + "confirmed in it are skipped. Defaults to <signed-file>.progress.csv.")
+    File progressFile;
+
+    @Mixin ReceiptOptions receiptOptions = new ReceiptOptions();
+
+    @Override
+    public void run() {
+        if (concurrency < 1) {
+            exitError("Concurrency must be at least 1");
+        }
+        List<SignedTransaction> signed = null;
+        try {
+            signed = SignedTransaction.read(signedFile);
+        } catch (IOException e) {
+            exitError("Unable to read signed transactions " + signedFile + ": " + e.getMessage());
+        }
+        if (signed.isEmpty()) {
+            exitError("No signed transactions found in " + signedFile);
+        }
+        if (signed.stream().map(SignedTransaction::getFrom).distinct().count() > 1) {
+            exitError("All transactions of " + signedFile + " must be sent by the same address");
+        }
+        if (signed.stream().mapToLong(SignedTransaction::getChainId).distinct().count() > 1) {
+            exitError("All transactions of " + signedFile + " must be signed for the same chain");
+        }
+
+        File progress =
+                progressFile != null
+                        ? progressFile
+                        : new File(
+                                signedFile.getAbsoluteFile().getParentFile(),
+                                signedFile.getName() + ".progress.csv");
+        Set<String> completed = null;
+        try {
+            completed = completedHashes(progress);
+        } catch (IOException e) {
+            exitError("Unable to read progress file " + progress + ": " + e.getMessage());
+        }
+        Set<String> skipped = completed;
+        List<BatchTransfer.SignedTransfer> transfers =
+                signed.stream()
+                        .filter(transaction -> !skipped.contains(transaction.getHash()))
+                        .sorted(Comparator.comparing(SignedTransaction::getNonce))
+                        .map(SignedTransaction::toSignedTransfer)
+                        .collect(Collectors.toList());
+        if (transfers.isEmpty()) {
+            System.out.printf("All %d transactions are already confirmed%n", signed.size());
+            return;
+        }
+
+        Web3j web3j = null;
+        try {
+            web3j = Web3jClientPool.getInstance().forNetworkOrUrl(network, nodeUrl);
+        } catch (Exception e) {
+            exitError("Unable to connect to the Ethereum client: " + e.getMessage());
+        }
+        checkChainId(web3j, signed.get(0).getChainId());
+        ReceiptAwaiter receiptAwaiter = createReceiptAwaiter(web3j);
+
+        System.out.printf(
+                "Broadcasting %d transactions from %s (%d already confirmed)%n",
+                transfers.size(), signed.get(0).getFrom(), signed.size() - transfers.size());
+        Map<BatchTransfer.Status, Integer> outcomes = new EnumMap<>(BatchTransfer.Status.class);
+        boolean resumed = progress.exists();
+        try (PrintWriter writer =
+                new PrintWriter(
+                        Files.newBufferedWriter(
+                                progress.toPath(),
+                                StandardCharsets.UTF_8,
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.APPEND))) {
+            if (!resumed) {
+                writer.println(BatchTransfer.Result.CSV_HEADER);
+                writer.flush();
+            }
+            new TransactionBroadcaster(web3j, concurrency, receiptAwaiter)
+                    .broadcast(
+                            transfers,
+                            result -> {
+                                synchronized (outcomes) {
+                                    writer.println(result.toCsv());
+                                    writer.flush();
+                                    outcomes.merge(result.getStatus(), 1, Integer::sum);
+                                    System.out.printf(
+                                            "\r%d/%d transactions completed",
+                                            outcomes.values().stream()
+                                                    .mapToInt(Integer::intValue)
+                                                    .sum(),
+                                            transfers.size());
+                                }
+                            });
+        } catch (IOException e) {
+            exitError("Unable to write progress file " + progress + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitError("Interrupted while broadcasting transactions");
+        } finally {
+            receiptAwaiter.close();
+        }
+        System.out.printf("%nProgress written to %s%n", progress);
+        outcomes.forEach((status, count) -> System.out.printf("%s: %d%n", status, count));
+        System.out.printf("%s%n", receiptAwaiter.getStats().summary());
+    }
+
+    /** Transactions signed for another chain would all be rejected, so none are broadcast. */
+    private static void checkChainId(Web3j web3j, long chainId) {
+        try {
+            EthChainId nodeChainId = web3j.ethChainId().send();
+            if (nodeChainId.hasError()) {
+                exitError(
+                        "Unable to get the chain id of the Ethereum client: "
+                                + nodeChainId.getError().getMessage());
+            } else if (nodeChainId.getChainId().longValue() != chainId) {
+                exitError(
+                        String.format(
+                                "The transactions are signed for chain %d, but the Ethereum client is on chain %s",
+                                chainId, nodeChainId.getChainId()));
+            }
+        } catch (IOException e) {
+            exitError("Unable to get the chain id of the Ethereum client: " + e.getMessage());
+        }
+    }
+
+    private ReceiptAwaiter createReceiptAwaiter(Web3j web3j) {
+        try {
+            return receiptOptions.createAwaiter(web3j, ReceiptWaitStrategy.BATCH);
+        } catch (IllegalArgumentException e) {
+            exitError(e.getMessage());
+        }
+        throw new RuntimeException("Application exit failure");
+    }
+
+    /** Hashes of the transactions a previous run recorded as mined, successfully or not. */
+    static Set<String> completedHashes(File progress) throws IOException {
+        Set<String> hashes = new HashSet<>();
+        if (!progress.exists()) {
+            return hashes;
+        }
+        try (BufferedReader reader =
+                Files.newBufferedReader(progress.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",", 8);
+                if (columns.length >= 6
+                        && (columns[5].equals(BatchTransfer.Status.CONFIRMED.name())
+                                || columns[5].equals(BatchTransfer.Status.REVERTED.name()))) {
+                    hashes.add(columns[4]);
+                }
+            }
+        }
+        return hashes;
+    }
+}
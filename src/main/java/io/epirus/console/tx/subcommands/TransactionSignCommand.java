@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx.subcommands;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.tx.SignedTransaction;
+import io.epirus.console.tx.TransactionPlan;
+import io.epirus.console.wallet.TransactionSigner;
+import io.epirus.console.wrapper.CredentialsOptions;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import org.web3j.crypto.CipherException;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "sign",
+        description =
+                "Sign a batch of transactions without connecting to a node, "
+                        + "for a later: epirus tx broadcast",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class TransactionSignCommand implements Runnable {
+
+    @Option(
+            names = {"--batch"},
+            description =
+                    "CSV file with one to,amount[,unit[,data[,gasLimit]]] line per transaction, "
+                            + "or JSON file with an array of objects with the same fields.",
+            required = true)
+    File planFile;
+
+    @Mixin CredentialsOptions credentialsOptions;
+
+    @Option(
+            names = {"--nonce"},
+            description = "Nonce of the first transaction, usually the pending transaction count.",
+            required = true)
+    BigInteger nonce;
+
+    @Option(
+            names = {"--chain-id"},
+            description = "Chain id the transactions are signed for.",
+            required = true)
+    long chainId;
+
+    @Option(
+            names = {"--gas-price"},
+            description = "Gas price in wei.",
+            required = true)
+    BigInteger gasPrice;
+
+    @Option(
+            names = {"--gas-limit"},
+            description = "Gas limit of the transactions which do not specify one.")
+    BigInteger gasLimit = BigInteger.valueOf(21_000);
+
+    @Option(
+            names = {"-o", "--output"},
+            description =
+                    "File the signed transactions are written to. Defaults to <batch>.signed.")
+    File outputFile;
+
+    @Override
+    public void run() {
+        if (nonce.signum() < 0 || chainId < 1 || gasPrice.signum() < 0) {
+            exitError("The nonce, chain id and gas price must be positive");
+        }
+        TransactionPlan plan = null;
+        try {
+            plan = TransactionPlan.read(planFile);
+        } catch (IOException e) {
+            exitError("Unable to read batch file " + planFile + ": " + e.getMessage());
+        }
+        if (plan.getTransactions().isEmpty()) {
+            exitError("No transactions found in " + planFile);
+        }
+        TransactionSigner signer = null;
+        try {
+            signer = credentialsOptions.createSigner();
+        } catch (IOException | CipherException e) {
+            exitError("Unable to load the wallet: " + e.getMessage());
+        }
+        File output =
+                outputFile != null
+                        ? outputFile
+                        : new File(
+                                planFile.getAbsoluteFile().getParentFile(),
+                                planFile.getName().replaceFirst("\\.(csv|json)$", "") + ".signed");
+        try {
+            List<SignedTransaction> signed = plan.sign(signer, nonce, chainId, gasPrice, gasLimit);
+            SignedTransaction.write(output, signed);
+            System.out.printf(
+                    "Signed %d transactions from %s with nonces %s to %s%n"
+                            + "Signed transactions written to %s%n",
+                    signed.size(),
+                    signer.getAddress(),
+                    signed.get(0).getNonce(),
+                    signed.get(signed.size() - 1).getNonce(),
+                    output);
+        } catch (IOException e) {
+            exitError("Unable to sign the transactions: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the repeated checks the CLI waits on, such as account activation or an incoming balance,
+ * instead of sleeping in loops. A single scheduler thread times the attempts, which run on a small
+ * pool of workers so that a slow request of one check does not hold back the others.
+ *
+ * <p>Checks are retried with a growing, jittered interval until they return a value, their deadline
+ * passes or they fail too often. A pending check can be woken up early when something happens which
+ * makes success likely, which also resets its interval. The time spent waiting is accumulated per
+ * kind of check, see {@link #summary()}.
+ */
+public final class PollingScheduler {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final int WORKERS = 4;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Long> waitedNanos = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+
+    PollingScheduler() {
+        executor = new ScheduledThreadPoolExecutor(1, PollingScheduler::newThread);
+        executor.setRemoveOnCancelPolicy(true);
+        workers =
+                new ThreadPoolExecutor(
+                        WORKERS,
+                        WORKERS,
+                        30,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        PollingScheduler::newThread);
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "epirus-polling-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public static PollingScheduler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts polling, with a first attempt right away.
+     *
+     * @param name kind of check, under which the time spent waiting is reported
+     * @param attempt returns the awaited value, or null if it is not available yet. Attempts of a
+     *     poll never overlap, but may run on different worker threads.
+     * @param schedule intervals, deadline and error budget of the attempts
+     * @return the poll, completed with the first value returned by an attempt
+     */
+    public <T> Poll<T> poll(String name, Callable<T> attempt, Schedule schedule) {
+        Poll<T> poll = new Poll<>(name, attempt, schedule);
+        poll.schedule(0);
+        return poll;
+    }
+
+    /** Total time spent waiting for each kind of check, sorted by name. */
+    public String summary() {
+        return waitedNanos.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> String.format("%s %.1f s", entry.getKey(), entry.getValue() / 1e9))
+                .collect(Collectors.joining(", "));
+    }
+
+    /** Total time spent waiting across all the checks. */
+    public Duration totalWaited() {
+        return Duration.ofNanos(waitedNanos.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /** Intervals, deadline and error budget of a poll. Instances are immutable. */
+    public static final class Schedule {
+        private final Duration initialInterval;
+        private final Duration maxInterval;
+        private final double multiplier;
+        private final double jitter;
+        private final Duration deadline;
+        private final int maxErrors;
+
+        private Schedule(
+                Duration initialInterval,
+                Duration maxInterval,
+                double multiplier,
+                double jitter,
+                Duration deadline,
+                int maxErrors) {
+            this.initialInterval = initialInterval;
+            this.maxInterval = maxInterval;
+            this.multiplier = multiplier;
+            this.jitter = jitter;
+            this.deadline = deadline;
+            this.maxErrors = maxErrors;
+        }
+
+        /**
+         * Interval doubling from {@code initialInterval} up to {@code maxInterval}, without
+         * deadline and failing on the first error.
+         */
+        public static Schedule backoff(Duration initialInterval, Duration maxInterval) {
+            return new Schedule(initialInterval, maxInterval, 2, 0, null, 0);
+        }
+
+        /**
+         * Spreads every interval randomly by up to the given fraction of it, in both directions.
+         */
+        public Schedule withJitter(double jitter) {
+            return new Schedule(
+                    initialInterval, maxInterval, multiplier, jitter, deadline, maxErrors);
+        }
+
+        /** Gives up once the deadline has passed since the first attempt. */
+        public Schedule withDeadline(Duration deadline) {
+            return new Schedule(
+                    initialInterval, maxInterval, multiplier, jitter, deadline, maxErrors);
+        }
+
+        /** Retries attempts throwing an exception, failing on the next one after this many. */
+        public Schedule withMaxErrors(int maxErrors) {
+            return new Schedule(
+                    initialInterval, maxInterval, multiplier, jitter, deadline, maxErrors);
+        }
+    }
+
+    /** A running poll. */
+    public final class Poll<T> {
+        private final String name;
+        private final Callable<T> attempt;
+        private final Schedule schedule;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+
+        // Guarded by this
+        private ScheduledFuture<?> next;
+        private long generation;
+        private boolean attempting;
+        private boolean wakeRequested;
+        private long intervalNanos;
+        private long busyNanos;
+        private int attempts;
+        private int errors;
+        private Exception lastError;
+        private boolean recorded;
+
+        private Poll(String name, Callable<T> attempt, Schedule schedule) {
+            this.name = name;
+            this.attempt = attempt;
+            this.schedule = schedule;
+            this.intervalNanos = schedule.initialInterval.toNanos();
+            // Covers completions from outside, the poll itself records before completing so that
+            // the waited time is accounted once its callers see the result
+            result.whenComplete((value, error) -> record());
+        }
+
+        /**
+         * Runs the next attempt right away and restarts the intervals from the initial one. When an
+         * attempt is running, the next one follows it right away instead.
+         */
+        public synchronized void wakeUp() {
+            if (result.isDone()) {
+                return;
+            }
+            intervalNanos = schedule.initialInterval.toNanos();
+            if (attempting) {
+                wakeRequested = true;
+                return;
+            }
+            if (next != null) {
+                next.cancel(false);
+            }
+            schedule(0);
+        }
+
+        public void cancel() {
+            if (!result.isDone()) {
+                record();
+            }
+            result.cancel(false);
+        }
+
+        public CompletableFuture<T> result() {
+            return result;
+        }
+
+        /**
+         * Blocks until the poll completes, cancelling it when interrupted.
+         *
+         * @throws TimeoutException if the deadline passed without a value
+         * @throws ExecutionException wrapping the error of the last attempt, if there were too many
+         */
+        public T await() throws InterruptedException, TimeoutException, ExecutionException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    throw (TimeoutException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        private synchronized void schedule(long delayNanos) {
+            // A run which already started when it was cancelled sees it is stale and does nothing
+            long current = ++generation;
+            next =
+                    executor.schedule(
+                            () -> workers.execute(() -> run(current)),
+                            delayNanos,
+                            TimeUnit.NANOSECONDS);
+        }
+
+        private void run(long scheduled) {
+            synchronized (this) {
+                if (result.isDone() || scheduled != generation) {
+                    return;
+                }
+                attempting = true;
+            }
+            long attemptStart = System.nanoTime();
+            T value = null;
+            Exception error = null;
+            try {
+                value = attempt.call();
+            } catch (Exception e) {
+                error = e;
+            }
+            synchronized (this) {
+                attempting = false;
+                attempts++;
+                busyNanos += System.nanoTime() - attemptStart;
+                if (value != null) {
+                    record();
+                    result.complete(value);
+                    return;
+                }
+                if (error != null) {
+                    lastError = error;
+                    if (++errors > schedule.maxErrors) {
+                        record();
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                }
+                long delay = wakeRequested ? 0 : jittered(intervalNanos);
+                if (schedule.deadline != null) {
+                    long remaining = startNanos + schedule.deadline.toNanos() - System.nanoTime();
+                    if (remaining <= 0) {
+                        record();
+                        result.completeExceptionally(timeout());
+                        return;
+                    }
+                    delay = Math.min(delay, remaining);
+                }
+                if (!wakeRequested) {
+                    intervalNanos =
+                            Math.min(
+                                    (long) (intervalNanos * schedule.multiplier),
+                                    schedule.maxInterval.toNanos());
+                }
+                wakeRequested = false;
+                schedule(delay);
+            }
+        }
+
+        private long jittered(long interval) {
+            if (schedule.jitter == 0) {
+                return interval;
+            }
+            double spread;
+            synchronized (random) {
+                spread = (random.nextDouble() * 2 - 1) * schedule.jitter;
+            }
+            return Math.max(0, (long) (interval * (1 + spread)));
+        }
+
+        private TimeoutException timeout() {
+            TimeoutException timeout =
+                    new TimeoutException(
+                            String.format(
+                                    "Gave up on %s after %d attempts in %.1f s",
+                                    name, attempts, (System.nanoTime() - startNanos) / 1e9));
+            if (lastError != null) {
+                timeout.initCause(lastError);
+            }
+            return timeout;
+        }
+
+        private synchronized void record() {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+            long waited = Math.max(0, System.nanoTime() - startNanos - busyNanos);
+            waitedNanos.merge(name, waited, Long::sum);
+        }
+    }
+
+    private static class Holder {
+        private static final PollingScheduler INSTANCE = new PollingScheduler();
+    }
+}
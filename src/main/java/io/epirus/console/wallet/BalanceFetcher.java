@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.web3j.crypto.WalletUtils;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+/**
+ * Fetches the balances of many addresses with JSON-RPC batch requests.
+ *
+ * <p>Addresses are grouped into batches of {@code batchSize} {@code eth_getBalance} calls, and at
+ * most {@code maxInFlight} batches are sent to the node at the same time. A batch failing as a
+ * whole, for example because the node is briefly unavailable, is retried a few times before its
+ * addresses are reported as failed.
+ */
+public class BalanceFetcher {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final Pattern ADDRESS = Pattern.compile("0x[0-9a-fA-F]{40}");
+
+    private final Web3j web3j;
+    private final int batchSize;
+    private final int maxInFlight;
+
+    public BalanceFetcher(Web3j web3j, int batchSize, int maxInFlight) {
+        this.web3j = web3j;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Collects the addresses to query from the command line inputs.
+     *
+     * @param inputs addresses, keystore directories, wallet files, or address index files such as
+     *     those written by {@code wallet create --count}
+     * @return distinct lowercase addresses, in input order
+     */
+    public static List<String> addresses(List<String> inputs) throws IOException {
+        Set<String> addresses = new LinkedHashSet<>();
+        for (String input : inputs) {
+            File file = new File(input);
+            if (WalletUtils.isValidAddress(input) && !file.exists()) {
+                addresses.add(normalize(input));
+            } else if (file.isDirectory()) {
+                try (Stream<File> files = Files.list(file.toPath()).map(Path::toFile).sorted()) {
+                    files.map(f -> KeystoreIndex.addressFromFileName(f.getName()))
+                            .filter(Optional::isPresent)
+                            .map(Optional::get)
+                            .forEach(addresses::add);
+                }
+            } else if (file.isFile()) {
+                Optional<String> address = KeystoreIndex.addressFromFileName(file.getName());
+                if (address.isPresent()) {
+                    addresses.add(address.get());
+                } else {
+                    Matcher matcher =
+                            ADDRESS.matcher(
+                                    new String(
+                                            Files.readAllBytes(file.toPath()),
+                                            StandardCharsets.UTF_8));
+                    while (matcher.find()) {
+                        addresses.add(normalize(matcher.group()));
+                    }
+                }
+            } else {
+                throw new IOException("Not an address, directory or file: " + input);
+            }
+        }
+        return new ArrayList<>(addresses);
+    }
+
+    /**
+     * Fetches the latest balance of each address.
+     *
+     * @param addresses addresses to query
+     * @param listener called once per address as soon as its batch completes, from the calling
+     *     thread
+     */
+    public void fetch(List<String> addresses, Consumer<Balance> listener)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(maxInFlight);
+        try {
+            CompletionService<List<Balance>> completionService =
+                    new ExecutorCompletionService<>(executor);
+            int batches = 0;
+            for (int from = 0; from < addresses.size(); from += batchSize) {
+                List<String> batch =
+                        addresses.subList(from, Math.min(addresses.size(), from + batchSize));
+                completionService.submit(() -> fetchBatch(batch));
+                batches++;
+            }
+            for (int i = 0; i < batches; i++) {
+                try {
+                    completionService.take().get().forEach(listener);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Balance> fetchBatch(List<String> addresses) throws InterruptedException {
+        Exception failure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            BatchRequest batch = web3j.newBatch();
+            List<Request<?, ?>> requests = new ArrayList<>(addresses.size());
+            for (String address : addresses) {
+                Request<?, EthGetBalance> request =
+                        web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST);
+                requests.add(request);
+                batch.add(request);
+            }
+            try {
+                return balances(addresses, requests, batch.send());
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+                Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+            }
+        }
+        String error = String.valueOf(failure.getMessage());
+        return addresses.stream()
+                .map(address -> new Balance(address, null, error))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Balance> balances(
+            List<String> addresses, List<Request<?, ?>> requests, BatchResponse response) {
+        // Responses of a batch may come back in any order, they are matched by request id
+        Map<Long, Response<?>> responses =
+                response.getResponses().stream()
+                        .collect(
+                                Collectors.toMap(
+                                        Response::getId, Function.identity(), (a, b) -> a));
+        List<Balance> balances = new ArrayList<>(addresses.size());
+        for (int i = 0; i < addresses.size(); i++) {
+            EthGetBalance balance = (EthGetBalance) responses.get(requests.get(i).getId());
+            if (balance == null) {
+                balances.add(new Balance(addresses.get(i), null, "no response"));
+            } else if (balance.hasError()) {
+                balances.add(new Balance(addresses.get(i), null, balance.getError().getMessage()));
+            } else {
+                balances.add(new Balance(addresses.get(i), balance.getBalance(), null));
+            }
+        }
+        return balances;
+    }
+
+    private static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    /** Balance of an address, or the reason it could not be fetched. */
+    public static class Balance {
+        private final String address;
+        private final BigInteger wei;
+        private final String error;
+
+        Balance(String address, BigInteger wei, String error) {
+            this.address = address;
+            this.wei = wei;
+            this.error = error;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        /** Balance in wei, null if it could not be fetched. */
+        public BigInteger getWei() {
+            return wei;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
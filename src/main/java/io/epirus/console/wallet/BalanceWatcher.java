@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import io.epirus.console.utils.PollingScheduler;
+import io.epirus.console.utils.PollingScheduler.Schedule;
+import io.reactivex.disposables.Disposable;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+
+/**
+ * Watches the balances of addresses until they reach a target, over one shared connection.
+ *
+ * <p>Balances are only queried when a new block arrives, since they cannot change in between. New
+ * blocks are received from a {@code newHeads} subscription when the connection supports it,
+ * otherwise by polling a block filter on the {@link PollingScheduler}, or the block number for
+ * nodes without filters. Closing the watcher removes its filter from the node.
+ *
+ * <p>A watch fails once the balance query failed {@link #MAX_BALANCE_ERRORS} times in a row.
+ */
+public class BalanceWatcher implements Closeable {
+
+    public static final Duration DEFAULT_POLLING_INTERVAL = Duration.ofSeconds(2);
+    public static final int MAX_BALANCE_ERRORS = 5;
+
+    private final Web3j web3j;
+    private final Duration pollingInterval;
+    private final List<Watch> watches = new CopyOnWriteArrayList<>();
+    private final AtomicLong heads = new AtomicLong();
+    private final AtomicLong balanceRequests = new AtomicLong();
+
+    // Guarded by this
+    private boolean started;
+    private boolean closed;
+    private Disposable subscription;
+    private PollingScheduler.Poll<?> poll;
+
+    // Installed by the poll attempts, uninstalled when closing
+    private final AtomicReference<BigInteger> filterId = new AtomicReference<>();
+
+    // Only used by the poll attempts, which never run concurrently
+    private boolean filtersUnsupported;
+    private BigInteger blockNumber;
+
+    public BalanceWatcher(Web3j web3j) {
+        this(web3j, DEFAULT_POLLING_INTERVAL);
+    }
+
+    public BalanceWatcher(Web3j web3j, Duration pollingInterval) {
+        this.web3j = web3j;
+        this.pollingInterval = pollingInterval;
+    }
+
+    /**
+     * Watches the balance of an address until it satisfies the target. The balance is checked right
+     * away, then on every new block.
+     *
+     * @return completed with the first balance satisfying the target; cancel it to stop watching
+     */
+    public CompletableFuture<BigInteger> watch(String address, Predicate<BigInteger> target) {
+        Watch watch = new Watch(address, target);
+        watch.result.whenComplete((balance, error) -> watches.remove(watch));
+        watches.add(watch);
+        start();
+        watch.evaluate();
+        return watch.result;
+    }
+
+    /** Watches the balance of an address until it is at least the given amount of wei. */
+    public CompletableFuture<BigInteger> watchUntilAtLeast(String address, BigInteger wei) {
+        return watch(address, balance -> balance.compareTo(wei) >= 0);
+    }
+
+    /** Number of new blocks received. */
+    public long getHeads() {
+        return heads.get();
+    }
+
+    public long getBalanceRequests() {
+        return balanceRequests.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (poll != null) {
+            poll.cancel();
+            uninstallFilter();
+        }
+        watches.forEach(watch -> watch.result.cancel(false));
+    }
+
+    private synchronized void start() {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        try {
+            subscription =
+                    web3j.newHeadsNotifications()
+                            .subscribe(notification -> onHead(), error -> startPolling());
+        } catch (UnsupportedOperationException e) {
+            startPolling();
+        }
+    }
+
+    private synchronized void startPolling() {
+        if (closed || poll != null) {
+            return;
+        }
+        poll =
+                PollingScheduler.getInstance()
+                        .poll(
+                                "new blocks",
+                                () -> {
+                                    if (pollHead()) {
+                                        onHead();
+                                    }
+                                    return null;
+                                },
+                                Schedule.backoff(pollingInterval, pollingInterval)
+                                        .withJitter(0.1)
+                                        .withMaxErrors(Integer.MAX_VALUE));
+    }
+
+    /** Checks whether the head advanced since the previous check. */
+    private boolean pollHead() throws IOException {
+        if (!filtersUnsupported) {
+            BigInteger id = filterId.get();
+            if (id == null) {
+                EthFilter filter = web3j.ethNewBlockFilter().send();
+                if (filter.hasError()) {
+                    filtersUnsupported = true;
+                    return pollHead();
+                }
+                filterId.set(filter.getFilterId());
+                if (isClosed()) {
+                    // Closed while the filter was being installed
+                    uninstallFilter();
+                }
+                return false;
+            }
+            EthLog changes = web3j.ethGetFilterChanges(id).send();
+            if (changes.hasError()) {
+                // The node dropped the filter, install a new one on the next attempt
+                filterId.set(null);
+                throw new IOException(changes.getError().getMessage());
+            }
+            return !changes.getLogs().isEmpty();
+        }
+        EthBlockNumber latest = web3j.ethBlockNumber().send();
+        if (latest.hasError()) {
+            throw new IOException(latest.getError().getMessage());
+        }
+        boolean advanced =
+                blockNumber != null && latest.getBlockNumber().compareTo(blockNumber) > 0;
+        blockNumber = latest.getBlockNumber();
+        return advanced;
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /** Removes the block filter from the node, without waiting for it to be removed. */
+    private void uninstallFilter() {
+        BigInteger id = filterId.getAndSet(null);
+        if (id != null) {
+            web3j.ethUninstallFilter(id).sendAsync();
+        }
+    }
+
+    private void onHead() {
+        heads.incrementAndGet();
+        watches.forEach(Watch::evaluate);
+    }
+
+    private class Watch {
+        private final String address;
+        private final Predicate<BigInteger> target;
+        private final CompletableFuture<BigInteger> result = new CompletableFuture<>();
+        private final AtomicBoolean evaluating = new AtomicBoolean();
+        private final AtomicBoolean stale = new AtomicBoolean();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Watch(String address, Predicate<BigInteger> target) {
+            this.address = address;
+            this.target = target;
+        }
+
+        /**
+         * Queries the balance. When a query is still in progress, another one follows it, since the
+         * balance it returns may predate the new block.
+         */
+        private void evaluate() {
+            if (result.isDone()) {
+                return;
+            }
+            // Set before checking for a query in progress, so that its completion cannot miss it
+            stale.set(true);
+            if (!evaluating.compareAndSet(false, true)) {
+                return;
+            }
+            stale.set(false);
+            balanceRequests.incrementAndGet();
+            web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)
+                    .sendAsync()
+                    .whenComplete(
+                            (balance, error) -> {
+                                Throwable failure =
+                                        error != null
+                                                ? error
+                                                : balance.hasError()
+                                                        ? new IOException(
+                                                                balance.getError().getMessage())
+                                                        : null;
+                                if (failure == null) {
+                                    errors.set(0);
+                                    if (target.test(balance.getBalance())) {
+                                        result.complete(balance.getBalance());
+                                    }
+                                } else if (errors.incrementAndGet() >= MAX_BALANCE_ERRORS) {
+                                    result.completeExceptionally(failure);
+                                }
+                                evaluating.set(false);
+                                if (stale.get()) {
+                                    evaluate();
+                                }
+                            });
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.ens.EnsResolver;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthChainId;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.tx.Transfer;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
+
+/**
+ * Sends many ether transfers from one wallet.
+ *
+ * <p>The account nonce is fetched once and assigned locally, and every transaction is signed before
+ * the first one is submitted. Transactions are then submitted with a bounded number of requests in
+ * flight, and their receipts are awaited concurrently, so the node rather than a send-then-wait
+ * loop limits the throughput. Each outcome is reported as soon as it is known.
+ */
+public class BatchTransfer {
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+
+    /** Outcome of a single transfer of the batch. */
+    public enum Status {
+        CONFIRMED,
+        REVERTED,
+        FAILED,
+        NOT_SENT,
+        TIMED_OUT
+    }
+
+    private final Web3j web3j;
+    private final TransactionSigner signer;
+    private final int concurrency;
+    private final ReceiptAwaiter receiptAwaiter;
+
+    public BatchTransfer(
+            Web3j web3j, TransactionSigner signer, int concurrency, ReceiptAwaiter receiptAwaiter) {
+        this.web3j = web3j;
+        this.signer = signer;
+        this.concurrency = concurrency;
+        this.receiptAwaiter = receiptAwaiter;
+    }
+
+    /**
+     * Reads the transfers of a batch from a CSV file with one {@code address,amount[,unit]} line
+     * per transfer. The unit defaults to ether. Blank lines, lines starting with {@code #} and a
+     * header line starting with {@code address} are skipped.
+     */
+    public static List<Recipient> read(File batchFile) throws IOException {
+        List<String> lines = Files.readAllLines(batchFile.toPath(), StandardCharsets.UTF_8);
+        List<Recipient> recipients = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()
+                    || line.startsWith("#")
+                    || (i == 0 && line.toLowerCase().startsWith("address"))) {
+                continue;
+            }
+            String[] columns = line.split("\\s*,\\s*");
+            if (columns.length < 2 || columns.length > 3) {
+                throw new IOException(
+                        String.format("Line %d: expected address,amount[,unit]", i + 1));
+            }
+            try {
+                Convert.Unit unit =
+                        columns.length == 3
+                                ? Convert.Unit.fromString(columns[2].toLowerCase())
+                                : Convert.Unit.ETHER;
+                BigInteger amountInWei =
+                        Convert.toWei(new BigDecimal(columns[1]), unit).toBigIntegerExact();
+                if (amountInWei.signum() <= 0) {
+                    throw new ArithmeticException("amount must be positive");
+                }
+                recipients.add(new Recipient(i + 1, columns[0], amountInWei));
+            } catch (ArithmeticException | IllegalArgumentException e) {
+                throw new IOException(
+                        String.format("Line %d: invalid amount %s", i + 1, columns[1]), e);
+            }
+        }
+        return recipients;
+    }
+
+    /**
+     * Resolves the recipients and signs one transaction per recipient, with consecutive nonces
+     * starting from the pending transaction count of the sending account.
+     */
+    public List<SignedTransfer> sign(List<Recipient> recipients) throws IOException {
+        EthGetTransactionCount transactionCount =
+                web3j.ethGetTransactionCount(signer.getAddress(), DefaultBlockParameterName.PENDING)
+                        .send();
+        EthGasPrice gasPrice = web3j.ethGasPrice().send();
+        EthChainId chainId = web3j.ethChainId().send();
+        // Signing without the chain id would let the transfers be replayed on other chains
+        for (Response<?> response : Arrays.asList(transactionCount, gasPrice, chainId)) {
+            if (response.hasError()) {
+                throw new IOException(
+                        "Unable to prepare transactions: " + response.getError().getMessage());
+            }
+        }
+
+        EnsResolver ensResolver = new EnsResolver(web3j);
+        BigInteger nonce = transactionCount.getTransactionCount();
+        List<SignedTransfer> transfers = new ArrayList<>(recipients.size());
+        for (Recipient recipient : recipients) {
+            String to = recipient.getAddress();
+            if (!WalletUtils.isValidAddress(to)) {
+                if (!EnsResolver.isValidEnsName(to)) {
+                    throw new IOException(
+                            String.format("Line %d: invalid address %s", recipient.getLine(), to));
+                }
+                to = ensResolver.resolve(to);
+            }
+            RawTransaction transaction =
+                    RawTransaction.createEtherTransaction(
+                            nonce,
+                            gasPrice.getGasPrice(),
+                            Transfer.GAS_LIMIT,
+                            to,
+                            recipient.getAmountInWei());
+            String signedTransaction =
+                    Numeric.toHexString(signer.sign(transaction, chainId.getChainId().longValue()));
+            transfers.add(
+                    new SignedTransfer(
+                            recipient, nonce, signedTransaction, Hash.sha3(signedTransaction)));
+            nonce = nonce.add(BigInteger.ONE);
+        }
+        return transfers;
+    }
+
+    /**
+     * Submits the signed transfers in nonce order and waits for all of them to be confirmed.
+     *
+     * <p>A transfer rejected by the node leaves a gap in the nonces which blocks every later
+     * transfer, so no further transfers are submitted after a rejection.
+     *
+     * @param transfers transfers returned by {@link #sign(List)}
+     * @param listener called once per transfer as soon as its outcome is known, from any thread
+     */
+    public void execute(List<SignedTransfer> transfers, Consumer<Result> listener)
+            throws InterruptedException {
+        new TransactionBroadcaster(web3j, concurrency, receiptAwaiter)
+                .broadcast(transfers, listener);
+    }
+
+    /** A transfer read from the batch file. */
+    public static class Recipient {
+        private final int line;
+        private final String address;
+        private final BigInteger amountInWei;
+
+        public Recipient(int line, String address, BigInteger amountInWei) {
+            this.line = line;
+            this.address = address;
+            this.amountInWei = amountInWei;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public BigInteger getAmountInWei() {
+            return amountInWei;
+        }
+    }
+
+    /** A transfer signed and ready to be submitted. */
+    public static class SignedTransfer {
+        private final Recipient recipient;
+        private final BigInteger nonce;
+        private final String signedTransaction;
+        private final String transactionHash;
+
+        public SignedTransfer(
+                Recipient recipient,
+                BigInteger nonce,
+                String signedTransaction,
+                String transactionHash) {
+            this.recipient = recipient;
+            this.nonce = nonce;
+            this.signedTransaction = signedTransaction;
+            this.transactionHash = transactionHash;
+        }
+
+        public Recipient getRecipient() {
+            return recipient;
+        }
+
+        public BigInteger getNonce() {
+            return nonce;
+        }
+
+        public String getSignedTransaction() {
+            return signedTransaction;
+        }
+
+        public String getTransactionHash() {
+            return transactionHash;
+        }
+    }
+
+    /** Outcome of a transfer, with its receipt once mined. */
+    public static class Result {
+
+        public static final String CSV_HEADER =
+                "line,address,amount_wei,nonce,transaction_hash,status,block_number,error";
+
+        private final SignedTransfer transfer;
+        private final Status status;
+        private final TransactionReceipt receipt;
+        private final String error;
+
+        Result(SignedTransfer transfer, Status status, TransactionReceipt receipt, String error) {
+            this.transfer = transfer;
+            this.status = status;
+            this.receipt = receipt;
+            this.error = error;
+        }
+
+        public SignedTransfer getTransfer() {
+            return transfer;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public TransactionReceipt getReceipt() {
+            return receipt;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /** CSV line with the columns of {@link #CSV_HEADER}. */
+        public String toCsv() {
+            return String.join(
+                    ",",
+                    String.valueOf(transfer.getRecipient().getLine()),
+                    transfer.getRecipient().getAddress(),
+                    transfer.getRecipient().getAmountInWei().toString(),
+                    transfer.getNonce().toString(),
+                    transfer.getTransactionHash(),
+                    status.name(),
+                    receipt == null ? "" : receipt.getBlockNumber().toString(),
+                    error == null ? "" : '"' + error.replace("\"", "\"\"") + '"');
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Dispatcher;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Requests testnet funds from an Epirus faucet for one or many addresses.
+ *
+ * <p>Without a login token each address needs its own proof of work. Several addresses are funded
+ * at the same time, sharing the available threads between their proofs of work. All the faucet
+ * requests go through one HTTP client, which keeps its connections to the faucet open, and are
+ * spaced to respect the configured rate limit.
+ */
+public class FaucetClient {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 2;
+
+    private static final OkHttpClient HTTP_CLIENT = createHttpClient();
+
+    private final String faucetUrl;
+    private final String token;
+    private final int concurrency;
+    private final int powThreads;
+    private final long requestIntervalNanos;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private long nextRequestNanos = System.nanoTime();
+
+    /**
+     * @param faucet faucet of the network to fund
+     * @param token login token, which spares the proof of work, or null
+     * @param concurrency maximum number of addresses funded at the same time
+     * @param powThreads total number of threads solving proofs of work
+     * @param requestsPerSecond maximum rate of faucet requests, 0 for no limit
+     */
+    public FaucetClient(
+            Faucet faucet,
+            String token,
+            int concurrency,
+            int powThreads,
+            double requestsPerSecond) {
+        this(faucet.url, token, concurrency, powThreads, requestsPerSecond);
+    }
+
+    FaucetClient(
+            String faucetUrl,
+            String token,
+            int concurrency,
+            int powThreads,
+            double requestsPerSecond) {
+        this.faucetUrl = faucetUrl;
+        this.token = token;
+        this.concurrency = concurrency;
+        this.powThreads = powThreads;
+        this.requestIntervalNanos =
+                requestsPerSecond > 0
+                        ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond)
+                        : 0;
+    }
+
+    /**
+     * Funds a single address, using all the proof of work threads.
+     *
+     * @return the outcome, holding the funding transaction hash
+     * @throws IOException if the faucet rejected the request
+     */
+    public Result fund(String address) throws IOException, InterruptedException {
+        return fund(address, powThreads);
+    }
+
+    /**
+     * Funds every address, with at most {@code concurrency} of them in progress at a time.
+     *
+     * @param addresses addresses to fund
+     * @param listener called once per address as soon as it is funded or failed, from the calling
+     *     thread
+     */
+    public void fundAll(List<String> addresses, Consumer<Result> listener)
+            throws InterruptedException {
+        int workers = Math.max(1, Math.min(concurrency, addresses.size()));
+        int threadsPerAddress = Math.max(1, powThreads / workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            ExecutorCompletionService<Result> completion =
+                    new ExecutorCompletionService<>(executor);
+            for (String address : addresses) {
+                completion.submit(
+                        () -> {
+                            try {
+                                return fund(address, threadsPerAddress);
+                            } catch (IOException | RuntimeException e) {
+                                return new Result(address, null, null, e.getMessage());
+                            }
+                        });
+            }
+            for (int i = 0; i < addresses.size(); i++) {
+                try {
+                    listener.accept(completion.take().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result fund(String address, int threads) throws IOException, InterruptedException {
+        MultipartBody.Builder body =
+                new MultipartBody.Builder()
+                        .setType(MultipartBody.FORM)
+                        .addFormDataPart("address", address);
+        String url;
+        ProofOfWorkSolver.Solution solution = null;
+        if (token != null) {
+            url = String.format("%s/send/%s", faucetUrl, token);
+        } else {
+            Challenge challenge =
+                    mapper.readValue(
+                            execute(
+                                    new Request.Builder()
+                                            .url(String.format("%s/seed/0.2", faucetUrl))
+                                            .get()
+                                            .build()),
+                            Challenge.class);
+            solution = new ProofOfWorkSolver(threads).solve(challenge.seed, challenge.difficulty);
+            body.addFormDataPart("seed", challenge.seed)
+                    .addFormDataPart("nonce", String.valueOf(solution.getNonce()));
+            url = String.format("%s/send", faucetUrl);
+        }
+        String response = execute(new Request.Builder().url(url).post(body.build()).build());
+        return new Result(
+                address, mapper.readValue(response, FundResult.class).result, solution, null);
+    }
+
+    private String execute(Request request) throws IOException, InterruptedException {
+        throttle();
+        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+            if (response.code() != 200) {
+                throw new IOException("The faucet request failed with code: " + response.code());
+            }
+            return response.body().string();
+        }
+    }
+
+    /** Waits for the next request slot allowed by the rate limit. */
+    private void throttle() throws InterruptedException {
+        if (requestIntervalNanos == 0) {
+            return;
+        }
+        long slot;
+        synchronized (this) {
+            slot = Math.max(nextRequestNanos, System.nanoTime());
+            nextRequestNanos = slot + requestIntervalNanos;
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static OkHttpClient createHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(64);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .writeTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /** Outcome of the funding of one address. */
+    public static class Result {
+        private final String address;
+        private final String transactionHash;
+        private final ProofOfWorkSolver.Solution solution;
+        private final String error;
+
+        Result(
+                String address,
+                String transactionHash,
+                ProofOfWorkSolver.Solution solution,
+                String error) {
+            this.address = address;
+            this.transactionHash = transactionHash;
+            this.solution = solution;
+            this.error = error;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        /** Hash of the funding transaction, null if the funding failed. */
+        public String getTransactionHash() {
+            return transactionHash;
+        }
+
+        /** Proof of work solved for the request, null when funded with a login token. */
+        public ProofOfWorkSolver.Solution getSolution() {
+            return solution;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    static class Challenge {
+        public int difficulty;
+        public String seed;
+    }
+
+    static class FundResult {
+        public String result;
+    }
+}
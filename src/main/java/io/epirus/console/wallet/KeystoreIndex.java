@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Index of the wallet files known to the CLI, mapping each address to its keystore file.
+ *
+ * <p>The index is updated whenever a wallet is created, imported or updated, so that wallets can be
+ * referred to by address and listed without scanning directories or parsing every keystore.
+ * Existing keystores are added by {@link #scan(File)}, which reads the address from the standard
+ * wallet file name.
+ */
+public class KeystoreIndex {
+
+    public static final Path DEFAULT_KEYSTORE_INDEX_PATH =
+            Paths.get(System.getProperty("user.home"), ".epirus", "keystore-index.json");
+
+    private static final Pattern WALLET_FILE_NAME =
+            Pattern.compile("^UTC--.*--([0-9a-fA-F]{40})(\\.json)?$");
+    private static final Type INDEX_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path indexPath;
+    private final Map<String, String> wallets;
+
+    private KeystoreIndex(Path indexPath, Map<String, String> wallets) {
+        this.indexPath = indexPath;
+        this.wallets = wallets;
+    }
+
+    public static KeystoreIndex load() throws IOException {
+        return load(DEFAULT_KEYSTORE_INDEX_PATH);
+    }
+
+    public static KeystoreIndex load(Path indexPath) throws IOException {
+        Map<String, String> wallets = new TreeMap<>();
+        if (indexPath.toFile().exists()) {
+            Map<String, String> contents =
+                    GSON.fromJson(
+                            new String(Files.readAllBytes(indexPath), StandardCharsets.UTF_8),
+                            INDEX_TYPE);
+            if (contents != null) {
+                wallets.putAll(contents);
+            }
+        }
+        return new KeystoreIndex(indexPath, wallets);
+    }
+
+    public boolean exists() {
+        return indexPath.toFile().exists();
+    }
+
+    public void add(String address, File walletFile) {
+        wallets.put(normalize(address), walletFile.getAbsolutePath());
+    }
+
+    public void remove(String address) {
+        wallets.remove(normalize(address));
+    }
+
+    /**
+     * Looks up the wallet file of an address.
+     *
+     * @param address hex address, with or without prefix, in any case
+     * @return the wallet file, if the address is indexed and its file still exists
+     */
+    public Optional<File> find(String address) {
+        return Optional.ofNullable(wallets.get(normalize(address)))
+                .map(File::new)
+                .filter(File::isFile);
+    }
+
+    /** Indexed addresses and their wallet files, sorted by address. */
+    public Map<String, File> list() {
+        Map<String, File> list = new TreeMap<>();
+        wallets.forEach((address, file) -> list.put(address, new File(file)));
+        return Collections.unmodifiableMap(list);
+    }
+
+    /**
+     * Adds the wallet files of a directory to the index.
+     *
+     * @param directory directory containing keystore files
+     * @return number of wallet files found
+     */
+    public int scan(File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            return 0;
+        }
+        int found = 0;
+        try (Stream<Path> files = Files.list(directory.toPath())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Optional<String> address = addressFromFileName(file.getFileName().toString());
+                if (address.isPresent() && Files.isRegularFile(file)) {
+                    add(address.get(), file.toFile());
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(indexPath.getParent());
+        Path temp = Files.createTempFile(indexPath.getParent(), "keystore-index", ".tmp");
+        Files.write(temp, GSON.toJson(wallets).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Extracts the address from a wallet file name in the standard format, as written by web3j and
+     * geth: {@code UTC--<timestamp>--<address>.json}.
+     */
+    public static Optional<String> addressFromFileName(String fileName) {
+        Matcher matcher = WALLET_FILE_NAME.matcher(fileName);
+        return matcher.matches() ? Optional.of(normalize(matcher.group(1))) : Optional.empty();
+    }
+
+    private static String normalize(String address) {
+        String lowerCase = address.toLowerCase(Locale.ROOT);
+        return lowerCase.startsWith("0x") ? lowerCase : "0x" + lowerCase;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.web3j.crypto.CipherException;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import org.web3j.protocol.ObjectMapperFactory;
+
+/**
+ * Re-encrypts many wallet files with a new password.
+ *
+ * <p>Files are processed in parallel, but scrypt is memory hard: a standard wallet needs 256 MB to
+ * decrypt or encrypt. Each file therefore reserves the scrypt memory it needs from a fixed budget
+ * before it is processed, so the number of files in progress adapts to their key derivation
+ * parameters. Every file keeps its name and key derivation strength, and is replaced atomically so
+ * that an interrupted rotation never leaves a truncated wallet behind.
+ */
+public class PasswordRotation {
+
+    /** Outcome of the rotation of a single file. */
+    public enum Status {
+        ROTATED,
+        WRONG_PASSWORD,
+        SKIPPED,
+        FAILED
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private static final int SCRYPT_R = 8;
+    private static final int STANDARD_N = 1 << 18;
+    private static final int STANDARD_P = 1;
+
+    private final String oldPassword;
+    private final String newPassword;
+    private final int threads;
+    private final int memoryBudgetKiB;
+
+    /**
+     * @param threads maximum number of files processed at the same time
+     * @param memoryBudgetBytes maximum scrypt memory used at the same time, a file needing more
+     *     than the whole budget is processed on its own
+     */
+    public PasswordRotation(
+            String oldPassword, String newPassword, int threads, long memoryBudgetBytes) {
+        this.oldPassword = oldPassword;
+        this.newPassword = newPassword;
+        this.threads = threads;
+        this.memoryBudgetKiB =
+                (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudgetBytes >> 10));
+    }
+
+    /** Half of the maximum heap, leaving room for the rest of the CLI. */
+    public static long defaultMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * Rotates the password of the given wallet files.
+     *
+     * @param walletFiles files to rotate, files which are not wallet files are skipped
+     * @param listener called from the calling thread as each file completes
+     * @return the outcome of every file, in completion order
+     */
+    public List<Outcome> rotate(List<File> walletFiles, Consumer<Outcome> listener)
+            throws InterruptedException {
+        Semaphore memory = new Semaphore(memoryBudgetKiB);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Outcome> outcomes = new ArrayList<>(walletFiles.size());
+        try {
+            CompletionService<Outcome> completionService =
+                    new ExecutorCompletionService<>(executor);
+            for (File walletFile : walletFiles) {
+                completionService.submit(() -> rotate(walletFile, memory));
+            }
+            for (int i = 0; i < walletFiles.size(); i++) {
+                Outcome outcome;
+                try {
+                    outcome = completionService.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+                outcomes.add(outcome);
+                listener.accept(outcome);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcomes;
+    }
+
+    private Outcome rotate(File file, Semaphore memory) throws InterruptedException {
+        long start = System.nanoTime();
+        WalletFile walletFile;
+        try {
+            walletFile = OBJECT_MAPPER.readValue(file, WalletFile.class);
+        } catch (IOException e) {
+            return new Outcome(file, Status.SKIPPED, null, "not a wallet file", start);
+        }
+        if (walletFile.getCrypto() == null) {
+            return new Outcome(file, Status.SKIPPED, null, "not a wallet file", start);
+        }
+
+        int n = STANDARD_N;
+        int p = STANDARD_P;
+        long decryptMemory = 0;
+        if (walletFile.getCrypto().getKdfparams() instanceof WalletFile.ScryptKdfParams) {
+            WalletFile.ScryptKdfParams params =
+                    (WalletFile.ScryptKdfParams) walletFile.getCrypto().getKdfparams();
+            n = params.getN();
+            p = params.getP();
+            decryptMemory = scryptMemory(n, params.getR());
+        }
+        int permits =
+                (int)
+                        Math.min(
+                                memoryBudgetKiB,
+                                Math.max(decryptMemory, scryptMemory(n, SCRYPT_R)) >> 10);
+
+        memory.acquire(permits);
+        try {
+            ECKeyPair keyPair = Wallet.decrypt(oldPassword, walletFile);
+            WalletFile rotated = Wallet.create(newPassword, keyPair, n, p);
+            replace(file.toPath(), rotated);
+            return new Outcome(file, Status.ROTATED, "0x" + Keys.getAddress(keyPair), null, start);
+        } catch (CipherException e) {
+            return new Outcome(file, Status.WRONG_PASSWORD, null, e.getMessage(), start);
+        } catch (IOException | RuntimeException e) {
+            return new Outcome(file, Status.FAILED, null, e.getMessage(), start);
+        } finally {
+            memory.release(permits);
+        }
+    }
+
+    private static void replace(Path target, WalletFile walletFile) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".rotate-", ".tmp");
+        try {
+            OBJECT_MAPPER.writeValue(temp.toFile(), walletFile);
+            Files.move(
+                    temp,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Bytes allocated by one scrypt derivation, dominated by its 128 * r * n lookup table. */
+    static long scryptMemory(int n, int r) {
+        return 128L * r * n;
+    }
+
+    /** Outcome of the rotation of a file. */
+    public static class Outcome {
+        private final File file;
+        private final Status status;
+        private final String address;
+        private final String error;
+        private final long elapsedNanos;
+
+        Outcome(File file, Status status, String address, String error, long startNanos) {
+            this.file = file;
+            this.status = status;
+            this.address = address;
+            this.error = error;
+            this.elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /** Address of the wallet, only known once it was decrypted. */
+        public String getAddress() {
+            return address;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
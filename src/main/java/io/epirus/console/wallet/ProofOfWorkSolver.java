@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves the proof of work requested by the testnet faucets: finding a nonce such that the hex
+ * encoded SHA-256 of the decimal nonce followed by the seed starts with a given number of zeros.
+ *
+ * <p>Nonces are handed out to the worker threads in chunks. Each worker reuses its own digest and
+ * buffers, increments the ASCII nonce in place and checks the leading zero nibbles on the raw
+ * digest, so the search loop does not allocate.
+ */
+public class ProofOfWorkSolver {
+
+    /** Number of nonces a worker claims at a time. */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /** Workers check whether the search is over at least this often. */
+    private static final int CANCELLATION_CHECK_INTERVAL = 1 << 12;
+
+    /** The faucets expect the nonce to fit into a signed 32 bit integer. */
+    private static final long MAX_NONCE = Integer.MAX_VALUE;
+
+    private final int threads;
+
+    public ProofOfWorkSolver(int threads) {
+        this.threads = threads;
+    }
+
+    public ProofOfWorkSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Searches for a nonce, blocking until one is found, the nonce range is exhausted or the
+     * calling thread is interrupted.
+     *
+     * @param seed seed provided by the faucet
+     * @param difficulty required number of leading zero hex digits
+     * @return the solution found
+     * @throws InterruptedException if interrupted while searching, which stops all the workers
+     * @throws IllegalStateException if no nonce satisfies the difficulty
+     */
+    public Solution solve(String seed, int difficulty) throws InterruptedException {
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong result = new AtomicLong(-1);
+        LongAdder hashes = new LongAdder();
+        long start = System.nanoTime();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker =
+                    new Thread(
+                            () -> {
+                                Search search = new Search(seed);
+                                long from;
+                                while (result.get() < 0
+                                        && (from = nextChunk.getAndAdd(CHUNK_SIZE)) < MAX_NONCE) {
+                                    long count = Math.min(CHUNK_SIZE, MAX_NONCE - from);
+                                    long nonce = search.scan(from, count, difficulty, result);
+                                    hashes.add(search.getHashes());
+                                    if (nonce >= 0) {
+                                        result.compareAndSet(-1, nonce);
+                                    }
+                                }
+                            },
+                            "proof-of-work-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } finally {
+            // Stops the remaining workers when interrupted
+            result.compareAndSet(-1, Long.MAX_VALUE);
+        }
+
+        if (result.get() == Long.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "No proof of work nonce found for difficulty " + difficulty);
+        }
+        return new Solution(result.get(), hashes.sum(), System.nanoTime() - start);
+    }
+
+    static boolean hasLeadingZeroNibbles(byte[] digest, int difficulty) {
+        int fullBytes = difficulty / 2;
+        for (int i = 0; i < fullBytes; i++) {
+            if (digest[i] != 0) {
+                return false;
+            }
+        }
+        return difficulty % 2 == 0 || (digest[fullBytes] & 0xF0) == 0;
+    }
+
+    /** Solved nonce together with the statistics of the search. */
+    public static class Solution {
+        private final long nonce;
+        private final long hashes;
+        private final long elapsedNanos;
+
+        Solution(long nonce, long hashes, long elapsedNanos) {
+            this.nonce = nonce;
+            this.hashes = hashes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getNonce() {
+            return nonce;
+        }
+
+        public long getHashes() {
+            return hashes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getHashesPerSecond() {
+            return elapsedNanos == 0 ? 0 : hashes * 1e9 / elapsedNanos;
+        }
+    }
+
+    /** Sequential search over a range of nonces, owned by a single thread. */
+    static class Search {
+        private static final int MAX_DIGITS = 19;
+
+        private final MessageDigest digest;
+        private final byte[] seed;
+        private final byte[] message;
+        private final byte[] hash;
+        private int digits;
+        private long hashes;
+
+        Search(String seed) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            this.seed = seed.getBytes(StandardCharsets.UTF_8);
+            this.message = new byte[MAX_DIGITS + this.seed.length];
+            this.hash = new byte[digest.getDigestLength()];
+        }
+
+        /**
+         * Hashes the nonces {@code from} to {@code from + count - 1}.
+         *
+         * @param from first nonce
+         * @param count number of nonces to try
+         * @param difficulty required number of leading zero hex digits
+         * @param result stops the search early once it holds a nonce
+         * @return the first nonce satisfying the difficulty, or -1
+         */
+        long scan(long from, long count, int difficulty, AtomicLong result) {
+            hashes = 0;
+            encode(from);
+            for (long nonce = from; nonce < from + count; nonce++) {
+                digest.update(message, 0, digits + seed.length);
+                try {
+                    digest.digest(hash, 0, hash.length);
+                } catch (DigestException e) {
+                    throw new IllegalStateException(e);
+                }
+                hashes++;
+                if (hasLeadingZeroNibbles(hash, difficulty)) {
+                    return nonce;
+                }
+                if ((hashes & (CANCELLATION_CHECK_INTERVAL - 1)) == 0 && result.get() >= 0) {
+                    return -1;
+                }
+                increment();
+            }
+            return -1;
+        }
+
+        long getHashes() {
+            return hashes;
+        }
+
+        private void encode(long nonce) {
+            String decimal = Long.toString(nonce);
+            digits = decimal.length();
+            for (int i = 0; i < digits; i++) {
+                message[i] = (byte) decimal.charAt(i);
+            }
+            System.arraycopy(seed, 0, message, digits, seed.length);
+        }
+
+        private void increment() {
+            int i = digits - 1;
+            while (i >= 0 && message[i] == '9') {
+                message[i--] = '0';
+            }
+            if (i >= 0) {
+                message[i]++;
+            } else {
+                // 99..9 rolled over to 100..0, one digit longer
+                System.arraycopy(message, 0, message, 1, digits + seed.length);
+                message[0] = '1';
+                digits++;
+            }
+        }
+    }
+}
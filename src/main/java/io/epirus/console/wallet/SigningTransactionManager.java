@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.core.methods.response.EthGetCode;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.tx.TransactionManager;
+import org.web3j.tx.exceptions.ContractCallException;
+import org.web3j.tx.response.TransactionReceiptProcessor;
+import org.web3j.utils.Numeric;
+
+/**
+ * Sends raw transactions signed by a {@link TransactionSigner}, like web3j's {@code
+ * RawTransactionManager} does with credentials. With a signer backed by the credential agent, the
+ * private key never leaves the agent.
+ */
+public class SigningTransactionManager extends TransactionManager {
+
+    private final Web3j web3j;
+    private final TransactionSigner signer;
+    private final long chainId;
+
+    public SigningTransactionManager(
+            Web3j web3j,
+            TransactionSigner signer,
+            long chainId,
+            TransactionReceiptProcessor transactionReceiptProcessor) {
+        super(transactionReceiptProcessor, signer.getAddress());
+        this.web3j = web3j;
+        this.signer = signer;
+        this.chainId = chainId;
+    }
+
+    @Override
+    public EthSendTransaction sendTransaction(
+            BigInteger gasPrice,
+            BigInteger gasLimit,
+            String to,
+            String data,
+            BigInteger value,
+            boolean constructor)
+            throws IOException {
+        return signAndSend(
+                RawTransaction.createTransaction(getNonce(), gasPrice, gasLimit, to, value, data));
+    }
+
+    @Override
+    public EthSendTransaction sendTransactionEIP1559(
+            BigInteger gasPremium,
+            BigInteger feeCap,
+            BigInteger gasLimit,
+            String to,
+            String data,
+            BigInteger value,
+            boolean constructor)
+            throws IOException {
+        return signAndSend(
+                RawTransaction.createTransaction(
+                        getNonce(), null, gasLimit, to, value, data, gasPremium, feeCap));
+    }
+
+    @Override
+    public String sendCall(String to, String data, DefaultBlockParameter defaultBlockParameter)
+            throws IOException {
+        EthCall ethCall =
+                web3j.ethCall(
+                                Transaction.createEthCallTransaction(getFromAddress(), to, data),
+                                defaultBlockParameter)
+                        .send();
+        if (ethCall.isReverted()) {
+            throw new ContractCallException(
+                    String.format(REVERT_ERR_STR, ethCall.getRevertReason()));
+        }
+        return ethCall.getValue();
+    }
+
+    @Override
+    public EthGetCode getCode(String contractAddress, DefaultBlockParameter defaultBlockParameter)
+            throws IOException {
+        return web3j.ethGetCode(contractAddress, defaultBlockParameter).send();
+    }
+
+    public EthSendTransaction signAndSend(RawTransaction transaction) throws IOException {
+        String signed = Numeric.toHexString(signer.sign(transaction, chainId));
+        return web3j.ethSendRawTransaction(signed).send();
+    }
+
+    private BigInteger getNonce() throws IOException {
+        EthGetTransactionCount transactionCount =
+                web3j.ethGetTransactionCount(getFromAddress(), DefaultBlockParameterName.PENDING)
+                        .send();
+        if (transactionCount.hasError()) {
+            throw new IOException(
+                    "Unable to get the nonce: " + transactionCount.getError().getMessage());
+        }
+        return transactionCount.getTransactionCount();
+    }
+}
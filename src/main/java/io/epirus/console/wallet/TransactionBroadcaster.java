@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import io.epirus.console.wallet.BatchTransfer.Result;
+import io.epirus.console.wallet.BatchTransfer.SignedTransfer;
+import io.epirus.console.wallet.BatchTransfer.Status;
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Submits signed transactions of a single sender in nonce order, with a bounded number of {@code
+ * eth_sendRawTransaction} calls in flight, and awaits their receipts concurrently.
+ *
+ * <p>A transaction the node already knows is awaited like a newly submitted one, so that an
+ * interrupted broadcast can simply be submitted again. This includes transactions rejected for a
+ * nonce that is too low, as long as the node knows their hash, since they were mined after being
+ * submitted by the interrupted broadcast.
+ */
+public class TransactionBroadcaster {
+
+    private final Web3j web3j;
+    private final int concurrency;
+    private final ReceiptAwaiter receiptAwaiter;
+
+    public TransactionBroadcaster(Web3j web3j, int concurrency, ReceiptAwaiter receiptAwaiter) {
+        this.web3j = web3j;
+        this.concurrency = concurrency;
+        this.receiptAwaiter = receiptAwaiter;
+    }
+
+    /**
+     * Submits the signed transactions in the given order and waits for all of them to be confirmed.
+     *
+     * <p>A transaction rejected by the node leaves a gap in the nonces which blocks every later
+     * transaction, so no further transactions are submitted after a rejection.
+     *
+     * @param transfers signed transactions, in nonce order
+     * @param listener called once per transaction as soon as its outcome is known, from any thread
+     */
+    public void broadcast(List<SignedTransfer> transfers, Consumer<Result> listener)
+            throws InterruptedException {
+        CountDownLatch remaining = new CountDownLatch(transfers.size());
+        Consumer<Result> report =
+                result -> {
+                    listener.accept(result);
+                    remaining.countDown();
+                };
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicBoolean rejected = new AtomicBoolean();
+        for (SignedTransfer transfer : transfers) {
+            permits.acquire();
+            if (rejected.get()) {
+                permits.release();
+                report.accept(
+                        new Result(transfer, Status.NOT_SENT, null, "earlier transfer failed"));
+                continue;
+            }
+            submit(transfer)
+                    .whenComplete(
+                            (rejection, error) -> {
+                                String failure = error != null ? error.getMessage() : rejection;
+                                if (failure != null) {
+                                    rejected.set(true);
+                                    report.accept(
+                                            new Result(transfer, Status.FAILED, null, failure));
+                                } else {
+                                    receiptAwaiter
+                                            .await(transfer.getTransactionHash())
+                                            .whenComplete(
+                                                    (receipt, receiptError) ->
+                                                            report.accept(
+                                                                    result(
+                                                                            transfer,
+                                                                            receipt,
+                                                                            receiptError)));
+                                }
+                                // Only released once a rejection is visible to the loop
+                                permits.release();
+                            });
+        }
+        remaining.await();
+    }
+
+    /**
+     * Submits a transaction, completing with the reason the node rejected it or {@code null} once
+     * the node has it.
+     */
+    private CompletableFuture<String> submit(SignedTransfer transfer) {
+        return web3j.ethSendRawTransaction(transfer.getSignedTransaction())
+                .sendAsync()
+                .thenCompose(
+                        response -> {
+                            if (!response.hasError() || isKnown(response.getError().getMessage())) {
+                                return CompletableFuture.completedFuture(null);
+                            }
+                            String failure = response.getError().getMessage();
+                            if (!isNonceTooLow(failure)) {
+                                return CompletableFuture.completedFuture(failure);
+                            }
+                            // The nonce is used up, by this very transaction if it was mined
+                            // since an earlier run submitted it
+                            return web3j.ethGetTransactionByHash(transfer.getTransactionHash())
+                                    .sendAsync()
+                                    .thenApply(
+                                            lookup ->
+                                                    !lookup.hasError()
+                                                                    && lookup.getTransaction()
+                                                                            .isPresent()
+                                                            ? null
+                                                            : failure);
+                        });
+    }
+
+    /** Whether a submission error only means the node already has the transaction. */
+    static boolean isKnown(String error) {
+        String message = String.valueOf(error).toLowerCase();
+        return message.contains("already known") || message.contains("known transaction");
+    }
+
+    /** Whether a submission error means the nonce of the transaction has already been used. */
+    static boolean isNonceTooLow(String error) {
+        String message = String.valueOf(error).toLowerCase();
+        return message.contains("nonce too low") || message.contains("nonce is too low");
+    }
+
+    private static Result result(
+            SignedTransfer transfer, TransactionReceipt receipt, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            return new Result(
+                    transfer,
+                    cause instanceof TimeoutException ? Status.TIMED_OUT : Status.FAILED,
+                    null,
+                    cause.getMessage());
+        }
+        return new Result(
+                transfer, receipt.isStatusOK() ? Status.CONFIRMED : Status.REVERTED, receipt, null);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.IOException;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.tx.ChainIdLong;
+
+/**
+ * Signs transactions for a single account, either with credentials loaded in the CLI or through the
+ * credential agent holding them.
+ */
+public interface TransactionSigner {
+
+    String getAddress();
+
+    /**
+     * Signs a transaction.
+     *
+     * @param transaction transaction to sign
+     * @param chainId chain id for replay protection, or {@link ChainIdLong#NONE} for a legacy
+     *     signature
+     * @return encoded signed transaction
+     */
+    byte[] sign(RawTransaction transaction, long chainId) throws IOException;
+
+    /** Signs with credentials loaded in the CLI. */
+    static TransactionSigner of(Credentials credentials) {
+        return new TransactionSigner() {
+            @Override
+            public String getAddress() {
+                return credentials.getAddress();
+            }
+
+            @Override
+            public byte[] sign(RawTransaction transaction, long chainId) {
+                return chainId > ChainIdLong.NONE
+                        ? TransactionEncoder.signMessage(transaction, chainId, credentials)
+                        : TransactionEncoder.signMessage(transaction, credentials);
+            }
+        };
+    }
+}
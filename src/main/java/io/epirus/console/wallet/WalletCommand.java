@@ -14,9 +14,12 @@ package io.epirus.console.wallet;
 
 import io.epirus.console.EpirusVersionProvider;
 import io.epirus.console.SubCommand;
+import io.epirus.console.wallet.agent.AgentCommand;
+import io.epirus.console.wallet.subcommands.WalletBalanceCommand;
 import io.epirus.console.wallet.subcommands.WalletCreateCommand;
 import io.epirus.console.wallet.subcommands.WalletFundCommand;
 import io.epirus.console.wallet.subcommands.WalletImportCommand;
+import io.epirus.console.wallet.subcommands.WalletListCommand;
 import io.epirus.console.wallet.subcommands.WalletSendCommand;
 import io.epirus.console.wallet.subcommands.WalletUpdateCommand;
 import picocli.CommandLine.Command;
@@ -33,7 +36,10 @@ import picocli.CommandLine.Command;
             WalletUpdateCommand.class,
             WalletSendCommand.class,
             WalletImportCommand.class,
-            WalletFundCommand.class
+            WalletFundCommand.class,
+            WalletListCommand.class,
+            WalletBalanceCommand.class,
+            AgentCommand.class
         },
         versionProvider = EpirusVersionProvider.class,
         synopsisHeading = "%n",
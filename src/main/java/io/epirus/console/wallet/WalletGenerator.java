@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+import com.google.gson.GsonBuilder;
+
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.utils.Numeric;
+
+/**
+ * Generates many wallet files at once, for example test accounts for load tests.
+ *
+ * <p>Key generation and encryption run in parallel. Each generated wallet is recorded in an address
+ * index written next to the wallet files, as CSV unless the index file name ends with {@code
+ * .json}.
+ */
+public class WalletGenerator {
+
+    public static final String DEFAULT_INDEX_FILE_NAME = "addresses.csv";
+
+    /** Strength of the scrypt key derivation used to encrypt the wallet files. */
+    public enum Kdf {
+        /** Scrypt with n = 2^12, p = 6, fast enough for throwaway test accounts. */
+        LIGHT,
+        /** Scrypt with n = 2^18, p = 1, as used for regular wallets. */
+        STANDARD
+    }
+
+    private final File destination;
+    private final String password;
+    private final Kdf kdf;
+    private final int threads;
+
+    public WalletGenerator(File destination, String password, Kdf kdf, int threads) {
+        this.destination = destination;
+        this.password = password;
+        this.kdf = kdf;
+        this.threads = threads;
+    }
+
+    /**
+     * Generates the wallet files and writes their index.
+     *
+     * @param count number of wallets to generate, at least 1
+     * @param index file the address index is written to
+     * @param progress called with the number of wallets generated so far, from the calling thread
+     * @return the generated wallets, in completion order
+     */
+    public List<GeneratedWallet> generate(int count, File index, IntConsumer progress)
+            throws Exception {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<GeneratedWallet> wallets = new ArrayList<>(count);
+        try {
+            CompletionService<GeneratedWallet> completionService =
+                    new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < count; i++) {
+                completionService.submit(this::generate);
+            }
+            for (int i = 0; i < count; i++) {
+                wallets.add(completionService.take().get());
+                progress.accept(wallets.size());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+        writeIndex(wallets, index);
+        return wallets;
+    }
+
+    private GeneratedWallet generate() throws Exception {
+        ECKeyPair keyPair = Keys.createEcKeyPair();
+        String fileName =
+                WalletUtils.generateWalletFile(password, keyPair, destination, kdf == Kdf.STANDARD);
+        return new GeneratedWallet(Numeric.prependHexPrefix(Keys.getAddress(keyPair)), fileName);
+    }
+
+    static void writeIndex(List<GeneratedWallet> wallets, File index) throws IOException {
+        if (index.getName().endsWith(".json")) {
+            Files.write(
+                    index.toPath(),
+                    new GsonBuilder()
+                            .setPrettyPrinting()
+                            .create()
+                            .toJson(wallets)
+                            .getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        try (PrintWriter writer = new PrintWriter(index, StandardCharsets.UTF_8.name())) {
+            writer.println("address,file");
+            for (GeneratedWallet wallet : wallets) {
+                writer.println(wallet.getAddress() + "," + wallet.getFile());
+            }
+        }
+    }
+
+    public static class GeneratedWallet {
+        private final String address;
+        private final String file;
+
+        public GeneratedWallet(String address, String file) {
+            this.address = address;
+            this.file = file;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public String getFile() {
+            return file;
+        }
+    }
+}
@@ -15,9 +15,13 @@ package io.epirus.console.wallet;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 
 import io.epirus.console.utils.ConsoleDevice;
 import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.agent.AgentTransactionSigner;
 
 import org.web3j.crypto.CipherException;
 import org.web3j.crypto.Credentials;
@@ -46,6 +50,10 @@ public abstract class WalletManager {
         console.printf(message, args);
     }
 
+    protected String requestPassword(String prompt) {
+        return new String(console.readPassword(prompt));
+    }
+
     protected String getPassword(String initialPrompt) {
         while (true) {
             char[] input1 = console.readPassword(initialPrompt);
@@ -91,6 +99,44 @@ public abstract class WalletManager {
         return destination;
     }
 
+    /**
+     * Resolves the wallet file to use, either from its path or by looking its address up in the
+     * {@link KeystoreIndex}.
+     */
+    protected File resolveWalletFile(String walletFileLocation, String address) {
+        if (address == null) {
+            if (walletFileLocation == null) {
+                exitError("Please specify a wallet file or its address");
+            }
+            return new File(walletFileLocation);
+        }
+        try {
+            Optional<File> walletFile = KeystoreIndex.load().find(address);
+            if (walletFile.isPresent()) {
+                return walletFile.get();
+            }
+        } catch (IOException e) {
+            exitError("Unable to read the keystore index: " + e.getMessage());
+        }
+        exitError("No wallet file found for address " + address + ", see: epirus wallet list");
+        throw new RuntimeException("Application exit failure");
+    }
+
+    /** Adds new wallet files to the {@link KeystoreIndex}, keyed by address. */
+    protected void recordWallets(Map<String, File> walletFiles) {
+        try {
+            KeystoreIndex index = KeystoreIndex.load();
+            walletFiles.forEach(index::add);
+            index.save();
+        } catch (IOException e) {
+            console.printf("Unable to update the keystore index: %s%n", e.getMessage());
+        }
+    }
+
+    protected void recordWallet(String address, File walletFile) {
+        recordWallets(Collections.singletonMap(address, walletFile));
+    }
+
     protected Credentials getCredentials(File walletFile) {
         if (!walletFile.exists() || !walletFile.isFile()) {
             exitError("Unable to read wallet file: " + walletFile);
@@ -98,6 +144,22 @@ public abstract class WalletManager {
         return loadWalletFile(walletFile);
     }
 
+    /**
+     * Signs through the credential agent when the wallet was added to it, and otherwise with the
+     * decrypted wallet file.
+     */
+    protected TransactionSigner getSigner(File walletFile) {
+        if (!walletFile.exists() || !walletFile.isFile()) {
+            exitError("Unable to read wallet file: " + walletFile);
+        }
+        Optional<TransactionSigner> agentSigner = AgentTransactionSigner.forWallet(walletFile);
+        if (agentSigner.isPresent()) {
+            notify("Signing with the credential agent%n");
+            return agentSigner.get();
+        }
+        return TransactionSigner.of(loadWalletFile(walletFile));
+    }
+
     private Credentials loadWalletFile(File walletFile) {
         while (true) {
             char[] password =
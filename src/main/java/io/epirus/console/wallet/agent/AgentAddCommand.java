@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.WalletManager;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "add",
+        description = "Decrypt a wallet once and let the credential agent sign with it",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class AgentAddCommand extends WalletManager implements Runnable {
+
+    @Parameters(
+            index = "0",
+            paramLabel = "wallet-path",
+            description = "Path/filename of the wallet file",
+            arity = "0..1")
+    String walletFileLocation;
+
+    @Option(
+            names = {"-a", "--address"},
+            description = "Address of an indexed wallet, instead of the wallet file path.")
+    String address;
+
+    public AgentAddCommand() {
+        super();
+    }
+
+    public AgentAddCommand(IODevice console) {
+        super(console);
+    }
+
+    @Override
+    public void run() {
+        CredentialAgentClient client = AgentCommand.runningAgent();
+        File walletFile = resolveWalletFile(walletFileLocation, address);
+        if (!walletFile.isFile()) {
+            exitError("Unable to read wallet file: " + walletFile);
+        }
+        while (true) {
+            String password = requestPassword("Please enter your existing wallet file password: ");
+            try {
+                notify(
+                        "Wallet for address %s added to the agent%n",
+                        client.add(walletFile, password));
+                return;
+            } catch (IOException e) {
+                if (!client.isAlive()) {
+                    exitError("Credential agent stopped: " + e.getMessage());
+                }
+                notify("%s%n", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import io.epirus.console.EpirusVersionProvider;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "start",
+        description = "Start a credential agent in the foreground",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class AgentStartCommand implements Runnable {
+
+    @Option(
+            names = {"--ttl"},
+            paramLabel = "minutes",
+            description = "How long decrypted wallets are kept in memory.")
+    int ttl = 15;
+
+    @Option(
+            names = {"--socket"},
+            description =
+                    "Socket to listen on, in a new directory or one only accessible to the "
+                            + "current user. Defaults to $EPIRUS_AGENT_SOCK or "
+                            + "~/.epirus/agent/agent.sock.")
+    Path socket;
+
+    @Override
+    public void run() {
+        if (ttl <= 0) {
+            exitError("The time to live must be positive");
+        }
+        Path socketPath = socket == null ? CredentialAgentClient.defaultSocketPath() : socket;
+        if (socketPath.toFile().exists() && new CredentialAgentClient(socketPath).isAlive()) {
+            exitError("A credential agent is already listening on " + socketPath);
+        }
+        System.out.printf(
+                "Credential agent listening on %s, wallets are kept for %d minutes%n",
+                socketPath, ttl);
+        if (socket != null) {
+            System.out.printf(
+                    "export %s=%s%n", CredentialAgentClient.SOCKET_ENV_VARIABLE, socketPath);
+        }
+        try {
+            new CredentialAgent(socketPath, TimeUnit.MINUTES.toMillis(ttl)).run();
+        } catch (IOException e) {
+            exitError("Credential agent failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.IOException;
+
+import io.epirus.console.EpirusVersionProvider;
+import picocli.CommandLine.Command;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "stop",
+        description = "Stop the credential agent, forgetting all wallets",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class AgentStopCommand implements Runnable {
+
+    @Override
+    public void run() {
+        try {
+            AgentCommand.runningAgent().stop();
+            System.out.println("Credential agent stopped");
+        } catch (IOException e) {
+            exitError("Unable to stop the credential agent: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Optional;
+
+import com.google.gson.JsonObject;
+import io.epirus.console.wallet.TransactionSigner;
+
+import org.web3j.crypto.RawTransaction;
+import org.web3j.tx.ChainIdLong;
+import org.web3j.utils.Numeric;
+
+/** Signs transactions inside the credential agent, which keeps the private key to itself. */
+public class AgentTransactionSigner implements TransactionSigner {
+
+    private final CredentialAgentClient client;
+    private final String address;
+
+    public AgentTransactionSigner(CredentialAgentClient client, String address) {
+        this.client = client;
+        this.address = address;
+    }
+
+    /**
+     * Signer for a wallet file added to the default agent with {@code epirus wallet agent add}.
+     *
+     * @return the signer, or empty if no agent is running or the wallet was not added to it
+     */
+    public static Optional<TransactionSigner> forWallet(File walletFile) {
+        return CredentialAgentClient.running()
+                .flatMap(
+                        client ->
+                                client.address(walletFile)
+                                        .map(
+                                                address ->
+                                                        new AgentTransactionSigner(
+                                                                client, address)));
+    }
+
+    @Override
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public byte[] sign(RawTransaction transaction, long chainId) throws IOException {
+        JsonObject fields = new JsonObject();
+        addQuantity(fields, "nonce", transaction.getNonce());
+        addQuantity(fields, "gasPrice", transaction.getGasPrice());
+        addQuantity(fields, "gasLimit", transaction.getGasLimit());
+        fields.addProperty("to", transaction.getTo());
+        addQuantity(fields, "value", transaction.getValue());
+        fields.addProperty("data", transaction.getData());
+        addQuantity(fields, "gasPremium", transaction.getGasPremium());
+        addQuantity(fields, "feeCap", transaction.getFeeCap());
+        return Numeric.hexStringToByteArray(
+                client.sign(address, fields, chainId > ChainIdLong.NONE ? chainId : null));
+    }
+
+    private static void addQuantity(JsonObject fields, String name, BigInteger value) {
+        if (value != null) {
+            fields.addProperty(name, Numeric.encodeQuantity(value));
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.utils.Numeric;
+
+/**
+ * Keeps decrypted wallet credentials in memory for a limited time, so that the key derivation of a
+ * wallet file is only paid once across CLI invocations.
+ *
+ * <p>The agent listens on a Unix socket only accessible to the current user. Each connection
+ * carries a single JSON request and response, one per line. Wallets are added by decrypting their
+ * file with a password, keyed by the canonical path of the file and forgotten once their time to
+ * live has passed. Like ssh-agent, the agent signs transactions on request but never hands out the
+ * private keys.
+ */
+public class CredentialAgent {
+
+    private static final long PURGE_INTERVAL_MILLIS = 10_000;
+    private static final Set<PosixFilePermission> PRIVATE_DIRECTORY =
+            PosixFilePermissions.fromString("rwx------");
+
+    private final Path socketPath;
+    private final long ttlMillis;
+    private final Gson gson = new Gson();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile UnixServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public CredentialAgent(Path socketPath, long ttlMillis) {
+        this.socketPath = socketPath;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /** Serves requests until {@link #stop()} is called or a stop request is received. */
+    public void run() throws IOException {
+        prepareDirectory(socketPath.toAbsolutePath().getParent());
+        Files.deleteIfExists(socketPath);
+
+        running = true;
+        serverChannel = UnixServerSocketChannel.open();
+        serverChannel.socket().bind(new UnixSocketAddress(socketPath.toFile()));
+        Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+
+        ExecutorService workers = Executors.newCachedThreadPool();
+        ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor();
+        purger.scheduleWithFixedDelay(
+                this::purge, PURGE_INTERVAL_MILLIS, PURGE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            while (running) {
+                UnixSocketChannel channel = serverChannel.accept();
+                if (channel == null) {
+                    continue;
+                }
+                if (running) {
+                    workers.submit(() -> serve(channel));
+                } else {
+                    channel.close();
+                }
+            }
+        } finally {
+            serverChannel.close();
+            workers.shutdownNow();
+            purger.shutdownNow();
+            entries.clear();
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Makes sure only the current user can reach the socket. A missing directory is created
+     * private, as is the agent's default directory. The permissions of any other directory are left
+     * alone, and the agent refuses to listen in it unless it is already private.
+     */
+    static void prepareDirectory(Path directory) throws IOException {
+        Path defaultDirectory = CredentialAgentClient.DEFAULT_SOCKET_PATH.getParent();
+        if (!Files.exists(directory) || directory.equals(defaultDirectory)) {
+            Files.createDirectories(directory);
+            Files.setPosixFilePermissions(directory, PRIVATE_DIRECTORY);
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+        if (!PRIVATE_DIRECTORY.containsAll(permissions)) {
+            throw new IOException(
+                    String.format(
+                            "%s is accessible to other users (%s), use a private directory "
+                                    + "for the agent socket",
+                            directory, PosixFilePermissions.toString(permissions)));
+        }
+    }
+
+    public void stop() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // A blocked native accept is not interrupted by closing the channel, wake it up instead
+        UnixSocketChannel.open(new UnixSocketAddress(socketPath.toFile())).close();
+    }
+
+    private void serve(UnixSocketChannel channel) {
+        try (UnixSocketChannel connection = channel;
+                BufferedReader reader =
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        connection.socket().getInputStream(),
+                                        StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            JsonObject response;
+            try {
+                response = handle(gson.fromJson(line, JsonObject.class));
+            } catch (Exception e) {
+                response = new JsonObject();
+                response.addProperty("error", String.valueOf(e.getMessage()));
+            }
+            OutputStream outputStream = connection.socket().getOutputStream();
+            outputStream.write((gson.toJson(response) + "\n").getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            if (response.has("stopping")) {
+                stop();
+            }
+        } catch (IOException e) {
+            // The client went away, nothing to answer
+        }
+    }
+
+    JsonObject handle(JsonObject request) throws Exception {
+        purge();
+        JsonObject response = new JsonObject();
+        String method = request.get("method").getAsString();
+        switch (method) {
+            case "add":
+                {
+                    String file = canonicalPath(request.get("file").getAsString());
+                    Credentials credentials =
+                            WalletUtils.loadCredentials(
+                                    request.get("password").getAsString(), file);
+                    entries.put(
+                            file, new Entry(credentials, System.currentTimeMillis() + ttlMillis));
+                    response.addProperty("address", credentials.getAddress());
+                    return response;
+                }
+            case "find":
+                response.addProperty("address", find(request).credentials.getAddress());
+                return response;
+            case "sign":
+                {
+                    Entry entry = find(request);
+                    RawTransaction transaction =
+                            gson.fromJson(request.get("transaction"), TransactionRequest.class)
+                                    .toRawTransaction();
+                    byte[] signed =
+                            request.has("chainId")
+                                    ? TransactionEncoder.signMessage(
+                                            transaction,
+                                            request.get("chainId").getAsLong(),
+                                            entry.credentials)
+                                    : TransactionEncoder.signMessage(
+                                            transaction, entry.credentials);
+                    response.addProperty("signedTransaction", Numeric.toHexString(signed));
+                    return response;
+                }
+            case "list":
+                {
+                    JsonArray wallets = new JsonArray();
+                    entries.forEach(
+                            (file, entry) -> {
+                                JsonObject wallet = new JsonObject();
+                                wallet.addProperty("file", file);
+                                wallet.addProperty("address", entry.credentials.getAddress());
+                                wallet.addProperty(
+                                        "expiresInSeconds",
+                                        (entry.expiresAt - System.currentTimeMillis()) / 1000);
+                                wallets.add(wallet);
+                            });
+                    response.add("wallets", wallets);
+                    return response;
+                }
+            case "remove":
+                entries.remove(key(request));
+                return response;
+            case "stop":
+                response.addProperty("stopping", true);
+                return response;
+            default:
+                throw new IllegalArgumentException("Unknown method: " + method);
+        }
+    }
+
+    private Entry find(JsonObject request) throws IOException {
+        Entry entry = entries.get(key(request));
+        if (entry == null) {
+            throw new IllegalArgumentException("Wallet not loaded in the agent");
+        }
+        return entry;
+    }
+
+    private String key(JsonObject request) throws IOException {
+        if (request.has("file")) {
+            String file = canonicalPath(request.get("file").getAsString());
+            if (entries.containsKey(file)) {
+                return file;
+            }
+        } else if (request.has("address")) {
+            String address = Numeric.prependHexPrefix(request.get("address").getAsString());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().credentials.getAddress().equalsIgnoreCase(address)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        throw new IllegalArgumentException("Wallet not loaded in the agent");
+    }
+
+    private void purge() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    static String canonicalPath(String file) throws IOException {
+        return new File(file).getCanonicalPath();
+    }
+
+    private static class Entry {
+        private final Credentials credentials;
+        private final long expiresAt;
+
+        private Entry(Credentials credentials, long expiresAt) {
+            this.credentials = credentials;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Fields of a transaction to sign, as hex quantities. */
+    static class TransactionRequest {
+        String nonce;
+        String gasPrice;
+        String gasLimit;
+        String to;
+        String value;
+        String data;
+        String gasPremium;
+        String feeCap;
+
+        RawTransaction toRawTransaction() {
+            if (gasPremium != null || feeCap != null) {
+                return RawTransaction.createTransaction(
+                        quantity(nonce),
+                        null,
+                        quantity(gasLimit),
+                        to == null ? "" : to,
+                        quantity(value),
+                        data == null ? "" : data,
+                        quantity(gasPremium),
+                        quantity(feeCap));
+            }
+            return RawTransaction.createTransaction(
+                    quantity(nonce),
+                    quantity(gasPrice),
+                    quantity(gasLimit),
+                    to == null ? "" : to,
+                    quantity(value),
+                    data == null ? "" : data);
+        }
+
+        private static BigInteger quantity(String value) {
+            return value == null ? BigInteger.ZERO : Numeric.decodeQuantity(value);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/** Talks to a running {@link CredentialAgent} over its Unix socket. */
+public class CredentialAgentClient {
+
+    public static final String SOCKET_ENV_VARIABLE = "EPIRUS_AGENT_SOCK";
+
+    public static final Path DEFAULT_SOCKET_PATH =
+            Paths.get(System.getProperty("user.home"), ".epirus", "agent", "agent.sock");
+
+    private final Path socketPath;
+    private final Gson gson = new Gson();
+
+    public CredentialAgentClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Location of the agent socket, taken from {@value #SOCKET_ENV_VARIABLE} when set and otherwise
+     * {@link #DEFAULT_SOCKET_PATH}.
+     */
+    public static Path defaultSocketPath() {
+        String socket = System.getenv(SOCKET_ENV_VARIABLE);
+        if (socket != null && !socket.isEmpty()) {
+            return Paths.get(socket);
+        }
+        return DEFAULT_SOCKET_PATH;
+    }
+
+    /** Client for the default agent, empty when no agent is running. */
+    public static Optional<CredentialAgentClient> running() {
+        Path socketPath = defaultSocketPath();
+        return socketPath.toFile().exists()
+                ? Optional.of(new CredentialAgentClient(socketPath))
+                : Optional.empty();
+    }
+
+    /** Whether an agent answers on the socket, as opposed to a stale socket file. */
+    public boolean isAlive() {
+        try {
+            list();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Address of a wallet file held by the agent, empty if the agent does not hold it. */
+    public Optional<String> address(File walletFile) {
+        JsonObject request = request("find");
+        request.addProperty("file", walletFile.getAbsolutePath());
+        try {
+            return Optional.of(call(request).get("address").getAsString());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String add(File walletFile, String password) throws IOException {
+        JsonObject request = request("add");
+        request.addProperty("file", walletFile.getAbsolutePath());
+        request.addProperty("password", password);
+        return call(request).get("address").getAsString();
+    }
+
+    /**
+     * Signs a transaction with a wallet held by the agent, without the private key leaving it.
+     *
+     * @param address address of the signing wallet
+     * @param transaction transaction fields as hex quantities: nonce, gasPrice, gasLimit, to, value
+     *     and data, or gasPremium and feeCap instead of gasPrice
+     * @param chainId chain id for replay protection, or null for a legacy signature
+     * @return hex encoded signed transaction
+     */
+    public String sign(String address, JsonObject transaction, Long chainId) throws IOException {
+        JsonObject request = request("sign");
+        request.addProperty("address", address);
+        request.add("transaction", transaction);
+        if (chainId != null) {
+            request.addProperty("chainId", chainId);
+        }
+        return call(request).get("signedTransaction").getAsString();
+    }
+
+    public JsonObject list() throws IOException {
+        return call(request("list"));
+    }
+
+    public void remove(String address) throws IOException {
+        JsonObject request = request("remove");
+        request.addProperty("address", address);
+        call(request);
+    }
+
+    public void stop() throws IOException {
+        call(request("stop"));
+    }
+
+    private JsonObject request(String method) {
+        JsonObject request = new JsonObject();
+        request.addProperty("method", method);
+        return request;
+    }
+
+    private JsonObject call(JsonObject request) throws IOException {
+        try (UnixSocketChannel channel =
+                UnixSocketChannel.open(new UnixSocketAddress(socketPath.toFile()))) {
+            OutputStream outputStream = channel.socket().getOutputStream();
+            outputStream.write((gson.toJson(request) + "\n").getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            String line =
+                    new BufferedReader(
+                                    new InputStreamReader(
+                                            channel.socket().getInputStream(),
+                                            StandardCharsets.UTF_8))
+                            .readLine();
+            if (line == null) {
+                throw new IOException("No response from the credential agent");
+            }
+            JsonObject response = gson.fromJson(line, JsonObject.class);
+            if (response.has("error")) {
+                throw new IOException(response.get("error").getAsString());
+            }
+            return response;
+        }
+    }
+}
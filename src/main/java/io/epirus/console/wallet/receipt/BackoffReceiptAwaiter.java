@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.web3j.protocol.Web3j;
+
+/**
+ * Polls every transaction independently, doubling the interval after each miss up to a maximum.
+ * Each interval is randomly shortened by up to half, so that transactions submitted together do not
+ * all hit the node at the same moment.
+ */
+class BackoffReceiptAwaiter extends ReceiptAwaiter {
+
+    static final long INITIAL_DELAY_MILLIS = 250;
+    static final long MAX_DELAY_MILLIS = 8000;
+
+    BackoffReceiptAwaiter(Web3j web3j, int confirmations, long timeoutMillis) {
+        super(web3j, confirmations, timeoutMillis);
+    }
+
+    @Override
+    protected void onAwait(Waiting entry) {
+        schedule(entry, INITIAL_DELAY_MILLIS);
+    }
+
+    private void schedule(Waiting entry, long delayMillis) {
+        long jittered = delayMillis / 2 + ThreadLocalRandom.current().nextLong(delayMillis / 2 + 1);
+        scheduler.schedule(() -> check(entry, delayMillis), jittered, TimeUnit.MILLISECONDS);
+    }
+
+    private void check(Waiting entry, long delayMillis) {
+        if (expire(entry)) {
+            return;
+        }
+        receipt(entry.transactionHash)
+                .thenCompose(
+                        receipt -> {
+                            if (!receipt.isPresent()) {
+                                return CompletableFuture.completedFuture(false);
+                            }
+                            if (!requiresBlockNumber()) {
+                                return CompletableFuture.completedFuture(
+                                        offer(entry, receipt.get(), null));
+                            }
+                            return blockNumber()
+                                    .thenApply(head -> offer(entry, receipt.get(), head));
+                        })
+                .whenComplete(
+                        (done, error) -> {
+                            if (!Boolean.TRUE.equals(done) && !scheduler.isShutdown()) {
+                                schedule(entry, Math.min(delayMillis * 2, MAX_DELAY_MILLIS));
+                            }
+                        });
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Block driven like {@link BlockReceiptAwaiter}, but asks for all pending receipts in JSON-RPC
+ * batches, so that hundreds of pending transactions cost a single round trip per block.
+ */
+class BatchReceiptAwaiter extends BlockReceiptAwaiter {
+
+    static final int MAX_BATCH_SIZE = 100;
+
+    BatchReceiptAwaiter(Web3j web3j, int confirmations, long timeoutMillis) {
+        super(web3j, confirmations, timeoutMillis);
+    }
+
+    @Override
+    protected CompletableFuture<Void> check(List<Waiting> entries, BigInteger head) {
+        CompletableFuture<?>[] batches =
+                new CompletableFuture<?>[(entries.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE];
+        for (int i = 0; i < batches.length; i++) {
+            List<Waiting> chunk =
+                    entries.subList(
+                            i * MAX_BATCH_SIZE, Math.min(entries.size(), (i + 1) * MAX_BATCH_SIZE));
+            BatchRequest batch = web3j.newBatch();
+            chunk.forEach(
+                    entry -> batch.add(web3j.ethGetTransactionReceipt(entry.transactionHash)));
+            getStats().roundTrip("eth_getTransactionReceipt", chunk.size());
+            batches[i] =
+                    batch.sendAsync()
+                            .whenComplete(
+                                    (response, error) -> {
+                                        if (error != null) {
+                                            chunk.forEach(this::expire);
+                                            return;
+                                        }
+                                        // Batch responses are not guaranteed to keep the order of
+                                        // the requests, match them by transaction hash instead
+                                        for (Response<?> result : response.getResponses()) {
+                                            EthGetTransactionReceipt receipt =
+                                                    (EthGetTransactionReceipt) result;
+                                            if (!receipt.hasError()
+                                                    && receipt.getTransactionReceipt()
+                                                            .isPresent()) {
+                                                TransactionReceipt transactionReceipt =
+                                                        receipt.getTransactionReceipt().get();
+                                                Waiting entry =
+                                                        waiting.get(
+                                                                transactionReceipt
+                                                                        .getTransactionHash());
+                                                if (entry != null) {
+                                                    offer(entry, transactionReceipt, head);
+                                                }
+                                            }
+                                        }
+                                        chunk.forEach(this::expire);
+                                    });
+        }
+        return CompletableFuture.allOf(batches);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.web3j.protocol.Web3j;
+
+/**
+ * Only asks for receipts when the chain head moves, since a receipt cannot appear or gain a
+ * confirmation otherwise. While transactions are pending a single cheap {@code eth_blockNumber}
+ * call is made per interval, instead of one receipt request per transaction.
+ *
+ * <p>Transactions are checked once as soon as they are awaited, whatever the head, since they may
+ * have been mined in the block the awaiter last saw. Dev chains sealing a block per transaction
+ * would otherwise never move the head for the last transactions of a batch.
+ */
+class BlockReceiptAwaiter extends ReceiptAwaiter {
+
+    static final long HEAD_POLL_INTERVAL_MILLIS = 1000;
+
+    private final Set<Waiting> unchecked = ConcurrentHashMap.newKeySet();
+    private BigInteger lastHead = BigInteger.valueOf(-1);
+
+    BlockReceiptAwaiter(Web3j web3j, int confirmations, long timeoutMillis) {
+        super(web3j, confirmations, timeoutMillis);
+        scheduler.scheduleWithFixedDelay(
+                this::tick,
+                HEAD_POLL_INTERVAL_MILLIS,
+                HEAD_POLL_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void onAwait(Waiting entry) {
+        unchecked.add(entry);
+    }
+
+    private void tick() {
+        if (waiting.isEmpty()) {
+            return;
+        }
+        try {
+            BigInteger head = blockNumber().join();
+            List<Waiting> entries = new ArrayList<>(waiting.values());
+            if (head.equals(lastHead)) {
+                List<Waiting> fresh = new ArrayList<>();
+                for (Waiting entry : entries) {
+                    if (unchecked.contains(entry)) {
+                        fresh.add(entry);
+                    } else {
+                        expire(entry);
+                    }
+                }
+                entries = fresh;
+            }
+            lastHead = head;
+            if (!entries.isEmpty()) {
+                check(entries, head).join();
+                unchecked.removeAll(entries);
+            }
+        } catch (RuntimeException e) {
+            // Retried on the next tick, the node may be temporarily unavailable, but without
+            // holding up the timeout of the transactions for as long as it is
+            new ArrayList<>(waiting.values()).forEach(this::expire);
+        }
+    }
+
+    /** Checks the receipts of the pending transactions once the head moved to a new block. */
+    protected CompletableFuture<Void> check(List<Waiting> entries, BigInteger head) {
+        return CompletableFuture.allOf(
+                entries.stream()
+                        .map(
+                                entry ->
+                                        receipt(entry.transactionHash)
+                                                .thenAccept(
+                                                        receipt -> {
+                                                            if (receipt.isPresent()) {
+                                                                offer(entry, receipt.get(), head);
+                                                            } else {
+                                                                expire(entry);
+                                                            }
+                                                        }))
+                        .toArray(CompletableFuture[]::new));
+    }
+}
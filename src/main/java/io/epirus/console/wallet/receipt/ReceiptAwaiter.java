@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Waits for transaction receipts, with a configurable number of confirmations.
+ *
+ * <p>Subclasses decide when the node is asked for receipts. All of them share the bookkeeping of
+ * the transactions being waited for, the timeout and the statistics of the RPC calls made.
+ */
+public abstract class ReceiptAwaiter implements AutoCloseable {
+
+    protected final Web3j web3j;
+    protected final ScheduledExecutorService scheduler;
+    protected final Map<String, Waiting> waiting = new ConcurrentHashMap<>();
+
+    private final int confirmations;
+    private final long timeoutMillis;
+    private final ReceiptStats stats = new ReceiptStats();
+
+    protected ReceiptAwaiter(Web3j web3j, int confirmations, long timeoutMillis) {
+        this.web3j = web3j;
+        this.confirmations = confirmations;
+        this.timeoutMillis = timeoutMillis;
+        this.scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "receipt-awaiter");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    public static ReceiptAwaiter create(
+            ReceiptWaitStrategy strategy, Web3j web3j, int confirmations, long timeoutMillis) {
+        switch (strategy) {
+            case BACKOFF:
+                return new BackoffReceiptAwaiter(web3j, confirmations, timeoutMillis);
+            case BLOCKS:
+                return new BlockReceiptAwaiter(web3j, confirmations, timeoutMillis);
+            case BATCH:
+                return new BatchReceiptAwaiter(web3j, confirmations, timeoutMillis);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
+    /**
+     * Starts waiting for the receipt of a transaction which was just submitted.
+     *
+     * @param transactionHash hash of the submitted transaction
+     * @return the receipt once the transaction has the requested number of confirmations, or a
+     *     {@link TimeoutException} once the timeout has passed
+     */
+    public CompletableFuture<TransactionReceipt> await(String transactionHash) {
+        Waiting entry = new Waiting(transactionHash);
+        waiting.put(transactionHash, entry);
+        onAwait(entry);
+        return entry.future;
+    }
+
+    public ReceiptStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        new ArrayList<>(waiting.values())
+                .forEach(
+                        entry -> fail(entry, new TimeoutException("Stopped waiting for receipts")));
+    }
+
+    /** Called once for every transaction to wait for. */
+    protected abstract void onAwait(Waiting entry);
+
+    protected CompletableFuture<BigInteger> blockNumber() {
+        stats.roundTrip("eth_blockNumber", 1);
+        return web3j.ethBlockNumber()
+                .sendAsync()
+                .thenApply(response -> checked(response).getBlockNumber());
+    }
+
+    protected CompletableFuture<Optional<TransactionReceipt>> receipt(String transactionHash) {
+        stats.roundTrip("eth_getTransactionReceipt", 1);
+        return web3j.ethGetTransactionReceipt(transactionHash)
+                .sendAsync()
+                .thenApply(response -> checked(response).getTransactionReceipt());
+    }
+
+    protected boolean requiresBlockNumber() {
+        return confirmations > 1;
+    }
+
+    /**
+     * Completes the wait for a transaction if its receipt has enough confirmations.
+     *
+     * @param head latest block number, only required with more than one confirmation
+     * @return true if the transaction is no longer waited for
+     */
+    protected boolean offer(Waiting entry, TransactionReceipt receipt, BigInteger head) {
+        if (requiresBlockNumber()
+                && head.subtract(receipt.getBlockNumber()).intValue() + 1 < confirmations) {
+            return expire(entry);
+        }
+        if (waiting.remove(entry.transactionHash, entry)) {
+            stats.confirmed(System.nanoTime() - entry.startedAt);
+            entry.future.complete(receipt);
+        }
+        return true;
+    }
+
+    /** Fails the wait for a transaction if it timed out, returning true in that case. */
+    protected boolean expire(Waiting entry) {
+        if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.startedAt) < timeoutMillis) {
+            return false;
+        }
+        fail(
+                entry,
+                new TimeoutException(
+                        "Transaction receipt not received after "
+                                + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)
+                                + " seconds"));
+        return true;
+    }
+
+    private void fail(Waiting entry, Throwable cause) {
+        if (waiting.remove(entry.transactionHash, entry)) {
+            entry.future.completeExceptionally(cause);
+        }
+    }
+
+    static <T extends Response<?>> T checked(T response) {
+        if (response.hasError()) {
+            throw new CompletionException(
+                    new IllegalStateException(response.getError().getMessage()));
+        }
+        return response;
+    }
+
+    /** A transaction being waited for. */
+    protected static class Waiting {
+        protected final String transactionHash;
+        private final long startedAt = System.nanoTime();
+        private final CompletableFuture<TransactionReceipt> future = new CompletableFuture<>();
+
+        private Waiting(String transactionHash) {
+            this.transactionHash = transactionHash;
+        }
+    }
+}
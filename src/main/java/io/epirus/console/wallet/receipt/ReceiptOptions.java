@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.util.concurrent.TimeUnit;
+
+import picocli.CommandLine.Option;
+
+import org.web3j.protocol.Web3j;
+
+/** Options of the commands waiting for transaction receipts. */
+public class ReceiptOptions {
+
+    @Option(
+            names = {"--confirmations"},
+            description = "Number of blocks a transaction must be part of to be confirmed.")
+    int confirmations = 1;
+
+    @Option(
+            names = {"--receipt-strategy"},
+            description =
+                    "How receipts are polled, one of: ${COMPLETION-CANDIDATES}. "
+                            + "Defaults to BACKOFF for single transactions and BATCH otherwise.")
+    ReceiptWaitStrategy strategy;
+
+    @Option(
+            names = {"--receipt-timeout"},
+            paramLabel = "seconds",
+            description = "How long to wait for a transaction to be confirmed.")
+    long timeout = 600;
+
+    public ReceiptOptions() {}
+
+    public ReceiptOptions(int confirmations, ReceiptWaitStrategy strategy, long timeout) {
+        this.confirmations = confirmations;
+        this.strategy = strategy;
+        this.timeout = timeout;
+    }
+
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    /**
+     * Creates the receipt awaiter selected by the options.
+     *
+     * @param defaultStrategy strategy used unless one was given on the command line
+     */
+    public ReceiptAwaiter createAwaiter(Web3j web3j, ReceiptWaitStrategy defaultStrategy) {
+        if (confirmations < 1) {
+            throw new IllegalArgumentException("At least one confirmation is required");
+        }
+        return ReceiptAwaiter.create(
+                strategy == null ? defaultStrategy : strategy,
+                web3j,
+                confirmations,
+                TimeUnit.SECONDS.toMillis(timeout));
+    }
+}
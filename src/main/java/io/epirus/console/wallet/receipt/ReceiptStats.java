@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/** RPC usage and confirmation latency of a {@link ReceiptAwaiter}. */
+public class ReceiptStats {
+
+    private final LongAdder roundTrips = new LongAdder();
+    private final Map<String, LongAdder> requests = Collections.synchronizedMap(new TreeMap<>());
+    private final List<Long> latencies = new ArrayList<>();
+
+    void roundTrip(String method, int requestCount) {
+        roundTrips.increment();
+        requests.computeIfAbsent(method, m -> new LongAdder()).add(requestCount);
+    }
+
+    void confirmed(long latencyNanos) {
+        synchronized (latencies) {
+            latencies.add(latencyNanos);
+        }
+    }
+
+    /** Number of HTTP round trips made to the node, a batch counting once. */
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    /** Number of JSON-RPC requests made for a method, including those sent in batches. */
+    public long getRequests(String method) {
+        LongAdder count = requests.get(method);
+        return count == null ? 0 : count.sum();
+    }
+
+    public int getConfirmed() {
+        synchronized (latencies) {
+            return latencies.size();
+        }
+    }
+
+    /**
+     * Confirmation latency at a percentile, from the moment the wait started.
+     *
+     * @param percentile between 0 and 100
+     * @return latency in milliseconds, or 0 if nothing was confirmed
+     */
+    public long getLatencyMillis(int percentile) {
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+
+    public String summary() {
+        String calls;
+        synchronized (requests) {
+            calls =
+                    requests.entrySet().stream()
+                            .map(entry -> entry.getKey() + " " + entry.getValue().sum())
+                            .collect(Collectors.joining(", "));
+        }
+        return String.format(
+                "%d receipts in %d RPC round trips (%s), latency p50 %.1fs p95 %.1fs max %.1fs",
+                getConfirmed(),
+                getRoundTrips(),
+                calls,
+                getLatencyMillis(50) / 1000.0,
+                getLatencyMillis(95) / 1000.0,
+                getLatencyMillis(100) / 1000.0);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.subcommands;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.rpc.Web3jClientPool;
+import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.BalanceFetcher;
+import io.epirus.console.wallet.KeystoreIndex;
+import io.epirus.console.wallet.WalletManager;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.utils.Convert;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "balance",
+        description = "Show the balances of many wallets at once",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class WalletBalanceCommand extends WalletManager implements Runnable {
+
+    @Parameters(
+            paramLabel = "address|directory|file",
+            description =
+                    "Addresses, keystore directories, wallet files or address index files. "
+                            + "Defaults to the wallets listed by: epirus wallet list",
+            arity = "0..*")
+    List<String> inputs = new ArrayList<>();
+
+    @Option(
+            names = {"--network"},
+            description = "Epirus network to query [rinkeby/kovan], instead of --node-url.")
+    String network;
+
+    @Option(
+            names = {"--node-url"},
+            description = "URL of the Ethereum client to query.")
+    String nodeUrl = HttpService.DEFAULT_URL;
+
+    @Option(
+            names = {"--unit"},
+            description = "Unit the balances are shown in.")
+    Convert.Unit unit = Convert.Unit.ETHER;
+
+    @Option(
+            names = {"--batch-size"},
+            description = "Number of balances requested per JSON-RPC batch.")
+    int batchSize = BalanceFetcher.DEFAULT_BATCH_SIZE;
+
+    @Option(
+            names = {"--max-in-flight"},
+            description = "Maximum number of batches sent to the node at the same time.")
+    int maxInFlight = BalanceFetcher.DEFAULT_MAX_IN_FLIGHT;
+
+    @Option(
+            names = {"--json"},
+            description = "Print one JSON object per address instead of a table.")
+    boolean json;
+
+    public WalletBalanceCommand() {
+        super();
+    }
+
+    public WalletBalanceCommand(IODevice console) {
+        super(console);
+    }
+
+    @Override
+    public void run() {
+        if (batchSize < 1 || maxInFlight < 1) {
+            exitError("The batch size and number of batches in flight must be at least 1");
+        }
+        List<String> addresses = null;
+        try {
+            addresses =
+                    inputs.isEmpty()
+                            ? new ArrayList<>(KeystoreIndex.load().list().keySet())
+                            : BalanceFetcher.addresses(inputs);
+        } catch (IOException e) {
+            exitError("Unable to read the addresses: " + e.getMessage());
+        }
+        if (addresses.isEmpty()) {
+            exitError("No addresses to query");
+        }
+
+        Web3j web3j = null;
+        try {
+            web3j = Web3jClientPool.getInstance().forNetworkOrUrl(network, nodeUrl);
+        } catch (Exception e) {
+            exitError("Unable to connect to the Ethereum client: " + e.getMessage());
+        }
+
+        Gson gson = new Gson();
+        BigInteger[] total = {BigInteger.ZERO};
+        int[] failed = {0};
+        long start = System.nanoTime();
+        try {
+            new BalanceFetcher(web3j, batchSize, maxInFlight)
+                    .fetch(
+                            addresses,
+                            balance -> {
+                                if (balance.getWei() == null) {
+                                    failed[0]++;
+                                } else {
+                                    total[0] = total[0].add(balance.getWei());
+                                }
+                                if (json) {
+                                    notify("%s%n", gson.toJson(toJson(balance)));
+                                } else if (balance.getWei() == null) {
+                                    notify(
+                                            "%s   error: %s%n",
+                                            balance.getAddress(), balance.getError());
+                                } else {
+                                    notify(
+                                            "%s   %s %s%n",
+                                            balance.getAddress(), format(balance.getWei()), unit);
+                                }
+                            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitError("Interrupted while fetching balances");
+        }
+        if (!json) {
+            notify(
+                    "Total: %s %s across %d addresses (%d failed) in %d ms%n",
+                    format(total[0]),
+                    unit,
+                    addresses.size(),
+                    failed[0],
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private JsonObject toJson(BalanceFetcher.Balance balance) {
+        JsonObject object = new JsonObject();
+        object.addProperty("address", balance.getAddress());
+        if (balance.getWei() == null) {
+            object.addProperty("error", balance.getError());
+        } else {
+            object.addProperty("wei", balance.getWei().toString());
+            object.addProperty(unit.toString(), format(balance.getWei()));
+        }
+        return object;
+    }
+
+    private String format(BigInteger wei) {
+        return Convert.fromWei(new BigDecimal(wei), unit).stripTrailingZeros().toPlainString();
+    }
+}
@@ -14,14 +14,23 @@ package io.epirus.console.wallet.subcommands;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import io.epirus.console.EpirusVersionProvider;
 import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.KeystoreIndex;
+import io.epirus.console.wallet.WalletGenerator;
 import io.epirus.console.wallet.WalletManager;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 
 import org.web3j.codegen.Console;
 import org.web3j.crypto.CipherException;
@@ -42,6 +51,37 @@ import org.web3j.crypto.WalletUtils;
         footer = "Epirus CLI is licensed under the Apache License 2.0")
 public class WalletCreateCommand extends WalletManager implements Runnable {
 
+    @Option(
+            names = {"-n", "--count"},
+            description = "Number of wallets to create, in parallel when more than one.")
+    int count = 1;
+
+    @Option(
+            names = {"--password-file"},
+            description = "File containing the password of the new wallets, instead of prompting.")
+    File passwordFile;
+
+    @Option(
+            names = {"--kdf"},
+            description =
+                    "Key derivation strength, one of: ${COMPLETION-CANDIDATES}. "
+                            + "LIGHT is much faster but only suitable for test accounts.")
+    WalletGenerator.Kdf kdf = WalletGenerator.Kdf.STANDARD;
+
+    @Option(
+            names = {"-d", "--destination"},
+            description = "Directory to create the wallets in, instead of prompting.")
+    File destination;
+
+    @Option(
+            names = {"--index"},
+            description =
+                    "Address index to write when creating several wallets, as CSV or JSON (.json), "
+                            + "by default "
+                            + WalletGenerator.DEFAULT_INDEX_FILE_NAME
+                            + " in the destination directory.")
+    File index;
+
     public WalletCreateCommand() {
         super();
     }
@@ -52,12 +92,27 @@ public class WalletCreateCommand extends WalletManager implements Runnable {
 
     @Override
     public void run() {
+        if (count < 1) {
+            Console.exitError("Count must be at least 1");
+        }
+        if (count != 1
+                || passwordFile != null
+                || destination != null
+                || index != null
+                || kdf != WalletGenerator.Kdf.STANDARD) {
+            generate();
+            return;
+        }
         String password = getPassword("Please enter a wallet file password: ");
         String destinationDir = getDestinationDir();
         File destination = createDir(destinationDir);
 
         try {
             String walletFileName = WalletUtils.generateFullNewWalletFile(password, destination);
+            KeystoreIndex.addressFromFileName(walletFileName)
+                    .ifPresent(
+                            address ->
+                                    recordWallet(address, new File(destination, walletFileName)));
             notify(
                     "Wallet file "
                             + walletFileName
@@ -72,4 +127,61 @@ public class WalletCreateCommand extends WalletManager implements Runnable {
             Console.exitError(e);
         }
     }
+
+    private void generate() {
+        String password = null;
+        if (passwordFile == null) {
+            password = getPassword("Please enter a wallet file password: ");
+        } else {
+            try {
+                password = readPassword(passwordFile);
+            } catch (IOException e) {
+                Console.exitError("Unable to read password file " + passwordFile);
+            }
+        }
+        File destinationDir =
+                destination == null
+                        ? createDir(getDestinationDir())
+                        : createDir(destination.getPath());
+        File indexFile =
+                index == null
+                        ? new File(destinationDir, WalletGenerator.DEFAULT_INDEX_FILE_NAME)
+                        : index;
+
+        long start = System.nanoTime();
+        int step = Math.max(1, count / 100);
+        List<WalletGenerator.GeneratedWallet> wallets = Collections.emptyList();
+        try {
+            wallets =
+                    new WalletGenerator(
+                                    destinationDir,
+                                    password,
+                                    kdf,
+                                    Runtime.getRuntime().availableProcessors())
+                            .generate(
+                                    count,
+                                    indexFile,
+                                    generated -> {
+                                        if (generated % step == 0 || generated == count) {
+                                            notify("\rCreated %d/%d wallets", generated, count);
+                                        }
+                                    });
+        } catch (Exception e) {
+            Console.exitError(e);
+        }
+        Map<String, File> walletFiles = new HashMap<>();
+        for (WalletGenerator.GeneratedWallet wallet : wallets) {
+            walletFiles.put(wallet.getAddress(), new File(destinationDir, wallet.getFile()));
+        }
+        recordWallets(walletFiles);
+        notify(
+                "\n%d wallet files successfully created in: %s (%.1f seconds)\nAddress index written to: %s\n",
+                count, destinationDir, (System.nanoTime() - start) / 1e9, indexFile);
+    }
+
+    /** Reads the first line of a password file, ignoring the trailing line break. */
+    static String readPassword(File passwordFile) throws IOException {
+        List<String> lines = Files.readAllLines(passwordFile.toPath(), StandardCharsets.UTF_8);
+        return lines.isEmpty() ? "" : lines.get(0);
+    }
 }
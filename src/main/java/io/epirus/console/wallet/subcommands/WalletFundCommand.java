@@ -13,30 +13,34 @@
 package io.epirus.console.wallet.subcommands;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeoutException;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.rpc.Web3jClientPool;
+import io.epirus.console.wallet.BalanceFetcher;
+import io.epirus.console.wallet.BalanceWatcher;
 import io.epirus.console.wallet.Faucet;
+import io.epirus.console.wallet.FaucetClient;
+import io.epirus.console.wallet.ProofOfWorkSolver;
 import io.epirus.console.wallet.WalletManager;
-import okhttp3.MultipartBody;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
-import org.web3j.utils.Numeric;
+import org.web3j.protocol.Network;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.utils.Convert;
 
 import static io.epirus.console.config.ConfigManager.config;
 import static org.web3j.codegen.Console.exitError;
-import static org.web3j.crypto.Hash.sha256;
 
 @Command(
         name = "fund",
@@ -63,14 +67,49 @@ public class WalletFundCommand extends WalletManager implements Runnable {
             index = "1",
             paramLabel = "destination-address",
             description = "Ethereum 20 bytes hex address",
-            arity = "1")
+            arity = "0..1")
     String destinationAddress;
 
+    @Option(
+            names = {"--addresses"},
+            description =
+                    "File listing the addresses to fund, or keystore directory. "
+                            + "Prints one JSON result per address.")
+    String addressesFile;
+
+    @Option(
+            names = {"--concurrency"},
+            description = "Maximum number of addresses funded at the same time.")
+    int concurrency = FaucetClient.DEFAULT_CONCURRENCY;
+
+    @Option(
+            names = {"--rate-limit"},
+            description = "Maximum number of faucet requests per second, 0 for no limit.")
+    double requestsPerSecond = FaucetClient.DEFAULT_REQUESTS_PER_SECOND;
+
     @Option(names = {"-t", "--token"})
     String token;
 
+    @Option(
+            names = {"--pow-threads"},
+            description = "Number of threads solving the faucet proof of work.")
+    int powThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = {"--wait"},
+            paramLabel = "seconds",
+            description = "Wait up to this long for the funds to arrive, 0 to return right away.")
+    long waitSeconds;
+
     @Override
     public void run() {
+        if (addressesFile != null) {
+            fundAll();
+            return;
+        }
+        if (destinationAddress == null) {
+            exitError("Please specify the destination address or --addresses");
+        }
 
         try {
             Faucet selectedFaucet = Faucet.valueOf(network.toUpperCase());
@@ -86,19 +125,123 @@ public class WalletFundCommand extends WalletManager implements Runnable {
                 token = config.getLoginToken();
             }
 
-            String transactionHash = fundWallet(destinationAddress, selectedFaucet, token);
+            Web3j web3j =
+                    waitSeconds > 0
+                            ? Web3jClientPool.getInstance()
+                                    .forNetwork(Network.valueOf(selectedFaucet.name()))
+                            : null;
+            BigInteger initialBalance =
+                    web3j == null
+                            ? null
+                            : web3j.ethGetBalance(
+                                            destinationAddress, DefaultBlockParameterName.LATEST)
+                                    .send()
+                                    .getBalance();
+
+            String transactionHash =
+                    fundWallet(destinationAddress, selectedFaucet, token, powThreads);
             System.out.printf(
                     "Your wallet was successfully funded. You can view the associated transaction here, after it has been mined: https://%s.epirus.io/transactions/%s%n",
                     selectedFaucet.name.toLowerCase(), transactionHash);
+            if (web3j != null) {
+                waitForFunds(web3j, initialBalance);
+            }
         } catch (Exception e) {
             System.err.println("The fund operation failed");
             System.exit(-1);
         }
     }
 
-    private static boolean loading = true;
+    private void waitForFunds(Web3j web3j, BigInteger initialBalance) throws Exception {
+        System.out.println("Waiting for the funds to arrive...");
+        try (BalanceWatcher balanceWatcher = new BalanceWatcher(web3j)) {
+            BigInteger balance =
+                    balanceWatcher
+                            .watch(
+                                    destinationAddress,
+                                    current -> current.compareTo(initialBalance) > 0)
+                            .get(waitSeconds, TimeUnit.SECONDS);
+            System.out.printf(
+                    "New balance: %s ETH%n",
+                    Convert.fromWei(new BigDecimal(balance), Convert.Unit.ETHER)
+                            .stripTrailingZeros()
+                            .toPlainString());
+        } catch (TimeoutException e) {
+            System.out.printf(
+                    "The funds did not arrive within %d seconds, the transaction may still be pending%n",
+                    waitSeconds);
+        }
+    }
+
+    private void fundAll() {
+        if (concurrency < 1 || requestsPerSecond < 0) {
+            exitError("Concurrency must be at least 1 and the rate limit positive");
+        }
+        Faucet selectedFaucet = null;
+        List<String> addresses = null;
+        try {
+            selectedFaucet = Faucet.valueOf(network.toUpperCase());
+            addresses = BalanceFetcher.addresses(Collections.singletonList(addressesFile));
+        } catch (IllegalArgumentException e) {
+            exitError("No faucet available for network " + network);
+        } catch (IOException e) {
+            exitError("Unable to read the addresses: " + e.getMessage());
+        }
+        if (addresses.isEmpty()) {
+            exitError("No addresses found in " + addressesFile);
+        }
+        String fund =
+                request(
+                        "This command will fund %d wallets on the %s testnet. Do you wish to continue? [Y/n]: ",
+                        addresses.size(), selectedFaucet.name);
+        if (fund.toUpperCase().equals("N")) {
+            exitError("Operation was cancelled by user.");
+        }
+        if (token == null) {
+            token = config.getLoginToken();
+        }
+
+        Gson gson = new Gson();
+        int[] failed = {0};
+        try {
+            new FaucetClient(selectedFaucet, token, concurrency, powThreads, requestsPerSecond)
+                    .fundAll(
+                            addresses,
+                            result -> {
+                                if (result.getTransactionHash() == null) {
+                                    failed[0]++;
+                                }
+                                System.out.println(gson.toJson(toJson(result)));
+                            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitError("Interrupted while funding wallets");
+        }
+        if (failed[0] > 0) {
+            exitError(
+                    String.format(
+                            "%d of %d wallets could not be funded", failed[0], addresses.size()));
+        }
+    }
+
+    private static JsonObject toJson(FaucetClient.Result result) {
+        JsonObject object = new JsonObject();
+        object.addProperty("address", result.getAddress());
+        if (result.getTransactionHash() != null) {
+            object.addProperty("transactionHash", result.getTransactionHash());
+        } else {
+            object.addProperty("error", result.getError());
+        }
+        if (result.getSolution() != null) {
+            object.addProperty(
+                    "proofOfWorkMillis", result.getSolution().getElapsedNanos() / 1_000_000);
+        }
+        return object;
+    }
+
+    private static volatile boolean loading = true;
 
-    private static synchronized void loading() {
+    private static synchronized Thread loading() {
         Thread th =
                 new Thread(
                         () -> {
@@ -122,115 +265,45 @@ public class WalletFundCommand extends WalletManager implements Runnable {
                             }
                         });
         th.start();
+        return th;
     }
 
     public static String fundWallet(String walletAddress, Faucet faucet, String token)
             throws Exception {
-        OkHttpClient client =
-                new OkHttpClient.Builder()
-                        .connectTimeout(15, TimeUnit.SECONDS)
-                        .writeTimeout(10, TimeUnit.SECONDS)
-                        .readTimeout(30, TimeUnit.SECONDS)
-                        .build();
-
-        ObjectMapper mapper = new ObjectMapper();
-        System.out.println("Sending funding request...");
-        Request sendEtherRequest;
-
-        if (token != null) {
-            RequestBody fundingBody =
-                    new MultipartBody.Builder()
-                            .setType(MultipartBody.FORM)
-                            .addFormDataPart("address", walletAddress)
-                            .build();
-
-            sendEtherRequest =
-                    new okhttp3.Request.Builder()
-                            .url(String.format("%s/send/%s", faucet.url, token))
-                            .post(fundingBody)
-                            .build();
-        } else {
-            Request getSeedRequest =
-                    new okhttp3.Request.Builder()
-                            .url(String.format("%s/seed/0.2", faucet.url))
-                            .get()
-                            .build();
-            Response configRawResponse = client.newCall(getSeedRequest).execute();
-
-            if (configRawResponse.code() != 200) {
-                exitError("An HTTP request failed with code: " + configRawResponse.code());
-            }
-
-            String configResponse = configRawResponse.body().string();
-
-            WalletFundConfig config = mapper.readValue(configResponse, WalletFundConfig.class);
-
-            AtomicBoolean found = new AtomicBoolean(false);
-            AtomicInteger intResult = new AtomicInteger(0);
-            loading();
-
-            IntStream.range(0, Integer.MAX_VALUE)
-                    .parallel()
-                    .forEach(
-                            i -> {
-                                if (found.get()) return;
-                                String potentialHash =
-                                        Numeric.toHexString(
-                                                        sha256(
-                                                                (i + config.seed)
-                                                                        .getBytes(
-                                                                                StandardCharsets
-                                                                                        .UTF_8)))
-                                                .substring(2);
-                                if (potentialHash.startsWith(
-                                        new String(new char[config.difficulty])
-                                                .replace("\0", "0"))) {
-                                    found.set(true);
-                                    intResult.set(i);
-                                }
-                            });
+        return fundWallet(walletAddress, faucet, token, Runtime.getRuntime().availableProcessors());
+    }
 
-            loading = false;
-            RequestBody fundingBody =
-                    new MultipartBody.Builder()
-                            .setType(MultipartBody.FORM)
-                            .addFormDataPart("address", walletAddress)
-                            .addFormDataPart("seed", config.seed)
-                            .addFormDataPart("nonce", String.valueOf(intResult.get()))
-                            .build();
-
-            sendEtherRequest =
-                    new okhttp3.Request.Builder()
-                            .url(String.format("%s/send", faucet.url))
-                            .post(fundingBody)
-                            .build();
-        }
+    public static String fundWallet(
+            String walletAddress, Faucet faucet, String token, int powThreads) throws Exception {
+        System.out.println("Sending funding request...");
+        FaucetClient.Result result;
+        loading = token == null;
+        Thread spinner = loading ? loading() : null;
         try {
-            Response sendRawResponse = client.newCall(sendEtherRequest).execute();
-
-            if (sendRawResponse.code() != 200) {
-                exitError(
-                        String.format(
-                                "\nAn HTTP request failed with code: %d", sendRawResponse.code()));
-            }
-
-            String sendResponse = sendRawResponse.body().string();
-
-            WalletFundResult result = mapper.readValue(sendResponse, WalletFundResult.class);
-            return result.result;
-        } catch (Exception ex) {
+            result =
+                    new FaucetClient(
+                                    faucet,
+                                    token,
+                                    1,
+                                    powThreads,
+                                    FaucetClient.DEFAULT_REQUESTS_PER_SECOND)
+                            .fund(walletAddress);
+        } catch (IOException ex) {
             throw new Exception(
                     "The fund operation failed - this may be due to an issue with the remote server. Please try again.",
                     ex);
+        } finally {
+            loading = false;
+            if (spinner != null) {
+                spinner.join();
+            }
+        }
+        ProofOfWorkSolver.Solution solution = result.getSolution();
+        if (solution != null) {
+            System.out.printf(
+                    "Proof of work completed in %.1f seconds (%.2f MH/s)%n",
+                    solution.getElapsedNanos() / 1e9, solution.getHashesPerSecond() / 1e6);
         }
+        return result.getTransactionHash();
     }
 }
-
-class WalletFundConfig {
-    public int difficulty;
-    public String seed;
-}
-
-class WalletFundResult {
-    public String result;
-}
@@ -104,6 +104,7 @@ public class WalletImportCommand extends WalletManager implements Runnable {
             String walletFileName =
                     WalletUtils.generateWalletFile(
                             password, credentials.getEcKeyPair(), destination, true);
+            recordWallet(credentials.getAddress(), new File(destination, walletFileName));
             notify(
                     "Wallet file "
                             + walletFileName
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.subcommands;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import io.epirus.console.EpirusCommand;
+import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.KeystoreIndex;
+import io.epirus.console.wallet.WalletManager;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import org.web3j.crypto.WalletUtils;
+
+import static org.web3j.codegen.Console.exitError;
+
+@Command(
+        name = "list",
+        description = "List the wallets known to the CLI",
+        showDefaultValues = true,
+        abbreviateSynopsis = true,
+        mixinStandardHelpOptions = true,
+        versionProvider = EpirusVersionProvider.class,
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        optionListHeading = "%nOptions:%n",
+        footerHeading = "%n",
+        footer = "Epirus CLI is licensed under the Apache License 2.0")
+public class WalletListCommand extends WalletManager implements Runnable {
+
+    @Option(
+            names = {"--scan"},
+            paramLabel = "directory",
+            description = "Add the wallet files of these directories to the index first.")
+    List<File> scan = new ArrayList<>();
+
+    public WalletListCommand() {
+        super();
+    }
+
+    public WalletListCommand(IODevice console) {
+        super(console);
+    }
+
+    @Override
+    public void run() {
+        try {
+            KeystoreIndex index = KeystoreIndex.load();
+            List<File> directories = new ArrayList<>(scan);
+            if (!index.exists()) {
+                // First use, pick up the wallets created before the index existed
+                directories.addAll(
+                        Arrays.asList(
+                                new File(EpirusCommand.DEFAULT_WALLET_FOLDER),
+                                new File(WalletUtils.getTestnetKeyDirectory()),
+                                new File(WalletUtils.getMainnetKeyDirectory())));
+            }
+            for (File directory : directories) {
+                int found = index.scan(directory);
+                if (scan.contains(directory)) {
+                    notify("Indexed %d wallet files in %s%n", found, directory);
+                }
+            }
+            if (!directories.isEmpty()) {
+                index.save();
+            }
+
+            Map<String, File> wallets = index.list();
+            if (wallets.isEmpty()) {
+                notify("No wallets found, create one with: epirus wallet create%n");
+            }
+            for (Map.Entry<String, File> wallet : wallets.entrySet()) {
+                notify(
+                        "%s   %s%s%n",
+                        wallet.getKey(),
+                        wallet.getValue(),
+                        wallet.getValue().isFile() ? "" : " (missing)");
+            }
+        } catch (IOException e) {
+            exitError("Unable to read the keystore index: " + e.getMessage());
+        }
+    }
+}
@@ -14,26 +14,43 @@ package io.epirus.console.wallet.subcommands;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import io.epirus.console.EpirusVersionProvider;
+import io.epirus.console.rpc.Web3jClientPool;
+import io.epirus.console.wallet.BatchTransfer;
+import io.epirus.console.wallet.SigningTransactionManager;
+import io.epirus.console.wallet.TransactionSigner;
 import io.epirus.console.wallet.WalletManager;
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+import io.epirus.console.wallet.receipt.ReceiptOptions;
+import io.epirus.console.wallet.receipt.ReceiptWaitStrategy;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
-import org.web3j.crypto.Credentials;
 import org.web3j.crypto.WalletUtils;
 import org.web3j.ens.EnsResolver;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.protocol.core.methods.response.Web3ClientVersion;
-import org.web3j.protocol.exceptions.TransactionException;
 import org.web3j.protocol.http.HttpService;
-import org.web3j.protocol.infura.InfuraHttpService;
-import org.web3j.protocol.nodesmith.NodesmithHttpService;
+import org.web3j.tx.ChainIdLong;
+import org.web3j.tx.TransactionManager;
 import org.web3j.tx.Transfer;
+import org.web3j.tx.response.NoOpProcessor;
 import org.web3j.utils.Convert;
 
 import static org.web3j.codegen.Console.exitError;
@@ -56,21 +73,61 @@ public class WalletSendCommand extends WalletManager implements Runnable {
             index = "0",
             paramLabel = "wallet-path",
             description = "Path/filename of the wallet file",
-            arity = "1")
+            arity = "0..1")
     String walletFileLocation;
 
     @Parameters(
             index = "1",
             paramLabel = "destination-address",
             description = "Ethereum 20 bytes hex address",
-            arity = "1")
+            arity = "0..1")
     String destinationAddress;
 
+    @Option(
+            names = {"-a", "--address"},
+            description = "Address of an indexed wallet to send from, instead of the wallet path.")
+    String address;
+
+    @Option(
+            names = {"--batch"},
+            paramLabel = "transfers.csv",
+            description =
+                    "Send one transfer per address,amount[,unit] line of this file instead of "
+                            + "a single transfer.")
+    File batchFile;
+
+    @Option(
+            names = {"--concurrency"},
+            description = "Maximum number of requests in flight to the node in batch mode.")
+    int concurrency = BatchTransfer.DEFAULT_CONCURRENCY;
+
+    @Option(
+            names = {"--output"},
+            paramLabel = "results.csv",
+            description =
+                    "File the outcome of each batch transfer is written to, "
+                            + "defaults to the batch file name with a .results.csv suffix.")
+    File outputFile;
+
+    @Mixin ReceiptOptions receiptOptions = new ReceiptOptions();
+
     @Override
     public void run() {
-        File walletFile = new File(walletFileLocation);
-        Credentials credentials = getCredentials(walletFile);
-        notify("Wallet for address " + credentials.getAddress() + " loaded\n");
+        if (batchFile != null) {
+            runBatch();
+            return;
+        }
+        if (address != null && destinationAddress == null) {
+            // Without a wallet path the only positional parameter is the destination
+            destinationAddress = walletFileLocation;
+            walletFileLocation = null;
+        }
+        if (destinationAddress == null) {
+            exitError("Please specify the destination address");
+        }
+        File walletFile = resolveWalletFile(walletFileLocation, address);
+        TransactionSigner signer = getSigner(walletFile);
+        notify("Wallet for address " + signer.getAddress() + " loaded\n");
 
         if (!WalletUtils.isValidAddress(destinationAddress)
                 && !EnsResolver.isValidEnsName(destinationAddress)) {
@@ -86,17 +143,99 @@ public class WalletSendCommand extends WalletManager implements Runnable {
         confirmTransfer(amountToTransfer, transferUnit, amountInWei, destinationAddress);
 
         TransactionReceipt transactionReceipt =
-                performTransfer(web3j, destinationAddress, credentials, amountInWei);
+                performTransfer(web3j, destinationAddress, signer, amountInWei);
 
         notify(
                 "Funds have been successfully transferred from %s to %s%n"
                         + "Transaction hash: %s%nMined block number: %s%n",
-                credentials.getAddress(),
+                signer.getAddress(),
                 destinationAddress,
                 transactionReceipt.getTransactionHash(),
                 transactionReceipt.getBlockNumber());
     }
 
+    private void runBatch() {
+        if (concurrency < 1) {
+            exitError("Concurrency must be at least 1");
+        }
+        List<BatchTransfer.Recipient> recipients = null;
+        try {
+            recipients = BatchTransfer.read(batchFile);
+        } catch (IOException e) {
+            exitError("Unable to read batch file " + batchFile + ": " + e.getMessage());
+        }
+        if (recipients.isEmpty()) {
+            exitError("No transfers found in " + batchFile);
+        }
+        File walletFile = resolveWalletFile(walletFileLocation, address);
+        TransactionSigner signer = getSigner(walletFile);
+        notify("Wallet for address " + signer.getAddress() + " loaded\n");
+
+        Web3j web3j = getEthereumClient();
+        BigInteger totalInWei =
+                recipients.stream()
+                        .map(BatchTransfer.Recipient::getAmountInWei)
+                        .reduce(BigInteger.ZERO, BigInteger::add);
+        request(
+                "Please confim that you wish to send %d transfers totalling %s %s (%s %s)%n",
+                recipients.size(),
+                Convert.fromWei(new BigDecimal(totalInWei), Convert.Unit.ETHER)
+                        .stripTrailingZeros()
+                        .toPlainString(),
+                Convert.Unit.ETHER,
+                totalInWei,
+                Convert.Unit.WEI);
+        String confirm = request("Please type 'yes' to proceed: ");
+        if (!confirm.toLowerCase().equals("yes")) {
+            exitError("OK, some other time perhaps...");
+        }
+
+        File results =
+                outputFile != null
+                        ? outputFile
+                        : new File(
+                                batchFile.getAbsoluteFile().getParentFile(),
+                                batchFile.getName().replaceFirst("\\.csv$", "") + ".results.csv");
+        Map<BatchTransfer.Status, Integer> outcomes = new EnumMap<>(BatchTransfer.Status.class);
+        ReceiptAwaiter receiptAwaiter = createReceiptAwaiter(web3j, ReceiptWaitStrategy.BATCH);
+        BatchTransfer batchTransfer = new BatchTransfer(web3j, signer, concurrency, receiptAwaiter);
+        try (PrintWriter writer =
+                new PrintWriter(
+                        Files.newBufferedWriter(results.toPath(), StandardCharsets.UTF_8))) {
+            List<BatchTransfer.SignedTransfer> transfers = batchTransfer.sign(recipients);
+            notify(
+                    "Signed %d transfers with nonces %s to %s%n",
+                    transfers.size(),
+                    transfers.get(0).getNonce(),
+                    transfers.get(transfers.size() - 1).getNonce());
+            writer.println(BatchTransfer.Result.CSV_HEADER);
+            writer.flush();
+            batchTransfer.execute(
+                    transfers,
+                    result -> {
+                        synchronized (outcomes) {
+                            writer.println(result.toCsv());
+                            writer.flush();
+                            outcomes.merge(result.getStatus(), 1, Integer::sum);
+                            notify(
+                                    "\r%d/%d transfers completed",
+                                    outcomes.values().stream().mapToInt(Integer::intValue).sum(),
+                                    transfers.size());
+                        }
+                    });
+        } catch (IOException e) {
+            exitError("Problem encountered transferring funds: \n" + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitError("Interrupted while transferring funds");
+        } finally {
+            receiptAwaiter.close();
+        }
+        notify("%nResults written to %s%n", results);
+        outcomes.forEach((status, count) -> notify("%s: %d%n", status, count));
+        notify("%s%n", receiptAwaiter.getStats().summary());
+    }
+
     private BigDecimal getAmountToTransfer() {
         String amount =
                 request(
@@ -146,32 +285,48 @@ public class WalletSendCommand extends WalletManager implements Runnable {
     private TransactionReceipt performTransfer(
             Web3j web3j,
             String destinationAddress,
-            Credentials credentials,
+            TransactionSigner signer,
             BigDecimal amountInWei) {
 
         notify("Commencing transfer (this may take a few minutes) ");
-        try {
-            Future<TransactionReceipt> future =
-                    Transfer.sendFunds(
-                                    web3j,
-                                    credentials,
-                                    destinationAddress,
-                                    amountInWei,
-                                    Convert.Unit.WEI)
-                            .sendAsync();
-
-            while (!future.isDone()) {
-                notify(".");
-                Thread.sleep(500);
+        try (ReceiptAwaiter receiptAwaiter =
+                createReceiptAwaiter(web3j, ReceiptWaitStrategy.BACKOFF)) {
+            // Submit only, the receipt is awaited below instead of by web3j's polling processor
+            TransactionManager transactionManager =
+                    new SigningTransactionManager(
+                            web3j, signer, ChainIdLong.NONE, new NoOpProcessor(web3j));
+            String transactionHash =
+                    new Transfer(web3j, transactionManager)
+                            .sendFunds(destinationAddress, amountInWei, Convert.Unit.WEI)
+                            .send()
+                            .getTransactionHash();
+            Future<TransactionReceipt> future = receiptAwaiter.await(transactionHash);
+
+            while (true) {
+                try {
+                    TransactionReceipt receipt = future.get(500, TimeUnit.MILLISECONDS);
+                    notify("$%n%n");
+                    notify("%s%n", receiptAwaiter.getStats().summary());
+                    return receipt;
+                } catch (TimeoutException e) {
+                    notify(".");
+                }
             }
-            notify("$%n%n");
-            return future.get();
-        } catch (InterruptedException | ExecutionException | TransactionException | IOException e) {
+        } catch (Exception e) {
             exitError("Problem encountered transferring funds: \n" + e.getMessage());
         }
         throw new RuntimeException("Application exit failure");
     }
 
+    private ReceiptAwaiter createReceiptAwaiter(Web3j web3j, ReceiptWaitStrategy defaultStrategy) {
+        try {
+            return receiptOptions.createAwaiter(web3j, defaultStrategy);
+        } catch (IllegalArgumentException e) {
+            exitError(e.getMessage());
+        }
+        throw new RuntimeException("Application exit failure");
+    }
+
     private Web3j getEthereumClient() {
         String clientAddress =
                 request(
@@ -181,16 +336,9 @@ public class WalletSendCommand extends WalletManager implements Runnable {
                                         + "]: ")
                         .trim();
 
-        Web3j web3j;
-        if (clientAddress.equals("")) {
-            web3j = Web3j.build(new HttpService());
-        } else if (clientAddress.contains("infura.io")) {
-            web3j = Web3j.build(new InfuraHttpService(clientAddress));
-        } else if (clientAddress.contains("nodesmith.io")) {
-            web3j = Web3j.build(new NodesmithHttpService(clientAddress));
-        } else {
-            web3j = Web3j.build(new HttpService(clientAddress));
-        }
+        Web3j web3j =
+                Web3jClientPool.getInstance()
+                        .forUrl(clientAddress.equals("") ? HttpService.DEFAULT_URL : clientAddress);
 
         try {
             Web3ClientVersion web3ClientVersion = web3j.web3ClientVersion().sendAsync().get();
@@ -14,11 +14,23 @@ package io.epirus.console.wallet.subcommands;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.epirus.console.EpirusVersionProvider;
 import io.epirus.console.utils.IODevice;
+import io.epirus.console.wallet.PasswordRotation;
 import io.epirus.console.wallet.WalletManager;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import org.web3j.crypto.CipherException;
@@ -45,9 +57,43 @@ public class WalletUpdateCommand extends WalletManager implements Runnable {
             index = "0",
             paramLabel = "wallet-path",
             description = "Path/filename of the wallet file",
-            arity = "1")
+            arity = "0..1")
     String walletFileLocation;
 
+    @Option(
+            names = {"-a", "--address"},
+            description = "Address of an indexed wallet, instead of the wallet file path.")
+    String address;
+
+    @Option(
+            names = {"--dir"},
+            paramLabel = "keystores",
+            description = "Re-encrypt every wallet file of this directory instead of a single one.")
+    File directory;
+
+    @Option(
+            names = {"--old-password-file"},
+            description = "File containing the current password of the wallets in --dir.")
+    File oldPasswordFile;
+
+    @Option(
+            names = {"--new-password-file"},
+            description = "File containing the new password of the wallets in --dir.")
+    File newPasswordFile;
+
+    @Option(
+            names = {"--threads"},
+            description = "Maximum number of wallets re-encrypted at the same time with --dir.")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = {"--max-memory"},
+            paramLabel = "MB",
+            description =
+                    "Memory available to scrypt with --dir, defaults to half of the heap. "
+                            + "A standard wallet needs 256 MB while it is re-encrypted.")
+    Long maxMemory;
+
     public WalletUpdateCommand() {
         super();
     }
@@ -59,7 +105,11 @@ public class WalletUpdateCommand extends WalletManager implements Runnable {
 
     @Override
     public void run() {
-        File walletFile = new File(walletFileLocation);
+        if (directory != null) {
+            rotateDirectory();
+            return;
+        }
+        File walletFile = resolveWalletFile(walletFileLocation, address);
         Credentials credentials = getCredentials(walletFile);
 
         notify("Wallet for address " + credentials.getAddress() + " loaded\n");
@@ -73,6 +123,7 @@ public class WalletUpdateCommand extends WalletManager implements Runnable {
             String walletFileName =
                     WalletUtils.generateWalletFile(
                             newPassword, credentials.getEcKeyPair(), destination, true);
+            recordWallet(credentials.getAddress(), new File(destination, walletFileName));
             notify(
                     "New wallet file "
                             + walletFileName
@@ -92,4 +143,92 @@ public class WalletUpdateCommand extends WalletManager implements Runnable {
             }
         }
     }
+
+    private void rotateDirectory() {
+        if (!directory.isDirectory()) {
+            exitError("Not a directory: " + directory);
+        }
+        if (threads < 1) {
+            exitError("At least one thread is required");
+        }
+        List<File> walletFiles = null;
+        try (Stream<Path> files = Files.list(directory.toPath())) {
+            walletFiles =
+                    files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                            .filter(Files::isRegularFile)
+                            .map(Path::toFile)
+                            .sorted()
+                            .collect(Collectors.toList());
+        } catch (IOException e) {
+            exitError("Unable to list " + directory + ": " + e.getMessage());
+        }
+        if (walletFiles.isEmpty()) {
+            exitError("No wallet files found in " + directory);
+        }
+
+        String oldPassword =
+                oldPasswordFile == null
+                        ? requestPassword("Please enter the current wallet files password: ")
+                        : readPasswordFile(oldPasswordFile);
+        String newPassword =
+                newPasswordFile == null
+                        ? getPassword("Please enter the new wallet files password: ")
+                        : readPasswordFile(newPasswordFile);
+
+        PasswordRotation rotation =
+                new PasswordRotation(
+                        oldPassword,
+                        newPassword,
+                        threads,
+                        maxMemory == null
+                                ? PasswordRotation.defaultMemoryBudget()
+                                : maxMemory << 20);
+        Map<PasswordRotation.Status, Integer> counts = new EnumMap<>(PasswordRotation.Status.class);
+        List<PasswordRotation.Outcome> problems = new ArrayList<>();
+        int total = walletFiles.size();
+        long start = System.nanoTime();
+        try {
+            rotation.rotate(
+                    walletFiles,
+                    outcome -> {
+                        counts.merge(outcome.getStatus(), 1, Integer::sum);
+                        if (outcome.getStatus() != PasswordRotation.Status.ROTATED) {
+                            problems.add(outcome);
+                        }
+                        notify(
+                                "\rProcessed %d/%d wallet files",
+                                counts.values().stream().mapToInt(Integer::intValue).sum(), total);
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitError("Interrupted while updating wallet passwords");
+        }
+
+        notify(
+                "%n%nPassword rotation of %s finished in %d s%n",
+                directory, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        for (PasswordRotation.Status status : PasswordRotation.Status.values()) {
+            notify("  %-15s %d%n", status, counts.getOrDefault(status, 0));
+        }
+        problems.sort(Comparator.comparing(PasswordRotation.Outcome::getFile));
+        for (PasswordRotation.Outcome problem : problems) {
+            notify(
+                    "%s: %s (%s)%n",
+                    problem.getFile().getName(), problem.getStatus(), problem.getError());
+        }
+        if (counts.getOrDefault(PasswordRotation.Status.WRONG_PASSWORD, 0)
+                        + counts.getOrDefault(PasswordRotation.Status.FAILED, 0)
+                > 0) {
+            exitError("Some wallet files could not be updated");
+        }
+    }
+
+    private static String readPasswordFile(File passwordFile) {
+        try {
+            return WalletCreateCommand.readPassword(passwordFile);
+        } catch (IOException e) {
+            exitError("Unable to read password file " + passwordFile);
+        }
+        throw new RuntimeException("Application exit failure");
+    }
 }
@@ -12,10 +12,21 @@
  */
 package io.epirus.console.wrapper;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Optional;
 
+import io.epirus.console.project.utils.ProjectUtils;
+import io.epirus.console.wallet.TransactionSigner;
+import io.epirus.console.wallet.agent.AgentTransactionSigner;
 import picocli.CommandLine.Option;
 
+import org.web3j.crypto.CipherException;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.WalletUtils;
+
+import static io.epirus.console.config.ConfigManager.config;
 import static picocli.CommandLine.Help.Visibility.ALWAYS;
 
 public class CredentialsOptions {
@@ -71,4 +82,40 @@ public class CredentialsOptions {
     public String getJson() {
         return json;
     }
+
+    /**
+     * Loads the credentials selected by the options, falling back to the default wallet of the CLI
+     * configuration when none is given.
+     */
+    public Credentials createCredentials() throws IOException, CipherException {
+        if (walletPath != null) {
+            return ProjectUtils.createCredentials(walletPath, walletPassword);
+        } else if (rawKey != null && !rawKey.isEmpty()) {
+            return Credentials.create(rawKey);
+        } else if (json != null && !json.isEmpty()) {
+            return WalletUtils.loadJsonCredentials(walletPassword, json);
+        } else {
+            return WalletUtils.loadCredentials(
+                    config.getDefaultWalletPassword(), config.getDefaultWalletPath());
+        }
+    }
+
+    /**
+     * Signs through the credential agent when the wallet file was added to it, and otherwise with
+     * the credentials loaded by {@link #createCredentials()}.
+     */
+    public TransactionSigner createSigner() throws IOException, CipherException {
+        if (walletPath != null) {
+            return ProjectUtils.createSigner(walletPath, walletPassword);
+        } else if ((rawKey == null || rawKey.isEmpty())
+                && (json == null || json.isEmpty())
+                && config.getDefaultWalletPath() != null) {
+            Optional<TransactionSigner> agentSigner =
+                    AgentTransactionSigner.forWallet(new File(config.getDefaultWalletPath()));
+            if (agentSigner.isPresent()) {
+                return agentSigner.get();
+            }
+        }
+        return TransactionSigner.of(createCredentials());
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.project.utils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UnitTestManifestTest {
+    private String tempDirPath;
+
+    @BeforeEach
+    void setup() {
+        tempDirPath = Folders.tempBuildFolder().getAbsolutePath();
+    }
+
+    @Test
+    public void testFileFollowsWrapperPackage() {
+        assertEquals(
+                Paths.get(
+                        tempDirPath,
+                        "io",
+                        "epirus",
+                        "console",
+                        "project",
+                        "utils",
+                        "SampleWrapperTest.java"),
+                UnitTestManifest.testFile(tempDirPath, SampleWrapper.class, ".java"));
+    }
+
+    @Test
+    public void fingerprintChangesWithMethodSignatures() {
+        assertEquals(
+                UnitTestManifest.fingerprint(SampleWrapper.class),
+                UnitTestManifest.fingerprint(SampleWrapper.class));
+        assertNotEquals(
+                UnitTestManifest.fingerprint(SampleWrapper.class),
+                UnitTestManifest.fingerprint(ChangedWrapper.class));
+    }
+
+    @Test
+    public void fingerprintIgnoresClassName() throws Exception {
+        String greet = "public String greet(String name) { return name; }";
+
+        assertEquals(
+                UnitTestManifest.fingerprint(compileWrapper("first", greet)),
+                UnitTestManifest.fingerprint(compileWrapper("second", greet)));
+    }
+
+    @Test
+    public void changedSignatureIsRegenerated() throws Exception {
+        Class<?> original =
+                compileWrapper("original", "public String greet(String name) { return name; }");
+        Class<?> changed =
+                compileWrapper(
+                        "changed", "public String greet(String name, int times) { return name; }");
+        assertEquals(original.getCanonicalName(), changed.getCanonicalName());
+
+        Path testFile = writeTest("generated");
+        UnitTestManifest manifest = UnitTestManifest.load(tempDirPath);
+        manifest.record(original, testFile);
+        manifest.save();
+
+        UnitTestManifest reloaded = UnitTestManifest.load(tempDirPath);
+        assertFalse(reloaded.requiresGeneration(original, testFile));
+        assertTrue(reloaded.requiresGeneration(changed, testFile));
+    }
+
+    @Test
+    public void generatedTestIsNotRegeneratedWhenUnchanged() throws IOException {
+        Path testFile = writeTest("generated");
+        UnitTestManifest manifest = UnitTestManifest.load(tempDirPath);
+        manifest.record(SampleWrapper.class, testFile);
+        manifest.save();
+
+        UnitTestManifest reloaded = UnitTestManifest.load(tempDirPath);
+        assertFalse(reloaded.requiresGeneration(SampleWrapper.class, testFile));
+    }
+
+    @Test
+    public void editedTestIsLeftAlone() throws IOException {
+        Path testFile = writeTest("generated");
+        UnitTestManifest manifest = UnitTestManifest.load(tempDirPath);
+        manifest.record(SampleWrapper.class, testFile);
+        manifest.save();
+        writeTest("edited by the user");
+
+        assertFalse(
+                UnitTestManifest.load(tempDirPath)
+                        .requiresGeneration(SampleWrapper.class, testFile));
+    }
+
+    @Test
+    public void unknownExistingTestIsLeftAlone() throws IOException {
+        Path testFile = writeTest("written by hand");
+
+        assertFalse(
+                UnitTestManifest.load(tempDirPath)
+                        .requiresGeneration(SampleWrapper.class, testFile));
+    }
+
+    @Test
+    public void missingTestIsGenerated() throws IOException {
+        Path testFile = UnitTestManifest.testFile(tempDirPath, SampleWrapper.class, ".java");
+
+        assertTrue(
+                UnitTestManifest.load(tempDirPath)
+                        .requiresGeneration(SampleWrapper.class, testFile));
+    }
+
+    /** Compiles a wrapper class with the given body, always with the same name. */
+    private Class<?> compileWrapper(String directory, String body) throws Exception {
+        Path sourceDir = Paths.get(tempDirPath, directory, "sample");
+        Files.createDirectories(sourceDir);
+        Path source =
+                Files.write(
+                        sourceDir.resolve("Wrapper.java"),
+                        ("package sample; public class Wrapper { " + body + " }").getBytes());
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, source.toString()));
+        URLClassLoader classLoader =
+                new URLClassLoader(
+                        new URL[] {Paths.get(tempDirPath, directory).toUri().toURL()}, null);
+        return classLoader.loadClass("sample.Wrapper");
+    }
+
+    private Path writeTest(String contents) throws IOException {
+        Path testFile = UnitTestManifest.testFile(tempDirPath, SampleWrapper.class, ".java");
+        Files.createDirectories(testFile.getParent());
+        return Files.write(testFile, contents.getBytes());
+    }
+
+    static class SampleWrapper {
+        public String greet(String name) {
+            return name;
+        }
+    }
+
+    static class ChangedWrapper {
+        public String greet(String name, int times) {
+            return name;
+        }
+    }
+}
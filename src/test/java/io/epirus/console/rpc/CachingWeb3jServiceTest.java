@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CachingWeb3jServiceTest {
+    private static final String ADDRESS = "0x19e03255f667bdfd50a32722df860b1eeaf4d635";
+    private static final String HASH =
+            "0x4e3a3754410177e6937ef1f84bba68ea139e8d1a2258c5f85db9f1cd715a1bdd";
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private Web3jService delegate;
+    private File tempDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        tempDir = Folders.tempBuildFolder();
+        results.put("eth_chainId", "\"0x5\"");
+        results.put("eth_blockNumber", "\"0x64\"");
+        results.put("eth_getBalance", "\"0x10\"");
+        results.put("eth_getBlockByNumber", "{\"number\": \"0x0\", \"hash\": \"" + HASH + "\"}");
+        delegate = mock(Web3jService.class);
+        when(delegate.send(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                respond(invocation.getArgument(0), invocation.getArgument(1)));
+        when(delegate.sendAsync(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                CompletableFuture.completedFuture(
+                                        respond(
+                                                invocation.getArgument(0),
+                                                invocation.getArgument(1))));
+    }
+
+    @Test
+    public void chainIdIsOnlyRequestedOnce() throws IOException {
+        CachingWeb3jService service = new CachingWeb3jService(delegate, "node", null);
+        Web3j web3j = Web3j.build(service);
+
+        assertEquals(5, web3j.ethChainId().send().getChainId().intValue());
+        assertEquals(5, web3j.ethChainId().sendAsync().join().getChainId().intValue());
+
+        assertEquals(1, count("eth_chainId"));
+        assertEquals(1, service.getHits());
+        assertEquals(1, service.getMisses());
+    }
+
+    @Test
+    public void onlyFinalBlocksAreCached() throws IOException {
+        Web3j web3j = Web3j.build(new CachingWeb3jService(delegate, "node", null));
+        web3j.ethBlockNumber().send();
+
+        for (int i = 0; i < 2; i++) {
+            web3j.ethGetBalance(ADDRESS, DefaultBlockParameterName.LATEST).send();
+            web3j.ethGetBalance(ADDRESS, DefaultBlockParameter.valueOf(BigInteger.valueOf(50)))
+                    .send();
+            web3j.ethGetBalance(ADDRESS, DefaultBlockParameter.valueOf(BigInteger.valueOf(95)))
+                    .send();
+        }
+
+        // Head is 100, so only the balance at block 50 is final
+        assertEquals(5, count("eth_getBalance"));
+    }
+
+    @Test
+    public void pendingReceiptsAreNotCached() throws IOException {
+        Web3j web3j = Web3j.build(new CachingWeb3jService(delegate, "node", null));
+        web3j.ethBlockNumber().send();
+        results.put("eth_getTransactionReceipt", "null");
+
+        assertNull(web3j.ethGetTransactionReceipt(HASH).send().getResult());
+        results.put(
+                "eth_getTransactionReceipt",
+                "{\"transactionHash\": \"" + HASH + "\", \"blockNumber\": \"0x2\"}");
+        web3j.ethGetTransactionReceipt(HASH).send();
+        assertEquals(
+                BigInteger.valueOf(2),
+                web3j.ethGetTransactionReceipt(HASH)
+                        .send()
+                        .getTransactionReceipt()
+                        .get()
+                        .getBlockNumber());
+
+        assertEquals(2, count("eth_getTransactionReceipt"));
+    }
+
+    @Test
+    public void resultsAreSharedThroughDiskCache() throws IOException {
+        Web3j.build(new CachingWeb3jService(delegate, "node", tempDir.toPath()))
+                .ethChainId()
+                .send();
+
+        CachingWeb3jService reopened = new CachingWeb3jService(delegate, "node", tempDir.toPath());
+        assertEquals(5, Web3j.build(reopened).ethChainId().send().getChainId().intValue());
+
+        assertEquals(1, count("eth_chainId"));
+        assertEquals(1, reopened.getHits());
+    }
+
+    @Test
+    public void diskCacheKeepsRecentlyUsedEntries() throws Exception {
+        Web3j web3j =
+                Web3j.build(new CachingWeb3jService(delegate, "node", tempDir.toPath(), 10, 3));
+        web3j.ethBlockNumber().send();
+        for (int block = 10; block < 18; block++) {
+            web3j.ethGetBalance(ADDRESS, DefaultBlockParameter.valueOf(BigInteger.valueOf(block)))
+                    .send();
+            // Entries are ordered by modification time
+            Thread.sleep(10);
+        }
+
+        try (Stream<Path> files = Files.walk(tempDir.toPath())) {
+            assertTrue(files.filter(file -> file.toString().endsWith(".json")).count() <= 3);
+        }
+        CachingWeb3jService reopened = new CachingWeb3jService(delegate, "node", tempDir.toPath());
+        Web3j.build(reopened)
+                .ethGetBalance(ADDRESS, DefaultBlockParameter.valueOf(BigInteger.valueOf(17)))
+                .send();
+        assertEquals(1, reopened.getHits());
+    }
+
+    private int count(String method) {
+        return requests.getOrDefault(method, new AtomicInteger()).get();
+    }
+
+    private Response<?> respond(Request<?, ?> request, Class<? extends Response<?>> type)
+            throws IOException {
+        requests.computeIfAbsent(request.getMethod(), m -> new AtomicInteger()).incrementAndGet();
+        String raw =
+                String.format(
+                        "{\"jsonrpc\": \"2.0\", \"id\": %d, \"result\": %s}",
+                        request.getId(), results.get(request.getMethod()));
+        Response<?> response = ObjectMapperFactory.getObjectMapper().readValue(raw, type);
+        response.setRawResponse(raw);
+        return response;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.http.HttpService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingWeb3jServiceTest {
+
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private final List<JsonNode> posts = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer node;
+    private boolean rejectBatches;
+    private boolean batchError;
+    private final AtomicInteger failingBatches = new AtomicInteger();
+    private CoalescingWeb3jService service;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setup() throws IOException {
+        node = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        node.createContext("/", this::handle);
+        node.start();
+        service =
+                new CoalescingWeb3jService(
+                        new HttpService("http://localhost:" + node.getAddress().getPort()),
+                        50,
+                        TimeUnit.MILLISECONDS,
+                        10);
+        web3j = Web3j.build(service);
+    }
+
+    @AfterEach
+    void tearDown() {
+        web3j.shutdown();
+        node.stop(0);
+    }
+
+    @Test
+    public void concurrentRequestsAreSentAsOneBatch() throws Exception {
+        List<CompletableFuture<EthGetBalance>> balances = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            balances.add(
+                    web3j.ethGetBalance(address(i), DefaultBlockParameterName.LATEST).sendAsync());
+        }
+        CompletableFuture<EthBlockNumber> blockNumber = web3j.ethBlockNumber().sendAsync();
+
+        assertEquals(BigInteger.valueOf(42), blockNumber.get().getBlockNumber());
+        for (int i = 1; i <= 3; i++) {
+            EthGetBalance balance = balances.get(i - 1).get();
+            assertEquals(BigInteger.valueOf(i), balance.getBalance());
+            assertTrue(balance.getRawResponse().contains("\"result\":\"0x" + i + "\""));
+        }
+        assertEquals(1, posts.size());
+        assertEquals(4, posts.get(0).size());
+        assertEquals(1, service.getBatches());
+    }
+
+    @Test
+    public void fullBatchIsSentWithoutWaiting() throws Exception {
+        List<CompletableFuture<EthGetBalance>> balances = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            balances.add(
+                    web3j.ethGetBalance(address(i), DefaultBlockParameterName.LATEST).sendAsync());
+        }
+
+        for (int i = 1; i <= 12; i++) {
+            assertEquals(BigInteger.valueOf(i), balances.get(i - 1).get().getBalance());
+        }
+        assertEquals(2, posts.size());
+        assertEquals(10, posts.get(0).size());
+        assertEquals(2, posts.get(1).size());
+    }
+
+    @Test
+    public void requestsAreSentAloneWhenBatchesAreRejected() throws Exception {
+        rejectBatches = true;
+        CompletableFuture<EthGetBalance> balance =
+                web3j.ethGetBalance(address(7), DefaultBlockParameterName.LATEST).sendAsync();
+        CompletableFuture<EthBlockNumber> blockNumber = web3j.ethBlockNumber().sendAsync();
+
+        assertEquals(BigInteger.valueOf(7), balance.get().getBalance());
+        assertEquals(BigInteger.valueOf(42), blockNumber.get().getBlockNumber());
+        assertEquals(BigInteger.valueOf(42), web3j.ethBlockNumber().send().getBlockNumber());
+        assertEquals(4, posts.size());
+        assertTrue(posts.get(3).isObject());
+    }
+
+    @Test
+    public void requestsAreSentAloneWhenBatchGetsSingleError() throws Exception {
+        batchError = true;
+        CompletableFuture<EthGetBalance> balance =
+                web3j.ethGetBalance(address(7), DefaultBlockParameterName.LATEST).sendAsync();
+        CompletableFuture<EthBlockNumber> blockNumber = web3j.ethBlockNumber().sendAsync();
+
+        assertEquals(BigInteger.valueOf(7), balance.get().getBalance());
+        assertEquals(BigInteger.valueOf(42), blockNumber.get().getBlockNumber());
+        assertEquals(BigInteger.valueOf(42), web3j.ethBlockNumber().send().getBlockNumber());
+        assertEquals(4, posts.size());
+        assertTrue(posts.get(3).isObject());
+    }
+
+    @Test
+    public void batchesAreKeptAfterServerErrors() throws Exception {
+        failingBatches.set(1);
+        CompletableFuture<EthGetBalance> balance =
+                web3j.ethGetBalance(address(7), DefaultBlockParameterName.LATEST).sendAsync();
+        CompletableFuture<EthBlockNumber> blockNumber = web3j.ethBlockNumber().sendAsync();
+        assertEquals(BigInteger.valueOf(7), balance.get().getBalance());
+        assertEquals(BigInteger.valueOf(42), blockNumber.get().getBlockNumber());
+
+        balance = web3j.ethGetBalance(address(8), DefaultBlockParameterName.LATEST).sendAsync();
+        blockNumber = web3j.ethBlockNumber().sendAsync();
+        assertEquals(BigInteger.valueOf(8), balance.get().getBalance());
+        assertEquals(BigInteger.valueOf(42), blockNumber.get().getBlockNumber());
+
+        assertEquals(4, posts.size());
+        assertEquals(2, posts.get(3).size());
+        assertEquals(2, service.getBatches());
+    }
+
+    private static String address(int i) {
+        return String.format("0x%040x", i);
+    }
+
+    /** Answers like a node, with the responses to a batch in reverse order. */
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = MAPPER.readTree(body);
+        }
+        posts.add(request);
+        if (request.isArray() && (rejectBatches || failingBatches.getAndDecrement() > 0)) {
+            exchange.sendResponseHeaders(rejectBatches ? 400 : 503, -1);
+            exchange.close();
+            return;
+        }
+        JsonNode response;
+        if (request.isArray() && batchError) {
+            ObjectNode error = MAPPER.createObjectNode();
+            error.put("jsonrpc", "2.0");
+            error.putNull("id");
+            error.putObject("error")
+                    .put("code", -32600)
+                    .put("message", "batch requests are not supported");
+            response = MAPPER.createArrayNode().add(error);
+        } else if (request.isArray()) {
+            ArrayNode responses = MAPPER.createArrayNode();
+            for (int i = request.size() - 1; i >= 0; i--) {
+                responses.add(respond(request.get(i)));
+            }
+            response = responses;
+        } else {
+            response = respond(request);
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static ObjectNode respond(JsonNode request) {
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+        if (request.get("method").asText().equals("eth_getBalance")) {
+            String address = request.get("params").get(0).asText();
+            response.put("result", "0x" + new BigInteger(address.substring(2), 16).toString(16));
+        } else {
+            response.put("result", "0x2a");
+        }
+        return response;
+    }
+}
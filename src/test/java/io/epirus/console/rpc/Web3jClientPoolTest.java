@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Web3jClientPoolTest {
+
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private final List<String> chainIdRequests = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void clientsAreSharedPerNodeUrl() {
+        Web3jClientPool pool = new Web3jClientPool();
+        try {
+            Web3j first = pool.forUrl("http://localhost:1");
+
+            assertSame(first, pool.forUrl(" http://localhost:1/ "));
+            assertSame(first, pool.forNetworkOrUrl(null, "http://localhost:1"));
+            assertNotSame(first, pool.forUrl("http://localhost:2"));
+            assertTrue(pool.summary().contains("http://localhost:1: 3 leases"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void noClientsAreHandedOutAfterShutdown() {
+        Web3jClientPool pool = new Web3jClientPool();
+        pool.forUrl("http://localhost:1");
+
+        pool.shutdown();
+
+        assertTrue(pool.getHttpClient().dispatcher().executorService().isShutdown());
+        assertThrows(IllegalStateException.class, () -> pool.forUrl("http://localhost:1"));
+    }
+
+    @Test
+    public void nodeResponsesAreRead() throws Exception {
+        HttpServer node = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        node.createContext("/", this::handle);
+        node.start();
+        Web3jClientPool pool = new Web3jClientPool();
+        try {
+            Web3j web3j = pool.forUrl("http://localhost:" + node.getAddress().getPort() + "/");
+
+            assertEquals(4, web3j.ethChainId().send().getChainId().intValue());
+            assertEquals("/ null", chainIdRequests.get(0));
+        } finally {
+            pool.shutdown();
+            node.stop(0);
+        }
+    }
+
+    @Test
+    public void builtClientsAreCachedWithTheirCredentials() throws Exception {
+        HttpServer node = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        node.createContext("/", this::handle);
+        node.start();
+        Web3jClientPool pool = new Web3jClientPool();
+        try {
+            HttpService authenticated =
+                    new HttpService(
+                            "http://localhost:" + node.getAddress().getPort() + "/rinkeby/secret");
+            authenticated.addHeader("Authorization", "Bearer token");
+
+            Web3j web3j =
+                    pool.forBuiltClient(
+                            "network:rinkeby", "epirus rinkeby", () -> Web3j.build(authenticated));
+            assertEquals(4, web3j.ethChainId().send().getChainId().intValue());
+            assertEquals(4, web3j.ethChainId().send().getChainId().intValue());
+
+            assertEquals(1, chainIdRequests.size());
+            assertEquals("/rinkeby/secret Bearer token", chainIdRequests.get(0));
+            assertTrue(pool.summary().contains("epirus rinkeby: 1 memory hits"));
+            assertFalse(pool.summary().contains("secret"));
+        } finally {
+            pool.shutdown();
+            node.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = MAPPER.readTree(body);
+        }
+        if (request.path("method").asText().equals("eth_chainId")) {
+            chainIdRequests.add(
+                    exchange.getRequestURI().getPath()
+                            + " "
+                            + exchange.getRequestHeaders().getFirst("Authorization"));
+        }
+        byte[] response =
+                String.format(
+                                "{\"jsonrpc\": \"2.0\", \"id\": %s, \"result\": \"0x4\"}",
+                                request.path("id"))
+                        .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response);
+        }
+    }
+}
@@ -20,11 +20,11 @@ import io.epirus.console.ProjectTest;
 import io.epirus.console.account.AccountService;
 import org.junit.jupiter.api.Test;
 
-import org.web3j.crypto.Credentials;
 import org.web3j.protocol.Network;
 import org.web3j.protocol.Web3j;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,10 +37,7 @@ public class RunCommandTest extends ProjectTest {
         AccountService accountService = mock(AccountService.class);
         Web3j web3j = mock(Web3j.class);
         when(accountService.pollForAccountBalance(
-                        any(Credentials.class),
-                        any(Network.class),
-                        any(Web3j.class),
-                        any(int.class)))
+                        anyString(), any(Network.class), any(Web3j.class), any(int.class)))
                 .thenReturn(BigInteger.TEN);
         when(accountService.checkIfAccountIsConfirmed(20)).thenReturn(true);
         RunCommand runCommand =
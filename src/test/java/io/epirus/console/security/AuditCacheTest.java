@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.smartdec.smartcheck.app.SourceLanguages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditCacheTest {
+    private Path cacheDir;
+
+    @BeforeEach
+    void setup() {
+        cacheDir = Folders.tempBuildFolder().toPath();
+    }
+
+    @Test
+    public void keyDependsOnContentsAndLanguage() {
+        AuditCache cache = new AuditCache(cacheDir, AuditCache.DEFAULT_MAX_SIZE);
+        String key = cache.key("contract A {}".getBytes(), new SourceLanguages.Solidity());
+
+        assertEquals(key, cache.key("contract A {}".getBytes(), new SourceLanguages.Solidity()));
+        assertNotEquals(key, cache.key("contract B {}".getBytes(), new SourceLanguages.Solidity()));
+        assertNotEquals(key, cache.key("contract A {}".getBytes(), new SourceLanguages.Vyper()));
+    }
+
+    @Test
+    public void findingsAreReplayed() {
+        AuditCache cache = new AuditCache(cacheDir, AuditCache.DEFAULT_MAX_SIZE);
+        cache.put("key", Collections.singletonList(new AuditFinding(3, 4, 2, "RULE", "p1")));
+
+        List<AuditFinding> findings = cache.get("key").get();
+
+        assertEquals(1, findings.size());
+        assertEquals("3:4", findings.get(0).getLocation());
+        assertEquals(2, findings.get(0).getSeverity());
+        assertEquals("RULE_p1", findings.get(0).getQualifiedId());
+        assertFalse(cache.get("other").isPresent());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+        AuditCache cache = new AuditCache(cacheDir, 0);
+        cache.put("old", Collections.emptyList());
+        cache.put("new", Collections.emptyList());
+        long entrySize = Files.size(cacheDir.resolve("new.json"));
+        assertTrue(cacheDir.resolve("old.json").toFile().setLastModified(1000));
+
+        new AuditCache(cacheDir, entrySize).evict();
+
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            assertEquals(1, entries.count());
+        }
+        assertTrue(cache.get("new").isPresent());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AuditMediaTest {
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    public void jsonLinesAreWrittenPerFinding() {
+        AuditMedia media = report(AuditFormat.JSONL, 3);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        JsonObject finding = JsonParser.parseString(lines[1]).getAsJsonObject();
+        assertEquals(
+                Paths.get("contracts", "Token.sol").toString(), finding.get("file").getAsString());
+        assertEquals(7, finding.get("line").getAsInt());
+        assertEquals(3, finding.get("severity").getAsInt());
+        assertEquals("RULE_B", finding.get("rule").getAsString());
+        assertEquals(1, media.getFailures());
+    }
+
+    @Test
+    public void sarifLogIsValidJson() {
+        AuditMedia media = report(AuditFormat.SARIF, 2);
+
+        JsonObject run =
+                JsonParser.parseString(output.toString())
+                        .getAsJsonObject()
+                        .getAsJsonArray("runs")
+                        .get(0)
+                        .getAsJsonObject();
+        assertEquals(2, run.getAsJsonArray("results").size());
+        assertEquals(
+                2,
+                run.getAsJsonObject("tool")
+                        .getAsJsonObject("driver")
+                        .getAsJsonArray("rules")
+                        .size());
+        assertEquals(
+                "error",
+                run.getAsJsonArray("results").get(1).getAsJsonObject().get("level").getAsString());
+        assertEquals(2, media.getFindings());
+        assertEquals(1, media.getFailures());
+    }
+
+    @Test
+    public void emptyFilesAreNotPrintedAsText() {
+        AuditMedia media = report(AuditFormat.TEXT, 1);
+
+        assertEquals(2, media.getFailures());
+        assertEquals(
+                Paths.get("contracts", "Token.sol").toString(), output.toString().split("\n")[0]);
+    }
+
+    private AuditMedia report(AuditFormat format, int failOnSeverity) {
+        AuditMedia media = format.createMedia(new PrintStream(output), failOnSeverity);
+        media.start();
+        media.accept(new FileReport(Paths.get("contracts", "Empty.sol"), Collections.emptyList()));
+        media.accept(
+                new FileReport(
+                        Paths.get("contracts", "Token.sol"),
+                        Arrays.asList(
+                                new AuditFinding(3, 0, 1, "RULE_A", "p1"),
+                                new AuditFinding(7, 4, 3, "RULE_B", "p2"))));
+        media.finish();
+        return media;
+    }
+}
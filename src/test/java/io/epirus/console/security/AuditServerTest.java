@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditServerTest {
+
+    @Test
+    public void requestsAreAnsweredUntilExit() throws Exception {
+        String readme = Paths.get("README.rst").toAbsolutePath().toUri().toString();
+        String input =
+                frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}")
+                        + frame(
+                                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"epirus/audit\","
+                                        + "\"params\":{\"uri\":\""
+                                        + readme
+                                        + "\"}}")
+                        + frame("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"unknown\"}")
+                        + frame("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"shutdown\"}")
+                        + frame("{\"jsonrpc\":\"2.0\",\"method\":\"exit\"}")
+                        + frame("{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"shutdown\"}");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new AuditServer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output)
+                .run();
+
+        List<JsonObject> responses = parse(output.toString("UTF-8"));
+        assertEquals(4, responses.size());
+        assertTrue(
+                responses
+                        .get(0)
+                        .getAsJsonObject("result")
+                        .getAsJsonObject("capabilities")
+                        .has("textDocumentSync"));
+        assertEquals(0, responses.get(1).getAsJsonArray("result").size());
+        assertEquals(-32601, responses.get(2).getAsJsonObject("error").get("code").getAsInt());
+        assertTrue(responses.get(3).get("result").isJsonNull());
+    }
+
+    @Test
+    public void malformedMessagesAreAnsweredWithParseErrors() throws Exception {
+        String input =
+                frame("{\"jsonrpc\":\"2.0\",\"id\":1,")
+                        + frame("[1, 2]")
+                        + "Content-Length: many\r\n\r\n"
+                        + frame("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"shutdown\"}");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new AuditServer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output)
+                .run();
+
+        List<JsonObject> responses = parse(output.toString("UTF-8"));
+        assertEquals(4, responses.size());
+        for (JsonObject response : responses.subList(0, 3)) {
+            assertTrue(response.get("id").isJsonNull());
+            assertEquals(-32700, response.getAsJsonObject("error").get("code").getAsInt());
+        }
+        assertEquals(2, responses.get(3).get("id").getAsInt());
+        assertTrue(responses.get(3).get("result").isJsonNull());
+    }
+
+    private static String frame(String content) {
+        return "Content-Length: "
+                + content.getBytes(StandardCharsets.UTF_8).length
+                + "\r\n\r\n"
+                + content;
+    }
+
+    private static List<JsonObject> parse(String output) {
+        List<JsonObject> messages = new ArrayList<>();
+        int offset = 0;
+        while (offset < output.length()) {
+            int separator = output.indexOf("\r\n\r\n", offset);
+            int length = Integer.parseInt(output.substring(offset + 16, separator).trim());
+            offset = separator + 4;
+            messages.add(
+                    JsonParser.parseString(output.substring(offset, offset + length))
+                            .getAsJsonObject());
+            offset += length;
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangedContractsTest {
+    private Path root;
+
+    @BeforeEach
+    void setup() throws IOException {
+        root = Folders.tempBuildFolder().toPath().toAbsolutePath();
+        write("contracts/Token.sol", "pragma solidity ^0.6.0;\ncontract Token {}\n");
+        write(
+                "contracts/Sale.sol",
+                "import \"./Token.sol\";\n// import \"./Unused.sol\";\ncontract Sale {}\n");
+        write(
+                "contracts/sale/Presale.sol",
+                "import {Sale} from '../Sale.sol';\ncontract Presale {}\n");
+        write("contracts/Unused.sol", "contract Unused {}\n");
+        write("contracts/Other.sol", "import * as Lib from \"contracts/Lib.sol\";\n");
+        write("vyper/token.vy", "# @version 0.2.4\n");
+        write("vyper/exchange.vy", "from vyper import token\nimport vyper.token as Token\n");
+    }
+
+    @Test
+    public void importersOfChangedContractsAreAffected() throws IOException {
+        assertEquals(
+                Arrays.asList(
+                        root.resolve("contracts/Sale.sol"),
+                        root.resolve("contracts/Token.sol"),
+                        root.resolve("contracts/sale/Presale.sol")),
+                ChangedContracts.affected(
+                        root, Collections.singletonList(root.resolve("contracts/Token.sol"))));
+    }
+
+    @Test
+    public void commentedImportsAreIgnored() throws IOException {
+        assertEquals(
+                Collections.singletonList(root.resolve("contracts/Unused.sol")),
+                ChangedContracts.affected(
+                        root, Collections.singletonList(root.resolve("contracts/Unused.sol"))));
+    }
+
+    @Test
+    public void importersOfDeletedContractsAreAffected() throws IOException {
+        assertEquals(
+                Collections.singletonList(root.resolve("contracts/Other.sol")),
+                ChangedContracts.affected(
+                        root, Collections.singletonList(root.resolve("contracts/Lib.sol"))));
+    }
+
+    @Test
+    public void vyperImportsAreResolvedFromTheRoot() throws IOException {
+        assertEquals(
+                Arrays.asList(root.resolve("vyper/exchange.vy"), root.resolve("vyper/token.vy")),
+                ChangedContracts.affected(
+                        root, Collections.singletonList(root.resolve("vyper/token.vy"))));
+    }
+
+    @Test
+    public void listedFilesAreResolvedFromTheWorkingDirectory() throws IOException {
+        Path list = write("changed.txt", root.resolve("contracts/Sale.sol") + "\n\nREADME.md\n");
+
+        assertEquals(
+                Arrays.asList(
+                        root.resolve("contracts/Sale.sol"),
+                        root.resolve("contracts/sale/Presale.sol")),
+                ChangedContracts.affected(root, ChangedContracts.fromList(list)));
+    }
+
+    private Path write(String file, String contents) throws IOException {
+        Path path = root.resolve(file);
+        Files.createDirectories(path.getParent());
+        return Files.write(path, contents.getBytes());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ContractAnalysisTest {
+    private Path tempDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        tempDir = Folders.tempBuildFolder().toPath();
+        Files.createDirectories(tempDir.resolve("nested"));
+        for (String file :
+                Arrays.asList("b.sol", "a.vy", "nested/c.sol", "README.md", "nested/d.vy.bak")) {
+            Files.write(tempDir.resolve(file), new byte[0]);
+        }
+    }
+
+    @Test
+    public void contractsOfAllLanguagesAreFoundInOneWalk() throws IOException {
+        assertEquals(
+                Arrays.asList(
+                        tempDir.resolve("a.vy"),
+                        tempDir.resolve("b.sol"),
+                        tempDir.resolve("nested/c.sol")),
+                ContractAnalysis.findContracts(tempDir));
+    }
+
+    @Test
+    public void reportsAreDeliveredInPathOrder() throws Exception {
+        List<Path> reported = new ArrayList<>();
+        new ContractAnalysis(tempDir, 4) {
+            @Override
+            FileReport analyze(Path contract) throws InterruptedException {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(50));
+                return new FileReport(contract, Collections.emptyList());
+            }
+        }.analyze(report -> reported.add(report.getFile()));
+
+        assertEquals(ContractAnalysis.findContracts(tempDir), reported);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import ru.smartdec.smartcheck.app.SourceLanguages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GasRulesTest {
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final Map<String, String> patterns = new HashMap<>();
+
+    @BeforeEach
+    void setup() throws Exception {
+        NodeList rules =
+                parse(GasRules.read(new SourceLanguages.Solidity())).getElementsByTagName("Rule");
+        for (int i = 0; i < rules.getLength(); i++) {
+            Element rule = (Element) rules.item(i);
+            String ruleId = rule.getElementsByTagName("RuleId").item(0).getTextContent();
+            NodeList rulePatterns = rule.getElementsByTagName("Pattern");
+            for (int j = 0; j < rulePatterns.getLength(); j++) {
+                Element pattern = (Element) rulePatterns.item(j);
+                patterns.put(
+                        ruleId + "_" + pattern.getAttribute("patternId"),
+                        pattern.getElementsByTagName("XPath").item(0).getTextContent());
+            }
+        }
+    }
+
+    @Test
+    public void everyGasRuleIsDescribedAndCompiles() throws Exception {
+        RuleDescriptions descriptions = RuleDescriptions.load(GasRules.class.getClassLoader());
+
+        assertFalse(patterns.isEmpty());
+        for (Map.Entry<String, String> pattern : patterns.entrySet()) {
+            String ruleId = pattern.getKey().substring(0, pattern.getKey().lastIndexOf('_'));
+            assertFalse(descriptions.name(ruleId).isEmpty(), ruleId);
+            assertFalse(descriptions.gasImpact(ruleId).isEmpty(), ruleId);
+            xpath.compile(pattern.getValue());
+        }
+    }
+
+    @Test
+    public void languagesWithoutGasRulesAreLeftUnchanged() throws Exception {
+        assertEquals(0, GasRules.read(new SourceLanguages.Vyper()).length);
+    }
+
+    @Test
+    public void storageAccessInLoopIsReported() throws Exception {
+        Document tree =
+                parse(
+                        ("<sourceUnit><contractDefinition>"
+                                        + "<contractPart><stateVariableDeclaration>"
+                                        + "<identifier>total</identifier>"
+                                        + "</stateVariableDeclaration></contractPart>"
+                                        + "<contractPart><functionDefinition><block><statement>"
+                                        + "<forStatement><statement><expression><primaryExpression>"
+                                        + "<identifier>total</identifier>"
+                                        + "</primaryExpression></expression></statement>"
+                                        + "</forStatement></statement></block></functionDefinition>"
+                                        + "</contractPart></contractDefinition></sourceUnit>")
+                                .getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(matches(tree, "GAS_STORAGE_IN_LOOP_e1a7c0"));
+        assertFalse(matches(tree, "GAS_STORAGE_IN_LOOP_e1a7c1"));
+    }
+
+    @Test
+    public void unpackedStructIsReported() throws Exception {
+        String packed = struct("uint256", "uint8", "bool");
+        String unpacked = struct("uint8", "uint256", "bool");
+
+        assertFalse(
+                matches(
+                        parse(packed.getBytes(StandardCharsets.UTF_8)),
+                        "GAS_STRUCT_PACKING_5c7e21"));
+        assertTrue(
+                matches(
+                        parse(unpacked.getBytes(StandardCharsets.UTF_8)),
+                        "GAS_STRUCT_PACKING_5c7e21"));
+    }
+
+    @Test
+    public void loopBoundByStorageArrayIsReported() throws Exception {
+        String bound = less(primary("i"), member(primary("items"), "length"));
+        String constant =
+                less(
+                        primary("i"),
+                        "<expression><primaryExpression>10</primaryExpression></expression>");
+
+        assertTrue(
+                matches(
+                        contract("items", function(statement(forLoop(bound)))),
+                        "GAS_UNBOUNDED_LOOP_f35b02"));
+        assertFalse(
+                matches(
+                        contract("items", function(statement(forLoop(constant)))),
+                        "GAS_UNBOUNDED_LOOP_f35b02"));
+        assertFalse(
+                matches(
+                        contract("other", function(statement(forLoop(bound)))),
+                        "GAS_UNBOUNDED_LOOP_f35b02"));
+        assertTrue(
+                matches(
+                        contract(
+                                "items",
+                                function(
+                                        statement(
+                                                "<whileStatement>"
+                                                        + bound
+                                                        + "<statement/></whileStatement>"))),
+                        "GAS_UNBOUNDED_LOOP_f35b03"));
+    }
+
+    @Test
+    public void storageReadInSeveralStatementsIsReported() throws Exception {
+        String readTwice = function(statement(primary("total")) + statement(primary("total")));
+        String readOnce = function(statement(primary("total")) + statement(primary("local")));
+
+        assertTrue(matches(contract("total", readTwice), "GAS_REPEATED_STORAGE_READ_a8d410"));
+        assertFalse(matches(contract("total", readOnce), "GAS_REPEATED_STORAGE_READ_a8d410"));
+        assertFalse(matches(contract("other", readTwice), "GAS_REPEATED_STORAGE_READ_a8d410"));
+    }
+
+    @Test
+    public void publicFunctionWithMemoryParametersIsReported() throws Exception {
+        String publicFunction = memoryFunction("public");
+        String call =
+                "<contractPart><functionDefinition><block><statement><functionCall>"
+                        + primary("sum")
+                        + "</functionCall></statement></block></functionDefinition></contractPart>";
+
+        assertTrue(
+                matches(
+                        contract("total", publicFunction),
+                        "GAS_PUBLIC_INSTEAD_OF_EXTERNAL_b90f4d"));
+        assertFalse(
+                matches(
+                        contract("total", memoryFunction("external")),
+                        "GAS_PUBLIC_INSTEAD_OF_EXTERNAL_b90f4d"));
+        assertFalse(
+                matches(
+                        contract("total", publicFunction + call),
+                        "GAS_PUBLIC_INSTEAD_OF_EXTERNAL_b90f4d"));
+    }
+
+    @Test
+    public void safeMathIsReportedFromSolidity08() throws Exception {
+        assertTrue(matches(usingSafeMath("^0.8.0"), "GAS_REDUNDANT_SAFEMATH_0d62e9"));
+        assertFalse(matches(usingSafeMath("^0.6.0"), "GAS_REDUNDANT_SAFEMATH_0d62e9"));
+        assertFalse(matches(usingSafeMath(">=0.7.0 &lt;0.8.0"), "GAS_REDUNDANT_SAFEMATH_0d62e9"));
+    }
+
+    private boolean matches(Document tree, String patternId) throws Exception {
+        return ((NodeList) xpath.evaluate(patterns.get(patternId), tree, XPathConstants.NODESET))
+                        .getLength()
+                > 0;
+    }
+
+    private static Document contract(String stateVariable, String contractParts) throws Exception {
+        return parse(
+                ("<sourceUnit><contractDefinition>"
+                                + "<contractPart><stateVariableDeclaration><identifier>"
+                                + stateVariable
+                                + "</identifier></stateVariableDeclaration></contractPart>"
+                                + contractParts
+                                + "</contractDefinition></sourceUnit>")
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String function(String statements) {
+        return "<contractPart><functionDefinition><identifier>f</identifier><block>"
+                + statements
+                + "</block></functionDefinition></contractPart>";
+    }
+
+    private static String memoryFunction(String visibility) {
+        return "<contractPart><functionDefinition><identifier>sum</identifier>"
+                + "<parameterList><parameter><typeName>uint[]</typeName>"
+                + "<storageLocation>memory</storageLocation><identifier>values</identifier>"
+                + "</parameter></parameterList>"
+                + "<modifierList><visibleType>"
+                + visibility
+                + "</visibleType></modifierList>"
+                + "<block/></functionDefinition></contractPart>";
+    }
+
+    private static Document usingSafeMath(String version) throws Exception {
+        return parse(
+                ("<sourceUnit><pragmaDirective>pragma<pragmaName>solidity</pragmaName>"
+                                + "<pragmaValue>"
+                                + version
+                                + "</pragmaValue></pragmaDirective><contractDefinition>"
+                                + "<contractPart><usingForDeclaration>using"
+                                + "<identifier>SafeMath</identifier>for<typeName>uint256</typeName>"
+                                + "</usingForDeclaration></contractPart>"
+                                + "</contractDefinition></sourceUnit>")
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String statement(String contents) {
+        return "<statement>" + contents + "</statement>";
+    }
+
+    private static String forLoop(String condition) {
+        return "<forStatement>for(<simpleStatement/>"
+                + condition
+                + ";"
+                + "<expression>i++</expression>)<statement/></forStatement>";
+    }
+
+    private static String primary(String identifier) {
+        return "<expression><primaryExpression><identifier>"
+                + identifier
+                + "</identifier></primaryExpression></expression>";
+    }
+
+    private static String member(String expression, String member) {
+        return "<expression>"
+                + expression
+                + ".<identifier>"
+                + member
+                + "</identifier></expression>";
+    }
+
+    private static String less(String left, String right) {
+        return "<expression>" + left + "&lt;" + right + "</expression>";
+    }
+
+    private static String struct(String... types) {
+        StringBuilder struct = new StringBuilder("<structDefinition>");
+        for (String type : types) {
+            struct.append("<variableDeclaration><typeName><elementaryTypeName>")
+                    .append(type)
+                    .append("</elementaryTypeName></typeName></variableDeclaration>");
+        }
+        return struct.append("</structDefinition>").toString();
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml));
+    }
+}
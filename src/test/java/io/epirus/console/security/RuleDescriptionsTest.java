@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RuleDescriptionsTest {
+    private File tempDir;
+
+    @BeforeEach
+    void setup() {
+        tempDir = Folders.tempBuildFolder();
+    }
+
+    @Test
+    public void descriptionsAreIndexedFromDirectory() throws IOException {
+        Path rule = tempDir.toPath().resolve("rule_descriptions").resolve("SOLIDITY_TEST_RULE");
+        Files.createDirectories(rule);
+        Files.write(rule.resolve("name_en.txt"), "Test rule\n".getBytes());
+        Files.write(rule.resolve("description_en.html"), "Rule description".getBytes());
+
+        RuleDescriptions descriptions = load(tempDir.toURI().toURL());
+
+        assertEquals(1, descriptions.size());
+        assertEquals("Test rule", descriptions.name("SOLIDITY_TEST_RULE"));
+        assertEquals("Rule description", descriptions.description("SOLIDITY_TEST_RULE"));
+        assertEquals("", descriptions.name("SOLIDITY_UNKNOWN_RULE"));
+    }
+
+    @Test
+    public void descriptionsAreIndexedFromJar() throws IOException {
+        File jar = new File(tempDir, "rules.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            outputStream.putNextEntry(new JarEntry("rule_descriptions/"));
+            outputStream.putNextEntry(new JarEntry("rule_descriptions/VYPER_TEST_RULE/"));
+            outputStream.putNextEntry(
+                    new JarEntry("rule_descriptions/VYPER_TEST_RULE/name_en.txt"));
+            outputStream.write("Vyper rule".getBytes());
+            outputStream.closeEntry();
+        }
+
+        RuleDescriptions descriptions = load(jar.toURI().toURL());
+
+        assertEquals("Vyper rule", descriptions.name("VYPER_TEST_RULE"));
+    }
+
+    @Test
+    public void rulesMissingFromIndexAreResolvedIndividually() throws IOException {
+        File jar = new File(tempDir, "rules.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            // Without directory entries, the rule cannot be found by listing the resources
+            outputStream.putNextEntry(
+                    new JarEntry("rule_descriptions/SOLIDITY_TEST_RULE/name_en.txt"));
+            outputStream.write("Test rule".getBytes());
+            outputStream.closeEntry();
+            outputStream.putNextEntry(
+                    new JarEntry("rule_descriptions/SOLIDITY_TEST_RULE/description_en.html"));
+            outputStream.write("Rule description".getBytes());
+            outputStream.closeEntry();
+        }
+
+        RuleDescriptions descriptions = load(jar.toURI().toURL());
+
+        assertEquals(0, descriptions.size());
+        assertEquals("Rule description", descriptions.description("SOLIDITY_TEST_RULE"));
+        assertEquals("Test rule", descriptions.name("SOLIDITY_TEST_RULE"));
+        assertEquals("", descriptions.gasImpact("SOLIDITY_TEST_RULE"));
+        assertEquals("", descriptions.name("SOLIDITY_UNKNOWN_RULE"));
+    }
+
+    @Test
+    public void findingsAreFormattedAsAlignedTable() {
+        String table =
+                DefaultMedia.formatAsTable(
+                        Arrays.asList(
+                                new AuditFinding(1, 2, 1, "RULE", "a1"),
+                                new AuditFinding(10, 20, 3, "LONGER_RULE", "b2")));
+
+        assertEquals(
+                "   1:2     severity:1      RULE_a1          \n"
+                        + "   10:20   severity:3      LONGER_RULE_b2   \n",
+                table);
+    }
+
+    private RuleDescriptions load(URL url) {
+        return RuleDescriptions.load(new URLClassLoader(new URL[] {url}, null));
+    }
+}
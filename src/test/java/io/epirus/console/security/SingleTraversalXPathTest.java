@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.security;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class SingleTraversalXPathTest {
+
+    private static final String TREE =
+            "<sourceUnit>"
+                    + "<contractDefinition id='c1'>"
+                    + "<functionDefinition id='f1'><visibleType>public</visibleType>"
+                    + "<functionCall id='call1'><identifier>send</identifier></functionCall>"
+                    + "<functionCall id='call2'><identifier>transfer</identifier></functionCall>"
+                    + "</functionDefinition>"
+                    + "<functionDefinition id='f2'>"
+                    + "<block><functionDefinition id='f3'/>"
+                    + "<functionCall id='call3'><identifier>send</identifier></functionCall>"
+                    + "</block></functionDefinition>"
+                    + "</contractDefinition>"
+                    + "<contractDefinition id='c2'/>"
+                    + "</sourceUnit>";
+
+    private static final List<String> PATTERNS =
+            Arrays.asList(
+                    "//functionCall[identifier[text()='send']]",
+                    "//functionDefinition[not(visibleType)]",
+                    "//functionDefinition//functionCall",
+                    "//contractDefinition/functionDefinition[1]",
+                    "//functionDefinition[ancestor::contractDefinition[@id='c1']]/@id",
+                    "//contractDefinition[not(descendant::functionCall)] | //block",
+                    "//functionCall[last()]",
+                    "//modifierDefinition");
+
+    @Test
+    public void findsTheSameNodesAsEvaluatingEachPattern() throws Exception {
+        Document document = parse(TREE);
+
+        XPath reference = XPathFactory.newInstance().newXPath();
+        XPath singlePass = RuleEngine.SINGLE_PASS.createXPath();
+        List<XPathExpression> expressions = new ArrayList<>();
+        for (String pattern : PATTERNS) {
+            expressions.add(singlePass.compile(pattern));
+        }
+
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            assertEquals(
+                    ids(
+                            (NodeList)
+                                    reference.evaluate(
+                                            PATTERNS.get(i), document, XPathConstants.NODESET)),
+                    ids((NodeList) expressions.get(i).evaluate(document, XPathConstants.NODESET)),
+                    PATTERNS.get(i));
+        }
+    }
+
+    @Test
+    public void resultsAreNotSharedBetweenDocuments() throws Exception {
+        XPathExpression expression = RuleEngine.SINGLE_PASS.createXPath().compile("//functionCall");
+        Document first = parse("<a><functionCall/></a>");
+        Document second = parse("<a/>");
+
+        assertEquals(
+                1, ((NodeList) expression.evaluate(first, XPathConstants.NODESET)).getLength());
+        assertEquals(
+                0, ((NodeList) expression.evaluate(second, XPathConstants.NODESET)).getLength());
+        assertFalse((Boolean) expression.evaluate(second, XPathConstants.BOOLEAN));
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> ids(NodeList nodes) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            Node id = node.getAttributes() == null ? null : node.getAttributes().getNamedItem("id");
+            ids.add(
+                    node.getNodeName()
+                            + "#"
+                            + (id == null ? node.getNodeValue() : id.getNodeValue()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.tx;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.SignatureException;
+import java.util.List;
+
+import io.epirus.console.project.utils.Folders;
+import io.epirus.console.wallet.BatchTransfer;
+import io.epirus.console.wallet.TransactionSigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.SignedRawTransaction;
+import org.web3j.crypto.TransactionDecoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionPlanTest {
+    private static final Credentials CREDENTIALS =
+            Credentials.create(
+                    "0x8f2a55949038a9610f50fb23b5883af3b4ecb3c3bb792cbcefbd1542c692be63");
+    private static final String RECIPIENT = "0x19e03255f667bdfd50a32722df860b1eeaf4d635";
+
+    private File tempDir;
+
+    @BeforeEach
+    void setup() {
+        tempDir = Folders.tempBuildFolder();
+    }
+
+    @Test
+    public void csvPlanIsSignedWithConsecutiveNonces() throws IOException, SignatureException {
+        File planFile =
+                write(
+                        "plan.csv",
+                        "to,amount,unit\n" + RECIPIENT + ",1.5\n\n" + RECIPIENT + ",2,gwei\n");
+
+        List<SignedTransaction> signed =
+                TransactionPlan.read(planFile)
+                        .sign(
+                                TransactionSigner.of(CREDENTIALS),
+                                BigInteger.valueOf(7),
+                                5,
+                                BigInteger.TEN,
+                                BigInteger.valueOf(21_000));
+
+        assertEquals(2, signed.size());
+        SignedRawTransaction second =
+                (SignedRawTransaction) TransactionDecoder.decode(signed.get(1).getRaw());
+        assertEquals(BigInteger.valueOf(8), second.getNonce());
+        assertEquals(BigInteger.valueOf(2_000_000_000L), second.getValue());
+        assertEquals(Long.valueOf(5), second.getChainId());
+        assertEquals(CREDENTIALS.getAddress(), second.getFrom());
+    }
+
+    @Test
+    public void signedTransactionsRoundTrip() throws IOException {
+        File planFile =
+                write(
+                        "plan.json",
+                        "[{\"to\": \"" + RECIPIENT + "\", \"amount\": \"1\", \"unit\": \"wei\"}]");
+        List<SignedTransaction> signed =
+                TransactionPlan.read(planFile)
+                        .sign(
+                                TransactionSigner.of(CREDENTIALS),
+                                BigInteger.ONE,
+                                1,
+                                BigInteger.TEN,
+                                BigInteger.valueOf(21_000));
+        File signedFile = new File(tempDir, "plan.signed");
+
+        SignedTransaction.write(signedFile, signed);
+        BatchTransfer.SignedTransfer transfer =
+                SignedTransaction.read(signedFile).get(0).toSignedTransfer();
+
+        assertEquals(signed.get(0).getRaw(), transfer.getSignedTransaction());
+        assertEquals(signed.get(0).getHash(), transfer.getTransactionHash());
+        assertEquals(BigInteger.ONE, transfer.getRecipient().getAmountInWei());
+    }
+
+    @Test
+    public void contractCallsRequireGasLimit() throws IOException {
+        File planFile = write("plan.csv", RECIPIENT + ",0,ether,0x12345678\n");
+        TransactionPlan plan = TransactionPlan.read(planFile);
+
+        IOException e =
+                assertThrows(
+                        IOException.class,
+                        () ->
+                                plan.sign(
+                                        TransactionSigner.of(CREDENTIALS),
+                                        BigInteger.ZERO,
+                                        1,
+                                        BigInteger.TEN,
+                                        BigInteger.ONE));
+        assertTrue(e.getMessage().startsWith("Line 1:"));
+    }
+
+    @Test
+    public void ensNamesAreRejected() throws IOException {
+        File planFile = write("plan.csv", "alice.eth,1\n");
+
+        assertThrows(IOException.class, () -> TransactionPlan.read(planFile));
+    }
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        Files.write(file.toPath(), contents.getBytes());
+        return file;
+    }
+}
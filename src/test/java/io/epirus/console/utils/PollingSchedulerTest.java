@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.utils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.epirus.console.utils.PollingScheduler.Poll;
+import io.epirus.console.utils.PollingScheduler.Schedule;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PollingSchedulerTest {
+    private final PollingScheduler scheduler = new PollingScheduler();
+
+    @Test
+    public void pollCompletesWithFirstValue() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        Poll<String> poll =
+                scheduler.poll(
+                        "value",
+                        () -> calls.incrementAndGet() < 3 ? null : "ready",
+                        Schedule.backoff(Duration.ofMillis(10), Duration.ofMillis(20)));
+
+        assertEquals("ready", poll.await());
+        assertEquals(3, poll.getAttempts());
+        assertTrue(scheduler.summary().startsWith("value "));
+    }
+
+    @Test
+    public void pollGivesUpAfterDeadline() {
+        Poll<String> poll =
+                scheduler.poll(
+                        "deadline",
+                        () -> null,
+                        Schedule.backoff(Duration.ofMillis(10), Duration.ofMillis(50))
+                                .withJitter(0.5)
+                                .withDeadline(Duration.ofMillis(200)));
+
+        assertThrows(TimeoutException.class, poll::await);
+        assertTrue(scheduler.totalWaited().toMillis() >= 150);
+    }
+
+    @Test
+    public void errorsAreRetriedWithinBudget() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Schedule schedule = Schedule.backoff(Duration.ofMillis(1), Duration.ofMillis(1));
+
+        Poll<Integer> recovering =
+                scheduler.poll(
+                        "errors",
+                        () -> {
+                            if (calls.incrementAndGet() < 3) {
+                                throw new IOException("unavailable");
+                            }
+                            return calls.get();
+                        },
+                        schedule.withMaxErrors(2));
+        assertEquals(3, recovering.await());
+
+        Poll<Integer> failing =
+                scheduler.poll(
+                        "errors",
+                        () -> {
+                            throw new IOException("unavailable");
+                        },
+                        schedule.withMaxErrors(2));
+        ExecutionException e = assertThrows(ExecutionException.class, failing::await);
+        assertTrue(e.getCause() instanceof IOException);
+        assertEquals(3, failing.getAttempts());
+    }
+
+    @Test
+    public void wakeUpRunsNextAttemptEarly() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Poll<Boolean> poll =
+                scheduler.poll(
+                        "wake up",
+                        () -> calls.incrementAndGet() > 1 ? true : null,
+                        Schedule.backoff(Duration.ofHours(1), Duration.ofHours(1)));
+        while (poll.getAttempts() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(poll.result().isDone());
+
+        poll.wakeUp();
+
+        assertTrue(poll.result().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void wakeUpDuringAttemptKeepsASinglePoll() throws Exception {
+        List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Poll<Boolean>> self = new CompletableFuture<>();
+        Poll<Boolean> poll =
+                scheduler.poll(
+                        "wake up",
+                        () -> {
+                            starts.add(System.nanoTime());
+                            if (starts.size() == 1) {
+                                self.get().wakeUp();
+                            }
+                            return starts.size() == 4 ? true : null;
+                        },
+                        Schedule.backoff(Duration.ofMillis(200), Duration.ofMillis(200)));
+        self.complete(poll);
+
+        assertTrue(poll.result().get(5, TimeUnit.SECONDS));
+        assertEquals(4, poll.getAttempts());
+        // A second chain of attempts would run alongside the first one instead of after it
+        assertTrue(starts.get(3) - starts.get(2) >= Duration.ofMillis(150).toNanos());
+    }
+
+    @Test
+    public void blockedAttemptDoesNotHoldBackOtherPolls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Schedule schedule = Schedule.backoff(Duration.ofMillis(10), Duration.ofMillis(10));
+        Poll<Boolean> blocked =
+                scheduler.poll("blocked", () -> release.await(5, TimeUnit.SECONDS), schedule);
+
+        try {
+            Poll<Boolean> other = scheduler.poll("other", () -> true, schedule);
+            assertTrue(other.result().get(1, TimeUnit.SECONDS));
+            assertFalse(blocked.result().isDone());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(blocked.result().get(5, TimeUnit.SECONDS));
+    }
+}
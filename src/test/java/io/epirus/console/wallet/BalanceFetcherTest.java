@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.utils.Numeric;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BalanceFetcherTest {
+
+    private File tempDir;
+    private Web3j web3j;
+    private AtomicInteger batches;
+
+    @BeforeEach
+    void setup() throws IOException {
+        tempDir = Folders.tempBuildFolder();
+        batches = new AtomicInteger();
+        Web3jService web3jService = mock(Web3jService.class);
+        when(web3jService.sendBatch(any(BatchRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            batches.incrementAndGet();
+                            BatchRequest batch = invocation.getArgument(0);
+                            List<Response<?>> responses = new ArrayList<>();
+                            for (Request<?, ?> request : batch.getRequests()) {
+                                EthGetBalance balance = new EthGetBalance();
+                                balance.setId(request.getId());
+                                balance.setResult(
+                                        Numeric.toHexStringWithPrefix(
+                                                balanceOf((String) request.getParams().get(0))));
+                                responses.add(balance);
+                            }
+                            Collections.reverse(responses);
+                            return new BatchResponse(batch.getRequests(), responses);
+                        });
+        web3j = Web3j.build(web3jService);
+    }
+
+    @Test
+    public void balancesAreFetchedInBatches() throws Exception {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            addresses.add(String.format("0x%040x", i));
+        }
+        Map<String, BigInteger> balances = new ConcurrentHashMap<>();
+
+        new BalanceFetcher(web3j, 100, 2)
+                .fetch(
+                        addresses,
+                        balance -> {
+                            assertNull(balance.getError());
+                            balances.put(balance.getAddress(), balance.getWei());
+                        });
+
+        assertEquals(3, batches.get());
+        assertEquals(250, balances.size());
+        addresses.forEach(address -> assertEquals(balanceOf(address), balances.get(address)));
+    }
+
+    @Test
+    public void addressesAreCollectedFromInputs() throws IOException {
+        File keystores = new File(tempDir, "keystores");
+        keystores.mkdirs();
+        Files.write(
+                new File(
+                                keystores,
+                                "UTC--2020-01-01T00-00-00.0Z--"
+                                        + SampleKeys.ADDRESS_NO_PREFIX
+                                        + ".json")
+                        .toPath(),
+                "{}".getBytes());
+        File index = new File(tempDir, WalletGenerator.DEFAULT_INDEX_FILE_NAME);
+        Files.write(
+                index.toPath(),
+                Arrays.asList(
+                        "address,file",
+                        "0x00000000000000000000000000000000000000AA,a.json",
+                        SampleKeys.ADDRESS + ",b.json"));
+
+        List<String> addresses =
+                BalanceFetcher.addresses(
+                        Arrays.asList(
+                                "0x0000000000000000000000000000000000000001",
+                                keystores.getPath(),
+                                index.getPath()));
+
+        assertEquals(
+                Arrays.asList(
+                        "0x0000000000000000000000000000000000000001",
+                        SampleKeys.ADDRESS,
+                        "0x00000000000000000000000000000000000000aa"),
+                addresses);
+    }
+
+    private static BigInteger balanceOf(String address) {
+        return Numeric.toBigInt(address).multiply(BigInteger.TEN.pow(18));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthFilter;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.EthUninstallFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BalanceWatcherTest {
+    private static final String ADDRESS = "0x19e03255f667bdfd50a32722df860b1eeaf4d635";
+    private static final Duration INTERVAL = Duration.ofMillis(20);
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicLong head = new AtomicLong(100);
+    private final AtomicLong filtered = new AtomicLong(100);
+    private final AtomicLong balance = new AtomicLong();
+    private boolean filters = true;
+    private volatile boolean balanceErrors;
+    private volatile CountDownLatch balanceGate;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Web3jService web3jService = mock(Web3jService.class);
+        when(web3jService.send(any(Request.class), any()))
+                .thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(web3jService.sendAsync(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                CompletableFuture.supplyAsync(
+                                        () -> respond(invocation.getArgument(0))));
+        when(web3jService.subscribe(any(Request.class), any(), any()))
+                .thenThrow(new UnsupportedOperationException("HTTP"));
+        web3j = Web3j.build(web3jService);
+    }
+
+    @Test
+    public void balanceIsCheckedOnNewBlocksFromFilter() throws Exception {
+        try (BalanceWatcher watcher = new BalanceWatcher(web3j, INTERVAL)) {
+            CompletableFuture<BigInteger> funded =
+                    watcher.watchUntilAtLeast(ADDRESS, BigInteger.TEN);
+            Thread.sleep(200);
+            assertFalse(funded.isDone());
+            // No block arrived, so the balance was only checked once
+            assertEquals(1, watcher.getBalanceRequests());
+
+            balance.set(10);
+            head.incrementAndGet();
+
+            assertEquals(BigInteger.TEN, funded.get(5, TimeUnit.SECONDS));
+            assertTrue(watcher.getHeads() >= 1);
+            assertEquals(0, count("eth_blockNumber"));
+        }
+    }
+
+    @Test
+    public void filterIsUninstalledOnClose() throws Exception {
+        try (BalanceWatcher watcher = new BalanceWatcher(web3j, INTERVAL)) {
+            watcher.watchUntilAtLeast(ADDRESS, BigInteger.TEN);
+            while (count("eth_getFilterChanges") == 0) {
+                Thread.sleep(5);
+            }
+        }
+
+        for (int i = 0; i < 100 && count("eth_uninstallFilter") == 0; i++) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, count("eth_uninstallFilter"));
+    }
+
+    @Test
+    public void blockNumberIsPolledWithoutFilters() throws Exception {
+        filters = false;
+
+        try (BalanceWatcher watcher = new BalanceWatcher(web3j, INTERVAL)) {
+            CompletableFuture<BigInteger> funded = watcher.watch(ADDRESS, b -> b.signum() > 0);
+            while (count("eth_blockNumber") == 0) {
+                Thread.sleep(5);
+            }
+            balance.set(1);
+            head.incrementAndGet();
+
+            assertEquals(BigInteger.ONE, funded.get(5, TimeUnit.SECONDS));
+            assertEquals(0, count("eth_getFilterChanges"));
+        }
+    }
+
+    @Test
+    public void balanceIsQueriedAgainWhenBlockArrivesDuringQuery() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        balanceGate = gate;
+
+        try (BalanceWatcher watcher = new BalanceWatcher(web3j, INTERVAL)) {
+            CompletableFuture<BigInteger> funded =
+                    watcher.watchUntilAtLeast(ADDRESS, BigInteger.TEN);
+            while (count("eth_getBalance") == 0) {
+                Thread.sleep(5);
+            }
+            balance.set(10);
+            head.incrementAndGet();
+            while (watcher.getHeads() == 0) {
+                Thread.sleep(5);
+            }
+            gate.countDown();
+
+            assertEquals(BigInteger.TEN, funded.get(5, TimeUnit.SECONDS));
+            assertEquals(1, watcher.getHeads());
+            assertEquals(2, watcher.getBalanceRequests());
+        }
+    }
+
+    @Test
+    public void watchFailsAfterConsecutiveErrors() throws Exception {
+        balanceErrors = true;
+
+        try (BalanceWatcher watcher = new BalanceWatcher(web3j, INTERVAL)) {
+            CompletableFuture<BigInteger> funded =
+                    watcher.watchUntilAtLeast(ADDRESS, BigInteger.TEN);
+            for (int i = 0; i < 100 && !funded.isDone(); i++) {
+                head.incrementAndGet();
+                Thread.sleep(INTERVAL.toMillis() * 2);
+            }
+
+            ExecutionException e =
+                    assertThrows(ExecutionException.class, () -> funded.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals(BalanceWatcher.MAX_BALANCE_ERRORS, watcher.getBalanceRequests());
+        }
+    }
+
+    private int count(String method) {
+        return requests.getOrDefault(method, new AtomicInteger()).get();
+    }
+
+    private Response<?> respond(Request<?, ?> request) {
+        requests.computeIfAbsent(request.getMethod(), m -> new AtomicInteger()).incrementAndGet();
+        switch (request.getMethod()) {
+            case "eth_newBlockFilter":
+                EthFilter filter = new EthFilter();
+                if (filters) {
+                    filter.setResult("0x1");
+                } else {
+                    filter.setError(new Response.Error(-32601, "method not found"));
+                }
+                return filter;
+            case "eth_uninstallFilter":
+                EthUninstallFilter uninstalled = new EthUninstallFilter();
+                uninstalled.setResult(true);
+                return uninstalled;
+            case "eth_getFilterChanges":
+                EthLog changes = new EthLog();
+                changes.setResult(
+                        filtered.getAndSet(head.get()) == head.get()
+                                ? Collections.emptyList()
+                                : Collections.singletonList(new EthLog.Hash("0xabc")));
+                return changes;
+            case "eth_blockNumber":
+                EthBlockNumber blockNumber = new EthBlockNumber();
+                blockNumber.setResult("0x" + Long.toHexString(head.get()));
+                return blockNumber;
+            case "eth_getBalance":
+                EthGetBalance getBalance = new EthGetBalance();
+                if (balanceErrors) {
+                    getBalance.setError(new Response.Error(-32000, "header not found"));
+                    return getBalance;
+                }
+                long current = balance.get();
+                CountDownLatch gate = balanceGate;
+                if (gate != null) {
+                    // Only the first query is held back
+                    balanceGate = null;
+                    try {
+                        gate.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                getBalance.setResult("0x" + Long.toHexString(current));
+                return getBalance;
+            default:
+                throw new IllegalArgumentException(request.getMethod());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.epirus.console.project.utils.Folders;
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+import io.epirus.console.wallet.receipt.ReceiptWaitStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.SignedRawTransaction;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthChainId;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Convert;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchTransferTest {
+
+    private static final String RECIPIENT = "0x0000000000000000000000000000000000000001";
+
+    private File tempDir;
+    private Web3jService web3jService;
+    private Map<String, AtomicInteger> calls;
+    private int rejectedNonce;
+    private boolean chainIdUnavailable;
+
+    @BeforeEach
+    void setup() throws IOException {
+        tempDir = Folders.tempBuildFolder();
+        calls = new ConcurrentHashMap<>();
+        rejectedNonce = -1;
+        chainIdUnavailable = false;
+        web3jService = mock(Web3jService.class);
+        when(web3jService.send(any(Request.class), any()))
+                .thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(web3jService.sendAsync(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                CompletableFuture.supplyAsync(
+                                        () -> respond(invocation.getArgument(0))));
+    }
+
+    @Test
+    public void batchFileIsParsed() throws IOException {
+        File batchFile = new File(tempDir, "transfers.csv");
+        Files.write(
+                batchFile.toPath(),
+                Arrays.asList(
+                        "address,amount,unit",
+                        RECIPIENT + ",1.5",
+                        "",
+                        "# comment",
+                        "vitalik.eth, 3, wei"));
+
+        List<BatchTransfer.Recipient> recipients = BatchTransfer.read(batchFile);
+
+        assertEquals(2, recipients.size());
+        assertEquals(2, recipients.get(0).getLine());
+        assertEquals(
+                Convert.toWei("1.5", Convert.Unit.ETHER).toBigIntegerExact(),
+                recipients.get(0).getAmountInWei());
+        assertEquals("vitalik.eth", recipients.get(1).getAddress());
+        assertEquals(BigInteger.valueOf(3), recipients.get(1).getAmountInWei());
+    }
+
+    @Test
+    public void invalidAmountIsReportedWithItsLine() throws IOException {
+        File batchFile = new File(tempDir, "transfers.csv");
+        Files.write(batchFile.toPath(), Collections.singletonList(RECIPIENT + ",0.5,wei"));
+
+        IOException e = assertThrows(IOException.class, () -> BatchTransfer.read(batchFile));
+        assertEquals("Line 1: invalid amount 0.5", e.getMessage());
+    }
+
+    @Test
+    public void noncesAreAssignedLocally() throws Exception {
+        List<BatchTransfer.SignedTransfer> transfers = batchTransfer().sign(recipients(3));
+
+        assertEquals(1, calls.get("eth_getTransactionCount").get());
+        for (int i = 0; i < transfers.size(); i++) {
+            SignedRawTransaction transaction =
+                    (SignedRawTransaction)
+                            TransactionDecoder.decode(transfers.get(i).getSignedTransaction());
+            assertEquals(BigInteger.valueOf(7 + i), transaction.getNonce());
+            assertEquals(SampleKeys.ADDRESS, transaction.getFrom());
+            assertEquals(Long.valueOf(3), transaction.getChainId());
+        }
+    }
+
+    @Test
+    public void signingFailsWithoutChainId() {
+        chainIdUnavailable = true;
+
+        IOException e = assertThrows(IOException.class, () -> batchTransfer().sign(recipients(1)));
+        assertEquals("Unable to prepare transactions: method not found", e.getMessage());
+    }
+
+    @Test
+    public void allTransfersAreConfirmed() throws Exception {
+        BatchTransfer batchTransfer = batchTransfer();
+        List<BatchTransfer.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        batchTransfer.execute(batchTransfer.sign(recipients(20)), results::add);
+
+        assertEquals(20, results.size());
+        assertEquals(20, calls.get("eth_sendRawTransaction").get());
+        results.forEach(result -> assertEquals(BatchTransfer.Status.CONFIRMED, result.getStatus()));
+    }
+
+    @Test
+    public void transfersAfterRejectionAreNotSent() throws Exception {
+        rejectedNonce = 8;
+        BatchTransfer batchTransfer =
+                new BatchTransfer(
+                        web3j(), TransactionSigner.of(SampleKeys.CREDENTIALS), 1, receiptAwaiter());
+        List<BatchTransfer.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        batchTransfer.execute(batchTransfer.sign(recipients(4)), results::add);
+
+        assertEquals(4, results.size());
+        assertEquals(BatchTransfer.Status.FAILED, status(results, 8));
+        assertEquals(BatchTransfer.Status.CONFIRMED, status(results, 7));
+        assertEquals(BatchTransfer.Status.NOT_SENT, status(results, 9));
+        assertEquals(BatchTransfer.Status.NOT_SENT, status(results, 10));
+    }
+
+    private BatchTransfer batchTransfer() {
+        return new BatchTransfer(
+                web3j(), TransactionSigner.of(SampleKeys.CREDENTIALS), 4, receiptAwaiter());
+    }
+
+    private ReceiptAwaiter receiptAwaiter() {
+        return ReceiptAwaiter.create(ReceiptWaitStrategy.BACKOFF, web3j(), 1, 60_000);
+    }
+
+    private Web3j web3j() {
+        return Web3j.build(web3jService);
+    }
+
+    private static List<BatchTransfer.Recipient> recipients(int count) {
+        List<BatchTransfer.Recipient> recipients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recipients.add(new BatchTransfer.Recipient(i + 1, RECIPIENT, BigInteger.TEN));
+        }
+        return recipients;
+    }
+
+    private static BatchTransfer.Status status(List<BatchTransfer.Result> results, int nonce) {
+        return results.stream()
+                .filter(result -> result.getTransfer().getNonce().intValue() == nonce)
+                .findFirst()
+                .get()
+                .getStatus();
+    }
+
+    private Response<?> respond(Request<?, ?> request) {
+        calls.computeIfAbsent(request.getMethod(), method -> new AtomicInteger()).incrementAndGet();
+        switch (request.getMethod()) {
+            case "eth_getTransactionCount":
+                EthGetTransactionCount transactionCount = new EthGetTransactionCount();
+                transactionCount.setResult("0x7");
+                return transactionCount;
+            case "eth_gasPrice":
+                EthGasPrice gasPrice = new EthGasPrice();
+                gasPrice.setResult("0x3b9aca00");
+                return gasPrice;
+            case "eth_chainId":
+                EthChainId chainId = new EthChainId();
+                if (chainIdUnavailable) {
+                    chainId.setError(new Response.Error(-32601, "method not found"));
+                } else {
+                    chainId.setResult("0x3");
+                }
+                return chainId;
+            case "eth_sendRawTransaction":
+                EthSendTransaction sendTransaction = new EthSendTransaction();
+                String signed = (String) request.getParams().get(0);
+                if (TransactionDecoder.decode(signed).getNonce().intValue() == rejectedNonce) {
+                    sendTransaction.setError(new Response.Error(-32000, "nonce too low"));
+                } else {
+                    sendTransaction.setResult(Hash.sha3(signed));
+                }
+                return sendTransaction;
+            case "eth_getTransactionReceipt":
+                TransactionReceipt receipt = new TransactionReceipt();
+                receipt.setTransactionHash((String) request.getParams().get(0));
+                receipt.setBlockNumber("0x1");
+                receipt.setStatus("0x1");
+                EthGetTransactionReceipt transactionReceipt = new EthGetTransactionReceipt();
+                transactionReceipt.setResult(receipt);
+                return transactionReceipt;
+            default:
+                throw new UnsupportedOperationException(request.getMethod());
+        }
+    }
+}
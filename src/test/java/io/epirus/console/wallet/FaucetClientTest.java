@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FaucetClientTest {
+    private static final List<String> ADDRESSES =
+            Arrays.asList(
+                    "0x19e03255f667bdfd50a32722df860b1eeaf4d635",
+                    "0x2a20380dca5bc24d052acfbf79ba23e988ad0050",
+                    "0xe4d26b3dbcb8ab2e0b9fb2ff8e6fa2bcbd36eb0e");
+
+    private WireMockServer faucet;
+
+    @BeforeEach
+    void setup() {
+        faucet = new WireMockServer(wireMockConfig().dynamicPort());
+        faucet.start();
+        faucet.stubFor(
+                get(urlEqualTo("/seed/0.2"))
+                        .willReturn(
+                                aResponse().withBody("{\"difficulty\": 1, \"seed\": \"abc\"}")));
+        faucet.stubFor(
+                post(urlEqualTo("/send"))
+                        .willReturn(aResponse().withBody("{\"result\": \"0x01\"}")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        faucet.stop();
+    }
+
+    @Test
+    public void everyAddressIsFundedWithItsOwnProofOfWork() throws InterruptedException {
+        List<FaucetClient.Result> results = new ArrayList<>();
+
+        new FaucetClient(faucet.baseUrl(), null, 2, 2, 0).fundAll(ADDRESSES, results::add);
+
+        assertEquals(3, results.size());
+        for (FaucetClient.Result result : results) {
+            assertEquals("0x01", result.getTransactionHash());
+            assertNotNull(result.getSolution());
+            faucet.verify(
+                    postRequestedFor(urlEqualTo("/send"))
+                            .withRequestBody(containing(result.getAddress())));
+        }
+    }
+
+    @Test
+    public void requestsAreRateLimited() throws InterruptedException {
+        faucet.stubFor(
+                post(urlEqualTo("/send/token"))
+                        .willReturn(aResponse().withBody("{\"result\": \"0x02\"}")));
+        long start = System.nanoTime();
+
+        new FaucetClient(faucet.baseUrl(), "token", 3, 1, 10).fundAll(ADDRESSES, result -> {});
+
+        // Three requests at 10 per second need at least two intervals of 100 ms
+        assertTrue(System.nanoTime() - start >= 200_000_000L);
+        assertEquals(0, faucet.findAll(postRequestedFor(urlEqualTo("/send"))).size());
+        assertEquals(3, faucet.findAll(postRequestedFor(urlEqualTo("/send/token"))).size());
+    }
+
+    @Test
+    public void failuresAreReportedPerAddress() throws InterruptedException {
+        faucet.stubFor(post(urlEqualTo("/send")).willReturn(aResponse().withStatus(429)));
+        List<FaucetClient.Result> results = new ArrayList<>();
+
+        new FaucetClient(faucet.baseUrl(), null, 4, 4, 0).fundAll(ADDRESSES, results::add);
+
+        assertEquals(3, results.size());
+        assertNull(results.get(0).getTransactionHash());
+        assertEquals("The faucet request failed with code: 429", results.get(0).getError());
+    }
+}
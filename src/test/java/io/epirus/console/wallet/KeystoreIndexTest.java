@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeystoreIndexTest {
+    private static final String ADDRESS = "0xef678007d18427e6022059dbc264f27507cd1ffc";
+    private static final String WALLET_FILE_NAME =
+            "UTC--2016-11-03T05-55-06.340672473Z--ef678007d18427e6022059dbc264f27507cd1ffc";
+
+    private File tempDir;
+    private Path indexPath;
+
+    @BeforeEach
+    void setup() {
+        tempDir = Folders.tempBuildFolder();
+        indexPath = tempDir.toPath().resolve("keystore-index.json");
+    }
+
+    @Test
+    public void walletsAreFoundByAddressAfterReload() throws IOException {
+        File walletFile = createFile(WALLET_FILE_NAME + ".json");
+        KeystoreIndex index = KeystoreIndex.load(indexPath);
+        assertFalse(index.exists());
+        index.add(ADDRESS.toUpperCase().substring(2), walletFile);
+        index.save();
+
+        KeystoreIndex reloaded = KeystoreIndex.load(indexPath);
+        assertTrue(reloaded.exists());
+        assertEquals(Optional.of(walletFile.getAbsoluteFile()), reloaded.find(ADDRESS));
+        assertEquals(1, reloaded.list().size());
+    }
+
+    @Test
+    public void deletedWalletsAreNotFound() throws IOException {
+        File walletFile = createFile(WALLET_FILE_NAME);
+        KeystoreIndex index = KeystoreIndex.load(indexPath);
+        index.add(ADDRESS, walletFile);
+        Files.delete(walletFile.toPath());
+
+        assertEquals(Optional.empty(), index.find(ADDRESS));
+    }
+
+    @Test
+    public void scanIndexesWalletFilesByName() throws IOException {
+        createFile(WALLET_FILE_NAME);
+        createFile("addresses.csv");
+        KeystoreIndex index = KeystoreIndex.load(indexPath);
+
+        assertEquals(1, index.scan(tempDir));
+        assertTrue(index.find(ADDRESS).isPresent());
+        assertEquals(0, index.scan(new File(tempDir, "missing")));
+    }
+
+    @Test
+    public void addressIsReadFromStandardFileNames() {
+        assertEquals(Optional.of(ADDRESS), KeystoreIndex.addressFromFileName(WALLET_FILE_NAME));
+        assertEquals(Optional.empty(), KeystoreIndex.addressFromFileName("TEST_WALLET.json"));
+    }
+
+    private File createFile(String name) throws IOException {
+        File file = new File(tempDir, name);
+        Files.write(file.toPath(), "{}".getBytes());
+        return file;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.protocol.ObjectMapperFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PasswordRotationTest {
+
+    private static final String OLD_PASSWORD = "old password";
+    private static final String NEW_PASSWORD = "new password";
+
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+
+    private File tempDir;
+
+    @BeforeEach
+    void setup() {
+        tempDir = Folders.tempBuildFolder();
+    }
+
+    @Test
+    public void walletFilesAreReEncryptedInPlace() throws Exception {
+        List<File> walletFiles = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            walletFiles.add(writeWallet(OLD_PASSWORD));
+        }
+        File otherPassword = writeWallet("other password");
+        File notAWallet = new File(tempDir, "config.json");
+        Files.write(notAWallet.toPath(), "{\"network\": \"rinkeby\"}".getBytes());
+        List<File> files = new ArrayList<>(walletFiles);
+        files.add(otherPassword);
+        files.add(notAWallet);
+
+        // Enough memory for a single light wallet at a time
+        List<PasswordRotation.Outcome> outcomes =
+                new PasswordRotation(OLD_PASSWORD, NEW_PASSWORD, 4, 4 << 20)
+                        .rotate(files, outcome -> {});
+
+        Map<File, PasswordRotation.Status> statuses =
+                outcomes.stream()
+                        .collect(
+                                Collectors.toMap(
+                                        PasswordRotation.Outcome::getFile,
+                                        PasswordRotation.Outcome::getStatus));
+        assertEquals(PasswordRotation.Status.WRONG_PASSWORD, statuses.get(otherPassword));
+        assertEquals(PasswordRotation.Status.SKIPPED, statuses.get(notAWallet));
+        for (File walletFile : walletFiles) {
+            assertEquals(PasswordRotation.Status.ROTATED, statuses.get(walletFile));
+            WalletFile rotated = objectMapper.readValue(walletFile, WalletFile.class);
+            assertEquals(
+                    1 << 12,
+                    ((WalletFile.ScryptKdfParams) rotated.getCrypto().getKdfparams()).getN());
+            assertEquals(
+                    "0x" + rotated.getAddress(),
+                    WalletUtils.loadCredentials(NEW_PASSWORD, walletFile).getAddress());
+        }
+        assertEquals(6, tempDir.listFiles().length);
+    }
+
+    @Test
+    public void standardWalletNeedsQuarterGigabyte() {
+        assertEquals(256L << 20, PasswordRotation.scryptMemory(1 << 18, 8));
+    }
+
+    private File writeWallet(String password) throws Exception {
+        WalletFile walletFile = Wallet.createLight(password, Keys.createEcKeyPair());
+        File file = new File(tempDir, "UTC--" + walletFile.getAddress() + ".json");
+        objectMapper.writeValue(file, walletFile);
+        return file;
+    }
+}
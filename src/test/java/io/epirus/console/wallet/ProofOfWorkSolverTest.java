@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import org.web3j.utils.Numeric;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.web3j.crypto.Hash.sha256;
+
+public class ProofOfWorkSolverTest {
+
+    @Test
+    public void solutionHashStartsWithZeros() throws InterruptedException {
+        String seed = "0xc0ffee";
+        ProofOfWorkSolver.Solution solution = new ProofOfWorkSolver(4).solve(seed, 4);
+
+        String hash =
+                Numeric.toHexStringNoPrefix(
+                        sha256((solution.getNonce() + seed).getBytes(StandardCharsets.UTF_8)));
+        assertTrue(hash.startsWith("0000"), hash);
+        assertTrue(solution.getHashes() > 0);
+    }
+
+    @Test
+    public void searchFindsTheFirstMatchingNonceAcrossDigitRollovers() {
+        String seed = "seed";
+        long expected = -1;
+        for (long nonce = 0; expected < 0; nonce++) {
+            String hash =
+                    Numeric.toHexStringNoPrefix(
+                            sha256((nonce + seed).getBytes(StandardCharsets.UTF_8)));
+            if (hash.startsWith("00")) {
+                expected = nonce;
+            }
+        }
+
+        assertEquals(
+                expected,
+                new ProofOfWorkSolver.Search(seed).scan(0, expected + 1, 2, new AtomicLong(-1)));
+        assertEquals(
+                -1, new ProofOfWorkSolver.Search(seed).scan(0, expected, 2, new AtomicLong(-1)));
+    }
+
+    @Test
+    public void leadingZeroNibblesAreCheckedOnRawBytes() {
+        byte[] digest = {0x00, 0x0f, (byte) 0xff};
+
+        assertTrue(ProofOfWorkSolver.hasLeadingZeroNibbles(digest, 3));
+        assertFalse(ProofOfWorkSolver.hasLeadingZeroNibbles(digest, 4));
+        assertTrue(ProofOfWorkSolver.hasLeadingZeroNibbles(digest, 0));
+    }
+}
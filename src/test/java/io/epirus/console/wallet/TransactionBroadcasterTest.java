@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.epirus.console.wallet.receipt.ReceiptAwaiter;
+import io.epirus.console.wallet.receipt.ReceiptWaitStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthChainId;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.EthTransaction;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransactionBroadcasterTest {
+
+    private static final String RECIPIENT = "0x0000000000000000000000000000000000000001";
+
+    private Web3jService web3jService;
+    private Set<String> mined;
+
+    @BeforeEach
+    void setup() throws IOException {
+        mined = ConcurrentHashMap.newKeySet();
+        web3jService = mock(Web3jService.class);
+        when(web3jService.send(any(Request.class), any()))
+                .thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(web3jService.sendAsync(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                CompletableFuture.supplyAsync(
+                                        () -> respond(invocation.getArgument(0))));
+    }
+
+    @Test
+    public void transactionMinedByAnEarlierRunIsAwaited() throws Exception {
+        List<BatchTransfer.SignedTransfer> transfers = sign(3);
+        mined.add(transfers.get(0).getTransactionHash());
+
+        List<BatchTransfer.Result> results = broadcast(transfers);
+
+        assertEquals(3, results.size());
+        results.forEach(result -> assertEquals(BatchTransfer.Status.CONFIRMED, result.getStatus()));
+    }
+
+    @Test
+    public void usedNonceOfUnknownTransactionIsFailed() throws Exception {
+        List<BatchTransfer.SignedTransfer> transfers = sign(3);
+
+        List<BatchTransfer.Result> results = broadcast(transfers);
+
+        assertEquals(3, results.size());
+        assertEquals(BatchTransfer.Status.FAILED, status(results, 7));
+        assertEquals(BatchTransfer.Status.NOT_SENT, status(results, 8));
+        assertEquals(BatchTransfer.Status.NOT_SENT, status(results, 9));
+    }
+
+    private List<BatchTransfer.SignedTransfer> sign(int count) throws Exception {
+        List<BatchTransfer.Recipient> recipients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recipients.add(new BatchTransfer.Recipient(i + 1, RECIPIENT, BigInteger.TEN));
+        }
+        return new BatchTransfer(
+                        web3j(), TransactionSigner.of(SampleKeys.CREDENTIALS), 1, receiptAwaiter())
+                .sign(recipients);
+    }
+
+    private List<BatchTransfer.Result> broadcast(List<BatchTransfer.SignedTransfer> transfers)
+            throws InterruptedException {
+        List<BatchTransfer.Result> results = Collections.synchronizedList(new ArrayList<>());
+        try (ReceiptAwaiter receiptAwaiter = receiptAwaiter()) {
+            new TransactionBroadcaster(web3j(), 1, receiptAwaiter)
+                    .broadcast(transfers, results::add);
+        }
+        return results;
+    }
+
+    private ReceiptAwaiter receiptAwaiter() {
+        return ReceiptAwaiter.create(ReceiptWaitStrategy.BACKOFF, web3j(), 1, 60_000);
+    }
+
+    private Web3j web3j() {
+        return Web3j.build(web3jService);
+    }
+
+    private static BatchTransfer.Status status(List<BatchTransfer.Result> results, int nonce) {
+        return results.stream()
+                .filter(result -> result.getTransfer().getNonce().intValue() == nonce)
+                .findFirst()
+                .get()
+                .getStatus();
+    }
+
+    private Response<?> respond(Request<?, ?> request) {
+        switch (request.getMethod()) {
+            case "eth_getTransactionCount":
+                EthGetTransactionCount transactionCount = new EthGetTransactionCount();
+                transactionCount.setResult("0x7");
+                return transactionCount;
+            case "eth_gasPrice":
+                EthGasPrice gasPrice = new EthGasPrice();
+                gasPrice.setResult("0x3b9aca00");
+                return gasPrice;
+            case "eth_chainId":
+                EthChainId chainId = new EthChainId();
+                chainId.setResult("0x3");
+                return chainId;
+            case "eth_sendRawTransaction":
+                // Nonce 7 was used up before the broadcast started
+                EthSendTransaction sendTransaction = new EthSendTransaction();
+                String signed = (String) request.getParams().get(0);
+                if (TransactionDecoder.decode(signed).getNonce().intValue() == 7) {
+                    sendTransaction.setError(new Response.Error(-32000, "nonce too low"));
+                } else {
+                    sendTransaction.setResult(Hash.sha3(signed));
+                }
+                return sendTransaction;
+            case "eth_getTransactionByHash":
+                EthTransaction ethTransaction = new EthTransaction();
+                String hash = (String) request.getParams().get(0);
+                if (mined.contains(hash)) {
+                    Transaction transaction = new Transaction();
+                    transaction.setHash(hash);
+                    transaction.setBlockNumber("0x1");
+                    ethTransaction.setResult(transaction);
+                }
+                return ethTransaction;
+            case "eth_getTransactionReceipt":
+                TransactionReceipt receipt = new TransactionReceipt();
+                receipt.setTransactionHash((String) request.getParams().get(0));
+                receipt.setBlockNumber("0x1");
+                receipt.setStatus("0x1");
+                EthGetTransactionReceipt transactionReceipt = new EthGetTransactionReceipt();
+                transactionReceipt.setResult(receipt);
+                return transactionReceipt;
+            default:
+                throw new UnsupportedOperationException(request.getMethod());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.epirus.console.project.utils.Folders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.WalletUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WalletGeneratorTest {
+    private static final String WALLET_PASSWORD = "password";
+
+    private File tempDir;
+
+    @BeforeEach
+    void setup() {
+        tempDir = Folders.tempBuildFolder();
+    }
+
+    @Test
+    public void walletsAreGeneratedAndIndexed() throws Exception {
+        File index = new File(tempDir, WalletGenerator.DEFAULT_INDEX_FILE_NAME);
+        List<Integer> progress = new ArrayList<>();
+
+        List<WalletGenerator.GeneratedWallet> wallets =
+                new WalletGenerator(tempDir, WALLET_PASSWORD, WalletGenerator.Kdf.LIGHT, 4)
+                        .generate(5, index, progress::add);
+
+        assertEquals(5, wallets.size());
+        assertEquals(5, progress.get(progress.size() - 1).intValue());
+        List<String> lines = Files.readAllLines(index.toPath());
+        assertEquals("address,file", lines.get(0));
+        assertEquals(6, lines.size());
+
+        WalletGenerator.GeneratedWallet wallet = wallets.get(0);
+        assertTrue(lines.contains(wallet.getAddress() + "," + wallet.getFile()));
+        assertEquals(
+                wallet.getAddress(),
+                WalletUtils.loadCredentials(WALLET_PASSWORD, new File(tempDir, wallet.getFile()))
+                        .getAddress());
+    }
+
+    @Test
+    public void indexIsWrittenAsJson() throws Exception {
+        File index = new File(tempDir, "addresses.json");
+
+        new WalletGenerator(tempDir, WALLET_PASSWORD, WalletGenerator.Kdf.LIGHT, 2)
+                .generate(2, index, generated -> {});
+
+        String json = new String(Files.readAllBytes(index.toPath()));
+        assertTrue(json.trim().startsWith("["));
+        assertTrue(json.contains("\"address\": \"0x"));
+    }
+
+    @Test
+    public void atLeastOneWalletIsGenerated() {
+        File index = new File(tempDir, WalletGenerator.DEFAULT_INDEX_FILE_NAME);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new WalletGenerator(tempDir, WALLET_PASSWORD, WalletGenerator.Kdf.LIGHT, 2)
+                                .generate(0, index, generated -> {}));
+        assertFalse(index.exists());
+    }
+}
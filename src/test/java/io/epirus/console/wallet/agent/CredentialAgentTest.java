@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import io.epirus.console.wallet.TransactionSigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.SignedRawTransaction;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.crypto.WalletUtils;
+import org.web3j.tx.ChainIdLong;
+import org.web3j.utils.Numeric;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CredentialAgentTest {
+
+    private static final Credentials CREDENTIALS =
+            Credentials.create(
+                    Numeric.toHexStringNoPrefix(Hash.sha3("credential agent".getBytes())));
+
+    private Path directory;
+    private Path socketPath;
+    private CredentialAgent agent;
+    private Thread agentThread;
+    private CredentialAgentClient client;
+
+    @BeforeEach
+    void setup() throws Exception {
+        // Unix socket paths are limited to about a hundred characters
+        directory = Files.createTempDirectory("agent");
+        socketPath = directory.resolve("agent").resolve("agent.sock");
+        agent = new CredentialAgent(socketPath, TimeUnit.MINUTES.toMillis(1));
+        agentThread =
+                new Thread(
+                        () -> {
+                            try {
+                                agent.run();
+                            } catch (IOException e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        agentThread.start();
+        client = new CredentialAgentClient(socketPath);
+        for (int i = 0; i < 100 && !client.isAlive(); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        agent.stop();
+        agentThread.join();
+    }
+
+    @Test
+    public void socketIsOnlyAccessibleToTheOwner() throws IOException {
+        assertEquals(
+                "rw-------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath)));
+        assertEquals(
+                "rwx------",
+                PosixFilePermissions.toString(
+                        Files.getPosixFilePermissions(socketPath.getParent())));
+    }
+
+    @Test
+    public void sharedSocketDirectoryIsRefusedAndLeftAlone() throws IOException {
+        Path shared = Files.createDirectories(directory.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        assertThrows(IOException.class, () -> CredentialAgent.prepareDirectory(shared));
+        assertEquals(
+                "rwxrwxrwx", PosixFilePermissions.toString(Files.getPosixFilePermissions(shared)));
+
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwx------"));
+        CredentialAgent.prepareDirectory(shared);
+    }
+
+    @Test
+    public void walletsAreFoundUntilRemoved() throws Exception {
+        File walletFile = walletFile();
+        assertFalse(client.address(walletFile).isPresent());
+
+        assertEquals(CREDENTIALS.getAddress(), client.add(walletFile, "password"));
+        assertEquals(CREDENTIALS.getAddress(), client.address(walletFile).get());
+        assertEquals(1, client.list().getAsJsonArray("wallets").size());
+
+        client.remove(CREDENTIALS.getAddress());
+        assertFalse(client.address(walletFile).isPresent());
+    }
+
+    @Test
+    public void walletFileIsDecryptedByTheAgent() throws Exception {
+        File walletFile = walletFile();
+
+        assertThrows(IOException.class, () -> client.add(walletFile, "wrong password"));
+        assertEquals(CREDENTIALS.getAddress(), client.add(walletFile, "password"));
+    }
+
+    @Test
+    public void privateKeysAreNeverHandedOut() throws Exception {
+        File walletFile = walletFile();
+        client.add(walletFile, "password");
+        JsonObject request = new JsonObject();
+        request.addProperty("method", "get");
+        request.addProperty("file", walletFile.getAbsolutePath());
+
+        assertThrows(IllegalArgumentException.class, () -> agent.handle(request));
+        assertFalse(client.list().toString().contains(privateKey()));
+    }
+
+    @Test
+    public void transactionsAreSignedByTheAgent() throws Exception {
+        client.add(walletFile(), "password");
+        JsonObject transaction = new JsonObject();
+        transaction.addProperty("nonce", "0x1");
+        transaction.addProperty("gasPrice", "0x3b9aca00");
+        transaction.addProperty("gasLimit", "0x5208");
+        transaction.addProperty("to", "0x0000000000000000000000000000000000000001");
+        transaction.addProperty("value", "0xde0b6b3a7640000");
+
+        String signed = client.sign(CREDENTIALS.getAddress(), transaction, 3L);
+
+        SignedRawTransaction decoded = (SignedRawTransaction) TransactionDecoder.decode(signed);
+        assertEquals(CREDENTIALS.getAddress(), decoded.getFrom());
+        assertEquals(Long.valueOf(3), decoded.getChainId());
+    }
+
+    @Test
+    public void agentSignerSignsLikeLocalCredentials() throws Exception {
+        client.add(walletFile(), "password");
+        TransactionSigner agentSigner =
+                new AgentTransactionSigner(client, CREDENTIALS.getAddress());
+        RawTransaction transaction =
+                RawTransaction.createTransaction(
+                        BigInteger.valueOf(7),
+                        BigInteger.valueOf(1_000_000_000),
+                        BigInteger.valueOf(100_000),
+                        "0x0000000000000000000000000000000000000002",
+                        BigInteger.TEN,
+                        "0xa9059cbb");
+
+        for (long chainId : new long[] {ChainIdLong.NONE, 1337}) {
+            assertArrayEquals(
+                    TransactionSigner.of(CREDENTIALS).sign(transaction, chainId),
+                    agentSigner.sign(transaction, chainId));
+        }
+    }
+
+    @Test
+    public void stopRequestShutsTheAgentDown() throws Exception {
+        client.stop();
+        agentThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(agentThread.isAlive());
+        assertFalse(socketPath.toFile().exists());
+    }
+
+    private File walletFile() throws Exception {
+        String walletFileName =
+                WalletUtils.generateWalletFile(
+                        "password", CREDENTIALS.getEcKeyPair(), directory.toFile(), false);
+        return new File(directory.toFile(), walletFileName);
+    }
+
+    private static String privateKey() {
+        return Numeric.toHexStringNoPrefix(CREDENTIALS.getEcKeyPair().getPrivateKey());
+    }
+}
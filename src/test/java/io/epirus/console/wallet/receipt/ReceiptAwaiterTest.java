@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Web3 Labs Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.epirus.console.wallet.receipt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReceiptAwaiterTest {
+
+    private static final String FIRST_HASH = "0x01";
+    private static final String SECOND_HASH = "0x02";
+
+    private final AtomicLong head = new AtomicLong(10);
+    private final AtomicBoolean sealing = new AtomicBoolean(true);
+    private final Map<String, Long> mined = new ConcurrentHashMap<>();
+    private volatile boolean unreachable;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Web3jService web3jService = mock(Web3jService.class);
+        when(web3jService.sendAsync(any(Request.class), any()))
+                .thenAnswer(
+                        invocation ->
+                                CompletableFuture.supplyAsync(
+                                        () -> respond(invocation.getArgument(0))));
+        when(web3jService.sendBatchAsync(any(BatchRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            BatchRequest batch = invocation.getArgument(0);
+                            if (unreachable) {
+                                CompletableFuture<BatchResponse> failed = new CompletableFuture<>();
+                                failed.completeExceptionally(new IOException("Connection refused"));
+                                return failed;
+                            }
+                            List<Response<?>> responses =
+                                    batch.getRequests().stream()
+                                            .map(this::respond)
+                                            .collect(Collectors.toList());
+                            return CompletableFuture.completedFuture(
+                                    new BatchResponse(batch.getRequests(), responses));
+                        });
+        web3j = Web3j.build(web3jService);
+    }
+
+    @Test
+    public void backoffAwaiterReturnsReceipt() throws Exception {
+        mined.put(FIRST_HASH, 10L);
+
+        try (ReceiptAwaiter awaiter =
+                ReceiptAwaiter.create(ReceiptWaitStrategy.BACKOFF, web3j, 1, 10_000)) {
+            TransactionReceipt receipt = awaiter.await(FIRST_HASH).get(5, TimeUnit.SECONDS);
+
+            assertEquals(FIRST_HASH, receipt.getTransactionHash());
+            assertEquals(1, awaiter.getStats().getConfirmed());
+            assertEquals(0, awaiter.getStats().getRequests("eth_blockNumber"));
+        }
+    }
+
+    @Test
+    public void batchAwaiterPollsAllTransactionsInOneRequest() throws Exception {
+        mined.put(FIRST_HASH, 10L);
+        mined.put(SECOND_HASH, 10L);
+
+        try (ReceiptAwaiter awaiter =
+                ReceiptAwaiter.create(ReceiptWaitStrategy.BATCH, web3j, 1, 10_000)) {
+            CompletableFuture<TransactionReceipt> first = awaiter.await(FIRST_HASH);
+            CompletableFuture<TransactionReceipt> second = awaiter.await(SECOND_HASH);
+
+            assertEquals(FIRST_HASH, first.get(5, TimeUnit.SECONDS).getTransactionHash());
+            assertEquals(SECOND_HASH, second.get(5, TimeUnit.SECONDS).getTransactionHash());
+            assertEquals(2, awaiter.getStats().getRequests("eth_getTransactionReceipt"));
+            assertEquals(2, awaiter.getStats().getRoundTrips());
+        }
+    }
+
+    @Test
+    public void receiptIsReturnedOnceConfirmed() throws Exception {
+        mined.put(FIRST_HASH, 11L);
+
+        try (ReceiptAwaiter awaiter =
+                ReceiptAwaiter.create(ReceiptWaitStrategy.BLOCKS, web3j, 3, 20_000)) {
+            CompletableFuture<TransactionReceipt> receipt = awaiter.await(FIRST_HASH);
+
+            receipt.get(10, TimeUnit.SECONDS);
+            assertTrue(head.get() >= 13);
+        }
+    }
+
+    @Test
+    public void transactionAwaitedAfterItsBlockIsChecked() throws Exception {
+        // Like an automining dev chain, no block is sealed until a new transaction arrives
+        sealing.set(false);
+        mined.put(FIRST_HASH, 10L);
+        mined.put(SECOND_HASH, 10L);
+
+        try (ReceiptAwaiter awaiter =
+                ReceiptAwaiter.create(ReceiptWaitStrategy.BLOCKS, web3j, 1, 20_000)) {
+            awaiter.await(FIRST_HASH).get(5, TimeUnit.SECONDS);
+
+            TransactionReceipt receipt = awaiter.await(SECOND_HASH).get(5, TimeUnit.SECONDS);
+            assertEquals(SECOND_HASH, receipt.getTransactionHash());
+            assertEquals(10, head.get());
+        }
+    }
+
+    @Test
+    public void missingReceiptTimesOut() {
+        try (ReceiptAwaiter awaiter =
+                ReceiptAwaiter.create(ReceiptWaitStrategy.BACKOFF, web3j, 1, 300)) {
+            CompletableFuture<TransactionReceipt> receipt = awaiter.await(FIRST_HASH);
+
+            ExecutionException e =
+                    assertThrows(ExecutionException.class, () -> receipt.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertFalse(awaiter.getStats().getRequests("eth_getTransactionReceipt") == 0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(
+            value = ReceiptWaitStrategy.class,
+            names = {"BLOCKS", "BATCH"})
+    public void receiptTimesOutWhileNodeIsUnreachable(ReceiptWaitStrategy strategy) {
+        unreachable = true;
+
+        try (ReceiptAwaiter awaiter = ReceiptAwaiter.create(strategy, web3j, 1, 300)) {
+            CompletableFuture<TransactionReceipt> receipt = awaiter.await(FIRST_HASH);
+
+            ExecutionException e =
+                    assertThrows(ExecutionException.class, () -> receipt.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertTrue(e.getCause().getMessage().startsWith("Transaction receipt not received"));
+        }
+    }
+
+    private Response<?> respond(Request<?, ?> request) {
+        if (unreachable) {
+            throw new UncheckedIOException(new IOException("Connection refused"));
+        }
+        switch (request.getMethod()) {
+            case "eth_blockNumber":
+                EthBlockNumber blockNumber = new EthBlockNumber();
+                blockNumber.setResult(
+                        "0x"
+                                + Long.toHexString(
+                                        sealing.get() ? head.getAndIncrement() : head.get()));
+                return blockNumber;
+            case "eth_getTransactionReceipt":
+                String hash = (String) request.getParams().get(0);
+                EthGetTransactionReceipt response = new EthGetTransactionReceipt();
+                Long block = mined.get(hash);
+                if (block != null && block <= head.get()) {
+                    TransactionReceipt receipt = new TransactionReceipt();
+                    receipt.setTransactionHash(hash);
+                    receipt.setBlockNumber("0x" + Long.toHexString(block));
+                    receipt.setStatus("0x1");
+                    response.setResult(receipt);
+                }
+                return response;
+            default:
+                throw new UnsupportedOperationException(request.getMethod());
+        }
+    }
+}